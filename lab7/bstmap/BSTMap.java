@@ -1,27 +1,81 @@
 package bstmap;
 
-import java.util.ArrayList;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
 
+/**
+ * A Map61B backed by a left-leaning red-black tree, a binary search tree
+ * kept balanced by encoding a 2-3 tree: a red link joins two keys of the
+ * same 3-node, and only left links are red. Every path from the root to
+ * a null link has as many black links, so the height stays below
+ * 2 lg(n + 1), and get(), put() and remove() take logarithmic time even
+ * for keys put in order, which made the plain binary search tree a
+ * linked list.
+ * <p>
+ * get() and containsKey() walk down the tree in a loop. put() and
+ * remove() recurse, as they fix the tree on the way back up, but only as
+ * deep as the tree. keySet() is a view of the keys in the tree itself.
+ * <p>
+ * Each node also holds the number of nodes in its subtree, which gives
+ * the ordered operations min(), max(), floor(), ceiling(), rank() and
+ * select() in logarithmic time. keys(lo, hi) iterates over a range of
+ * keys lazily, walking down to lo first, then from key to key.
+ * <p>
+ * The iterators, of the map, of keySet() and of keys(lo, hi), hold a
+ * stack as deep as the tree rather than a copy of the keys. They are
+ * fail-fast: once a key is added or removed other than through their own
+ * remove(), their next() throws ConcurrentModificationException.
+ */
 public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
 
-    private Node root;
-    private int size;
-    private Set<K> keySet = new TreeSet<>();
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private Node<K, V> root;
+
+    /**
+     * The number of times a key was added or removed, which iterators
+     * check to notice changes made under them.
+     */
+    private int modCount;
+
+    /**
+     * The view of the keys, created on first use.
+     */
+    private KeySet keySet;
 
     public BSTMap() {
     }
 
-    private class Node {
+    /**
+     * A node of the tree. Static, so that it holds no reference to the map.
+     */
+    private static class Node<K, V> {
         private K key;
         private V val;
-        private Node left, right;
+        private Node<K, V> left, right;
+
+        /**
+         * The color of the link from the parent of this node to it.
+         */
+        private boolean color;
 
-        public Node(K key, V val) {
+        /**
+         * The number of nodes in the subtree of this node.
+         */
+        private int size;
+
+        public Node(K key, V val, boolean color) {
             this.key = key;
             this.val = val;
+            this.color = color;
+            this.size = 1;
         }
     }
 
@@ -31,14 +85,13 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
     @Override
     public void clear() {
         root = null;
-        size = 0;
-        keySet = new TreeSet<>();
+        modCount += 1;
     }
 
     /* Returns true if this map contains a mapping for the specified key. */
     @Override
     public boolean containsKey(K key) {
-        return keySet.contains(key);
+        return getNode(key) != null;
     }
 
     /*
@@ -47,74 +100,249 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
      */
     @Override
     public V get(K key) {
-        if (!containsKey(key)) {
-            return null;
-        }
-        return get(root, key);
+        Node<K, V> node = getNode(key);
+        return node == null ? null : node.val;
     }
 
-    private V get(Node node, K key) {
-        if (node == null) {
-            return null;
-        }
-        int cmp = key.compareTo(node.key);
-        if (cmp < 0) {
-            return get(node.left, key);
-        } else if (cmp > 0) {
-            return get(node.right, key);
-        } else {
-            return node.val;
+    /**
+     * Returns the node of KEY, or null if it is not in this map.
+     */
+    private Node<K, V> getNode(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
         }
+        return null;
     }
 
     /* Returns the number of key-value mappings in this map. */
     @Override
     public int size() {
-        return size;
+        return size(root);
+    }
+
+    private int size(Node<K, V> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Returns the smallest key in this map.
+     *
+     * @throws NoSuchElementException if this map is empty
+     */
+    public K min() {
+        if (root == null) {
+            throw new NoSuchElementException("empty map");
+        }
+        Node<K, V> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.key;
     }
 
-    /* Associates the specified value with the specified key in this map. */
+    /**
+     * Returns the largest key in this map.
+     *
+     * @throws NoSuchElementException if this map is empty
+     */
+    public K max() {
+        if (root == null) {
+            throw new NoSuchElementException("empty map");
+        }
+        Node<K, V> node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.key;
+    }
+
+    /**
+     * Returns the largest key less than or equal to KEY, or null if there
+     * is none.
+     */
+    public K floor(K key) {
+        K floor = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.key;
+            } else if (cmp < 0) {
+                node = node.left;
+            } else {
+                floor = node.key;
+                node = node.right;
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the smallest key greater than or equal to KEY, or null if
+     * there is none.
+     */
+    public K ceiling(K key) {
+        K ceiling = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.key;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                ceiling = node.key;
+                node = node.left;
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Returns the number of keys in this map strictly less than KEY.
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                rank += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + size(node.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the key of rank K, that is with K keys less than it.
+     *
+     * @throws IllegalArgumentException unless 0 <= K < size()
+     */
+    public K select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IllegalArgumentException("rank " + k + " out of [0, " + size() + ")");
+        }
+        Node<K, V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.key;
+            }
+        }
+    }
+
+    /**
+     * Returns the keys between LO and HI, both included, in increasing
+     * order. Its iterators find the next key as they go, so that taking
+     * the first m keys costs O(log n + m) time and O(log n) memory.
+     */
+    public Iterable<K> keys(K lo, K hi) {
+        return () -> new BSTMapIterator(lo, hi);
+    }
+
+    /*
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old value
+     * is replaced.
+     */
     @Override
     public void put(K key, V value) {
-        if (containsKey(key)) {
-            return;
-        }
-        keySet.add(key);
-        size += 1;
         root = put(root, key, value);
+        root.color = BLACK;
     }
 
-    private Node put(Node node, K key, V value) {
+    private Node<K, V> put(Node<K, V> node, K key, V value) {
         if (node == null) {
-            node = new Node(key, value);
-        } else if (key.compareTo(node.key) < 0) {
+            modCount += 1;
+            return new Node<>(key, value, RED);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
             node.left = put(node.left, key, value);
-        } else {
+        } else if (cmp > 0) {
             node.right = put(node.right, key, value);
+        } else {
+            node.val = value;
         }
-        return node;
+        return balance(node);
     }
 
     /*
-     * Returns a Set view of the keys contained in this map. Not required for Lab 7.
+     * Returns a Set view of the keys contained in this map, in increasing
+     * order. The set is backed by the map, so changes to the map show in
+     * the set, and removing keys from the set removes them from the map.
      */
     @Override
     public Set<K> keySet() {
+        if (keySet == null) {
+            keySet = new KeySet();
+        }
         return keySet;
     }
 
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return BSTMap.this.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return containsKey((K) o);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (!containsKey((K) o)) {
+                return false;
+            }
+            removeKey((K) o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            BSTMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new BSTMapIterator();
+        }
+    }
+
     /*
      * Removes the mapping for the specified key from this map if present.
      * Not required for Lab 7.
      */
     @Override
     public V remove(K key) {
-        V getVal = get(key);
-        if (getVal != null) {
-            size -= 1;
-            keySet.remove(key);
-            root = remove(root, key);
+        Node<K, V> node = getNode(key);
+        if (node == null) {
+            return null;
         }
+        V getVal = node.val;
+        removeKey(key);
         return getVal;
     }
 
@@ -124,43 +352,169 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
      */
     @Override
     public V remove(K key, V value) {
-        V getVal = get(key);
-        if (getVal != value || getVal == null) {
+        Node<K, V> node = getNode(key);
+        if (node == null || !Objects.equals(node.val, value)) {
             return null;
         }
-        size -= 1;
-        keySet.remove(key);
-        remove(root, key);
+        removeKey(key);
         return value;
     }
 
-    private Node remove(Node node, K key) {
-        int cmp = key.compareTo(node.key);
-        if (cmp < 0) {
-            node.left = remove(node.left, key);
-            return node;
-        } else if (cmp > 0) {
-            node.right = remove(node.right, key);
-            return node;
+    /**
+     * Removes KEY, which is in this map.
+     */
+    private void removeKey(K key) {
+        modCount += 1;
+        // Lets remove() borrow from the root as from any 2-node.
+        if (!isRed(root.left) && !isRed(root.right)) {
+            root.color = RED;
+        }
+        root = remove(root, key);
+        if (root != null) {
+            root.color = BLACK;
         }
+    }
 
-        // Deletes node NODE
-        if (node.left == null && node.right == null) {
-            return null;
-        } else if (node.left == null) {
-            return node.right;
-        } else if (node.right == null) {
-            return node.left;
+    /**
+     * Removes KEY, which is under NODE, from the subtree of NODE, and
+     * returns its new root. On the way down, NODE is kept out of a 2-node
+     * by borrowing a key from a sibling or merging with it, so that the
+     * key is removed from a 3-node, leaving the black heights unchanged.
+     */
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (key.compareTo(node.key) < 0) {
+            if (!isRed(node.left) && !isRed(node.left.left)) {
+                node = moveRedLeft(node);
+            }
+            node.left = remove(node.left, key);
         } else {
-            Node nextNode = node.right;
-            while (nextNode.left != null) {
-                nextNode = nextNode.left;
+            if (isRed(node.left)) {
+                node = rotateRight(node);
             }
-            node.key = nextNode.key;
-            node.val = nextNode.val;
-            node.right = remove(node.right, nextNode.key);
-            return node;
+            if (key.compareTo(node.key) == 0 && node.right == null) {
+                return null;
+            }
+            if (!isRed(node.right) && !isRed(node.right.left)) {
+                node = moveRedRight(node);
+            }
+            if (key.compareTo(node.key) == 0) {
+                // Replaces NODE by its successor, removed from the right.
+                Node<K, V> next = node.right;
+                while (next.left != null) {
+                    next = next.left;
+                }
+                node.key = next.key;
+                node.val = next.val;
+                node.right = removeMin(node.right);
+            } else {
+                node.right = remove(node.right, key);
+            }
+        }
+        return balance(node);
+    }
+
+    /**
+     * Removes the smallest key of the subtree of NODE, and returns its new
+     * root.
+     */
+    private Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) {
+            return null;
+        }
+        if (!isRed(node.left) && !isRed(node.left.left)) {
+            node = moveRedLeft(node);
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private boolean isRed(Node<K, V> node) {
+        return node != null && node.color == RED;
+    }
+
+    /**
+     * Makes the right-leaning red link from NODE lean left, and returns
+     * the new root of the subtree.
+     */
+    private Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> x = node.right;
+        node.right = x.left;
+        x.left = node;
+        x.color = node.color;
+        node.color = RED;
+        x.size = node.size;
+        node.size = size(node.left) + size(node.right) + 1;
+        return x;
+    }
+
+    /**
+     * Makes the left-leaning red link from NODE lean right, and returns
+     * the new root of the subtree.
+     */
+    private Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> x = node.left;
+        node.left = x.right;
+        x.right = node;
+        x.color = node.color;
+        node.color = RED;
+        x.size = node.size;
+        node.size = size(node.left) + size(node.right) + 1;
+        return x;
+    }
+
+    /**
+     * Flips the colors of NODE and its two children, splitting a 4-node
+     * on the way up, or making one on the way down.
+     */
+    private void flipColors(Node<K, V> node) {
+        node.color = !node.color;
+        node.left.color = !node.left.color;
+        node.right.color = !node.right.color;
+    }
+
+    /**
+     * Makes NODE.left or one of its children red, NODE being red and both
+     * NODE.left and NODE.left.left black.
+     */
+    private Node<K, V> moveRedLeft(Node<K, V> node) {
+        flipColors(node);
+        if (isRed(node.right.left)) {
+            node.right = rotateRight(node.right);
+            node = rotateLeft(node);
+            flipColors(node);
         }
+        return node;
+    }
+
+    /**
+     * Makes NODE.right or one of its children red, NODE being red and both
+     * NODE.right and NODE.right.left black.
+     */
+    private Node<K, V> moveRedRight(Node<K, V> node) {
+        flipColors(node);
+        if (isRed(node.left.left)) {
+            node = rotateRight(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    /**
+     * Restores the invariants of the subtree of NODE on the way up, and
+     * returns its root.
+     */
+    private Node<K, V> balance(Node<K, V> node) {
+        if (isRed(node.right) && !isRed(node.left)) {
+            node = rotateLeft(node);
+        }
+        if (isRed(node.left) && isRed(node.left.left)) {
+            node = rotateRight(node);
+        }
+        if (isRed(node.left) && isRed(node.right)) {
+            flipColors(node);
+        }
+        node.size = size(node.left) + size(node.right) + 1;
+        return node;
     }
 
     /**
@@ -180,44 +534,95 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
         System.out.println();
     }
 
+    /**
+     * Iterates over the keys in increasing order, up to hi if any, with a
+     * stack of the nodes whose key is yet to come and whose left subtree is
+     * done: the next key is the top one's, after which come the left spine
+     * of its right subtree.
+     */
     private class BSTMapIterator implements Iterator<K> {
-        ArrayList<K> res = new ArrayList<>(size);
-        int i;
+        /**
+         * The largest key to return, or null to go to the end.
+         */
+        private final K hi;
+
+        private final Deque<Node<K, V>> stack = new ArrayDeque<>();
+
+        /**
+         * The modCount of the map as this iterator last left it.
+         */
+        private int expectedModCount = modCount;
 
-        public BSTMapIterator() {
-            preOrder(root);
-            i = 0;
+        /**
+         * The key last returned by next(), or null if remove() may not be
+         * called.
+         */
+        private K last;
+
+        BSTMapIterator() {
+            this(null, null);
         }
 
-        private void preOrder(Node node) {
-            if (node == null) {
-                return;
-            }
-            preOrder(node.left);
-            res.add(node.key);
-            preOrder(node.right);
+        BSTMapIterator(K lo, K hi) {
+            this.hi = hi;
+            seek(lo, true);
         }
 
         /**
-         * Returns {@code true} if the iteration has more elements.
-         * (In other words, returns {@code true} if {@link #next} would
-         * return an element rather than throwing an exception.)
-         *
-         * @return {@code true} if the iteration has more elements
+         * Pushes the nodes from the root toward LO whose key comes after
+         * LO, or is LO if INCLUSIVE. A null LO comes before every key.
          */
+        private void seek(K lo, boolean inclusive) {
+            Node<K, V> node = root;
+            while (node != null) {
+                int cmp = lo == null ? -1 : lo.compareTo(node.key);
+                if (cmp > 0 || cmp == 0 && !inclusive) {
+                    node = node.right;
+                } else {
+                    stack.push(node);
+                    node = cmp < 0 ? node.left : null;
+                }
+            }
+        }
+
         @Override
         public boolean hasNext() {
-            return i < res.size();
+            return !stack.isEmpty() && (hi == null || stack.peek().key.compareTo(hi) <= 0);
+        }
+
+        @Override
+        public K next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = stack.pop();
+            for (Node<K, V> n = node.right; n != null; n = n.left) {
+                stack.push(n);
+            }
+            last = node.key;
+            return last;
         }
 
         /**
-         * Returns the next element in the iteration.
-         *
-         * @return the next element in the iteration
+         * Removes the key last returned by next(). Removing rebalances the
+         * tree, so the stack is rebuilt from the root to the key after it.
          */
         @Override
-        public K next() {
-            return res.get(i++);
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("next() was not called");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeKey(last);
+            expectedModCount = modCount;
+            stack.clear();
+            seek(last, false);
+            last = null;
         }
     }
 }
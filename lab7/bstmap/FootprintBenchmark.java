@@ -0,0 +1,79 @@
+package bstmap;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Measures the bytes each map takes per mapping, next to the time of its
+ * puts, without user input. Usage:
+ * java --add-opens java.base/java.util=ALL-UNNAMED
+ *      --add-opens java.base/java.lang=ALL-UNNAMED
+ *      bstmap.FootprintBenchmark [N] [L]
+ * which puts N (default 100000) random strings of length L (default 10)
+ * into a BSTMap, a ULLMap, taking at most ULL_LIMIT of them as its puts
+ * take quadratic time, and Java's TreeMap, and prints the nanoseconds per
+ * put and the bytes the map retains, in all and per mapping, as measured
+ * by ObjectSizer. The keys and values are not counted, being the same for
+ * every map: their own bytes per mapping are printed last.
+ *
+ * @author Vincent Ma
+ */
+public class FootprintBenchmark {
+
+    private static final int ULL_LIMIT = 5000;
+
+    private static String[] keys;
+    private static Integer[] values;
+    private static Set<Object> excluded;
+
+    @SuppressWarnings({"deprecation", "removal"})
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        StringUtils.setSeed(61);
+        keys = new String[n];
+        values = new Integer[n];
+        excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < n; i++) {
+            keys[i] = StringUtils.randomString(length);
+            // Distinct Integers, unlike the cached ones of valueOf.
+            values[i] = new Integer(i);
+            excluded.add(keys[i]);
+            excluded.add(values[i]);
+        }
+
+        System.out.printf("random strings of length %d%n", length);
+        System.out.printf("%-20s %8s %10s %12s %12s%n",
+                "map", "N", "put ns", "bytes", "bytes/entry");
+        BSTMap<String, Integer> bst = new BSTMap<>();
+        run("BSTMap", bst, bst::put, n);
+        ULLMap<String, Integer> ull = new ULLMap<>();
+        run("ULLMap", ull, ull::put, Math.min(n, ULL_LIMIT));
+        TreeMap<String, Integer> tree = new TreeMap<>();
+        run("java.util.TreeMap", tree, tree::put, n);
+
+        long keyBytes = ObjectSizer.deepSizeOf(keys) - ObjectSizer.deepSizeOf(new String[n]);
+        long valueBytes = ObjectSizer.deepSizeOf(values) - ObjectSizer.deepSizeOf(new Integer[n]);
+        System.out.printf("(keys and values: %.1f bytes/entry more)%n",
+                (double) (keyBytes + valueBytes) / n);
+    }
+
+    /**
+     * Puts the first N keys and values into MAP with PUT, and prints how
+     * long it took and how many bytes MAP retains then.
+     */
+    private static void run(String name, Object map, BiConsumer<String, Integer> put, int n) {
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            put.accept(keys[i], values[i]);
+        }
+        double ns = (double) (System.nanoTime() - start) / n;
+        long bytes = ObjectSizer.deepSizeOf(map, excluded);
+        System.out.printf("%-20s %8d %10.1f %12d %12.1f%n",
+                name, n, ns, bytes, (double) bytes / n);
+    }
+}
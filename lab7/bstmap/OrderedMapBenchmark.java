@@ -0,0 +1,147 @@
+package bstmap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Compares BSTMap with Java's TreeMap on keys put in increasing and in
+ * random order, without user input. Usage:
+ * java bstmap.OrderedMapBenchmark [N] [ROUNDS]
+ * which puts N (default 1000000) strings into a new map of each kind,
+ * then gets each of them, then iterates over the keys, then removes each
+ * of them, ROUNDS (default 3) times, and prints the best nanoseconds per
+ * operation, or per key iterated over. The strings are
+ * those of StringUtils.nextString() from "cat", either in that increasing
+ * order or shuffled.
+ *
+ * @author Vincent Ma
+ */
+public class OrderedMapBenchmark {
+
+    /**
+     * The operations timed on a map.
+     */
+    private interface OrderedMap {
+        void put(String key, Integer value);
+
+        Integer get(String key);
+
+        Iterable<String> keys();
+
+        void remove(String key);
+    }
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        String[] inOrder = new String[n];
+        String s = "cat";
+        for (int i = 0; i < n; i++) {
+            s = StringUtils.nextString(s);
+            inOrder[i] = s;
+        }
+        String[] shuffled = inOrder.clone();
+        Collections.shuffle(Arrays.asList(shuffled), new Random(61));
+
+        System.out.printf("%d keys, best of %d rounds, ns per op%n", n, rounds);
+        System.out.printf("%-10s %-8s %10s %10s %10s %10s%n",
+                "map", "keys", "put", "get", "iterate", "remove");
+        for (String[] keys : new String[][]{inOrder, shuffled}) {
+            String order = keys == inOrder ? "in order" : "random";
+            run("BSTMap", order, keys, rounds, () -> {
+                BSTMap<String, Integer> map = new BSTMap<>();
+                return new OrderedMap() {
+                    public void put(String key, Integer value) {
+                        map.put(key, value);
+                    }
+
+                    public Integer get(String key) {
+                        return map.get(key);
+                    }
+
+                    public Iterable<String> keys() {
+                        return map.keySet();
+                    }
+
+                    public void remove(String key) {
+                        map.remove(key);
+                    }
+                };
+            });
+            run("TreeMap", order, keys, rounds, () -> {
+                TreeMap<String, Integer> map = new TreeMap<>();
+                return new OrderedMap() {
+                    public void put(String key, Integer value) {
+                        map.put(key, value);
+                    }
+
+                    public Integer get(String key) {
+                        return map.get(key);
+                    }
+
+                    public Iterable<String> keys() {
+                        return map.keySet();
+                    }
+
+                    public void remove(String key) {
+                        map.remove(key);
+                    }
+                };
+            });
+        }
+        // Keeps the lookups from being optimized away.
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    private static void run(String name, String order, String[] keys, int rounds,
+                            Supplier<OrderedMap> factory) {
+        int n = keys.length;
+        double put = Double.MAX_VALUE;
+        double get = Double.MAX_VALUE;
+        double iterate = Double.MAX_VALUE;
+        double remove = Double.MAX_VALUE;
+        try {
+            for (int r = 0; r < rounds; r++) {
+                OrderedMap map = factory.get();
+                long start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    map.put(keys[i], i);
+                }
+                put = Math.min(put, nanosPerOp(start, n));
+
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    sink += map.get(keys[i]);
+                }
+                get = Math.min(get, nanosPerOp(start, n));
+
+                start = System.nanoTime();
+                for (String key : map.keys()) {
+                    sink += key.length();
+                }
+                iterate = Math.min(iterate, nanosPerOp(start, n));
+
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    map.remove(keys[i]);
+                }
+                remove = Math.min(remove, nanosPerOp(start, n));
+            }
+        } catch (StackOverflowError e) {
+            System.out.printf("%-10s %-8s %s%n", name, order, "StackOverflowError");
+            return;
+        }
+        System.out.printf("%-10s %-8s %10.1f %10.1f %10.1f %10.1f%n",
+                name, order, put, get, iterate, remove);
+    }
+
+    private static double nanosPerOp(long start, int n) {
+        return (double) (System.nanoTime() - start) / n;
+    }
+}
@@ -1,7 +1,14 @@
 package bstmap;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeMap;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -113,4 +120,282 @@ public class TestBSTMapExtra {
         assertEquals(null, noChild.get('Z'));
     }
 
+    /* Randomized Test
+     * Compares puts, gets and removes of random keys with a TreeMap's.
+     */
+    @Test
+    public void randomizedTest() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 50000; i++) {
+            Integer key = random.nextInt(2000);
+            switch (random.nextInt(5)) {
+                case 0:
+                case 1:
+                    b.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), b.remove(key));
+                    break;
+                case 3:
+                    Integer value = expected.get(key);
+                    if (value != null && random.nextBoolean()) {
+                        value = -1;
+                    }
+                    Integer removed = b.remove(key, value);
+                    if (removed != null) {
+                        assertEquals(expected.remove(key), removed);
+                    } else {
+                        assertTrue(value == null || !value.equals(expected.get(key)));
+                    }
+                    break;
+                default:
+                    assertEquals(expected.get(key), b.get(key));
+                    assertEquals(expected.containsKey(key), b.containsKey(key));
+            }
+            assertEquals(expected.size(), b.size());
+        }
+        assertEquals(expected.keySet(), b.keySet());
+    }
+
+    /* In-Order Test
+     * Keys put in increasing order, which used to make the tree a list,
+     * overflowing the stack, take logarithmic time each.
+     */
+    @Test(timeout = 10000)
+    public void testInOrder() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        int n = 1000000;
+        for (int i = 0; i < n; i++) {
+            b.put(i, i);
+        }
+        assertEquals(n, b.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Integer.valueOf(i), b.get(i));
+        }
+        for (int i = n - 1; i >= n / 2; i--) {
+            assertEquals(Integer.valueOf(i), b.remove(i));
+        }
+        assertEquals(n / 2, b.size());
+        int expected = 0;
+        for (Integer key : b) {
+            assertEquals(Integer.valueOf(expected), key);
+            expected += 1;
+        }
+        assertEquals(n / 2, expected);
+    }
+
+    /* Put Test
+     * Putting a key again replaces its value.
+     */
+    @Test
+    public void testPutReplaces() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("a", 1);
+        b.put("a", 2);
+        assertEquals(1, b.size());
+        assertEquals(Integer.valueOf(2), b.get("a"));
+        b.put("a", null);
+        assertTrue(b.containsKey("a"));
+        assertNull(b.remove("a"));
+        assertEquals(0, b.size());
+    }
+
+    /* Key Set Test
+     * The key set is a live view of the keys, in increasing order.
+     */
+    @Test
+    public void testKeySetView() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        Set<Integer> keys = b.keySet();
+        assertTrue(keys.isEmpty());
+        for (int i = 99; i >= 0; i--) {
+            b.put(i * 2, i);
+        }
+        assertEquals(100, keys.size());
+        assertTrue(keys.contains(42));
+        assertFalse(keys.contains(43));
+        int expected = 0;
+        for (Integer key : keys) {
+            assertEquals(Integer.valueOf(expected), key);
+            expected += 2;
+        }
+        assertTrue(keys.remove(42));
+        assertFalse(keys.remove(42));
+        assertFalse(b.containsKey(42));
+        assertEquals(99, b.size());
+        b.put(43, 1);
+        assertTrue(keys.contains(43));
+        assertSame(keys, b.keySet());
+        keys.clear();
+        assertEquals(0, b.size());
+        assertNull(b.get(0));
+    }
+
+    /* Ordered Operations Test
+     * Compares min, max, floor, ceiling, rank, select and keys(lo, hi)
+     * with a TreeMap's, as random keys come and go.
+     */
+    @Test
+    public void randomizedOrderedTest() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                b.remove(key);
+                expected.remove(key);
+            } else {
+                b.put(key, i);
+                expected.put(key, i);
+            }
+            Integer probe = random.nextInt(1100) - 50;
+            assertEquals(expected.floorKey(probe), b.floor(probe));
+            assertEquals(expected.ceilingKey(probe), b.ceiling(probe));
+            assertEquals(expected.headMap(probe).size(), b.rank(probe));
+            if (expected.isEmpty()) {
+                continue;
+            }
+            assertEquals(expected.firstKey(), b.min());
+            assertEquals(expected.lastKey(), b.max());
+            int k = random.nextInt(expected.size());
+            Integer selected = b.select(k);
+            assertEquals(k, b.rank(selected));
+            assertTrue(expected.containsKey(selected));
+            if (i % 100 == 0) {
+                Integer hi = probe + random.nextInt(200);
+                List<Integer> range = new ArrayList<>();
+                for (Integer x : b.keys(probe, hi)) {
+                    range.add(x);
+                }
+                assertEquals(new ArrayList<>(expected.subMap(probe, true, hi, true).keySet()),
+                        range);
+            }
+        }
+    }
+
+    /* Ordered Operations Edge Test
+     * Empty maps, missing bounds, and ranges with lo above hi.
+     */
+    @Test
+    public void testOrderedEdges() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        assertNull(b.floor("a"));
+        assertNull(b.ceiling("a"));
+        assertEquals(0, b.rank("a"));
+        assertFalse(b.keys("a", "z").iterator().hasNext());
+        try {
+            b.min();
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        try {
+            b.select(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        b.put("c", 1);
+        b.put("e", 2);
+        b.put("g", 3);
+        assertEquals("c", b.min());
+        assertEquals("g", b.max());
+        assertNull(b.floor("b"));
+        assertEquals("e", b.floor("f"));
+        assertEquals("e", b.ceiling("d"));
+        assertNull(b.ceiling("h"));
+        assertEquals(3, b.rank("z"));
+        assertEquals("g", b.select(2));
+        assertFalse(b.keys("f", "d").iterator().hasNext());
+        Iterator<String> keys = b.keys("d", "e").iterator();
+        assertEquals("e", keys.next());
+        assertFalse(keys.hasNext());
+        try {
+            keys.next();
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    /* Fail-Fast Iterator Test
+     * Adding or removing a key under an iterator makes its next() throw,
+     * but replacing a value does not.
+     */
+    @Test
+    public void testIteratorFailFast() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        for (int i = 0; i < 10; i++) {
+            b.put(i, i);
+        }
+        Iterator<Integer> keys = b.iterator();
+        assertEquals(Integer.valueOf(0), keys.next());
+        b.put(5, 50);
+        assertEquals(Integer.valueOf(1), keys.next());
+        b.put(10, 10);
+        try {
+            keys.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+
+        keys = b.keySet().iterator();
+        keys.next();
+        b.remove(3);
+        try {
+            keys.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+
+        keys = b.keys(2, 8).iterator();
+        b.clear();
+        try {
+            keys.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    /* Iterator Remove Test
+     * Removing through an iterator goes on from the next key, in a tree
+     * rebalanced under it.
+     */
+    @Test
+    public void testIteratorRemove() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        for (int i = 0; i < 1000; i++) {
+            b.put(i, i);
+        }
+        try {
+            b.iterator().remove();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertTrue(b.keySet().removeIf(key -> key % 3 != 0));
+        assertEquals(334, b.size());
+        int expected = 0;
+        for (Integer key : b) {
+            assertEquals(Integer.valueOf(expected), key);
+            expected += 3;
+        }
+
+        Iterator<Integer> keys = b.keys(300, 600).iterator();
+        while (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+        assertEquals(233, b.size());
+        assertEquals(Integer.valueOf(297), b.floor(600));
+        assertEquals(Integer.valueOf(603), b.ceiling(300));
+    }
 }
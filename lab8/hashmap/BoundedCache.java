@@ -0,0 +1,535 @@
+package hashmap;
+
+import java.util.Arrays;
+
+/**
+ * A MyHashMap holding at most a given number of mappings, which evicts
+ * mappings to make room for new ones following a replacement policy, and
+ * counts its hits, misses and evictions.
+ * <p>
+ * Each policy keeps the nodes in intrusive doubly linked lists, threaded
+ * through the nodes themselves, so that recording an access, inserting,
+ * removing and picking a victim all take constant time:
+ * <ul>
+ * <li>LRU keeps one list, from the least to the most recently used node,
+ * and evicts its head.</li>
+ * <li>LFU keeps a list of frequency groups, by increasing number of
+ * uses, each group listing its nodes from the least recently used. An
+ * access moves a node to the next group, and the least frequently used
+ * group gives the victim.</li>
+ * <li>W_TINY_LFU puts new nodes in a small LRU window. A node leaving the
+ * window is admitted into the main LRU lists, probation then protected
+ * once used again, only if it has been used more often than the main
+ * victim it would replace, as estimated by a count-min sketch of recent
+ * uses, misses included. This keeps scans of keys used once from
+ * flushing frequently used ones.</li>
+ * </ul>
+ * <p>
+ * get() is an access; put() is one when it replaces a value. containsKey()
+ * is not, and does not count as a hit or a miss. The table shrinks as
+ * mappings are removed.
+ *
+ * @author Vincent Ma
+ */
+public class BoundedCache<K, V> extends MyHashMap<K, V> {
+
+    /**
+     * The replacement policies.
+     */
+    public enum Policy {
+        LRU, LFU, W_TINY_LFU
+    }
+
+    /**
+     * A node of the map, linked into the lists of the policy.
+     */
+    private class CacheNode extends Node {
+        private CacheNode prev;
+        private CacheNode next;
+
+        /**
+         * The list the node is in: its frequency group under LFU, a
+         * queue under W_TINY_LFU.
+         */
+        private NodeList list;
+
+        CacheNode(K k, V v) {
+            super(k, v);
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes, from head to tail.
+     */
+    private class NodeList {
+        CacheNode head;
+        CacheNode tail;
+        int size = 0;
+
+        void addLast(CacheNode node) {
+            node.list = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size += 1;
+        }
+
+        void remove(CacheNode node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.list = null;
+            size -= 1;
+        }
+
+        void moveToLast(CacheNode node) {
+            if (tail != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * How a policy follows the nodes and picks victims.
+     */
+    private interface Evictor<N> {
+        /** Follows new node NODE. */
+        void add(N node);
+
+        /** Records a use of NODE. */
+        void recordAccess(N node);
+
+        /** Records a get() of a key with HASH which is not in the map. */
+        void recordMiss(int hash);
+
+        /** Stops following removed node NODE. */
+        void remove(N node);
+
+        /** Returns the node to evict from the map, which is over capacity. */
+        N victim();
+
+        /** Stops following every node. */
+        void clear();
+    }
+
+    private class LruEvictor implements Evictor<CacheNode> {
+        private NodeList list = new NodeList();
+
+        @Override
+        public void add(CacheNode node) {
+            list.addLast(node);
+        }
+
+        @Override
+        public void recordAccess(CacheNode node) {
+            list.moveToLast(node);
+        }
+
+        @Override
+        public void recordMiss(int hash) {
+        }
+
+        @Override
+        public void remove(CacheNode node) {
+            list.remove(node);
+        }
+
+        @Override
+        public CacheNode victim() {
+            return list.head;
+        }
+
+        @Override
+        public void clear() {
+            list = new NodeList();
+        }
+    }
+
+    /**
+     * The nodes used FREQUENCY times, in a list of groups by increasing
+     * frequency.
+     */
+    private class FrequencyGroup extends NodeList {
+        private final long frequency;
+        private FrequencyGroup prevGroup;
+        private FrequencyGroup nextGroup;
+
+        FrequencyGroup(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+
+    private class LfuEvictor implements Evictor<CacheNode> {
+        private FrequencyGroup first;
+
+        @Override
+        public void add(CacheNode node) {
+            if (first == null || first.frequency != 1) {
+                first = linkAfter(null, 1);
+            }
+            first.addLast(node);
+        }
+
+        @Override
+        public void recordAccess(CacheNode node) {
+            FrequencyGroup group = (FrequencyGroup) node.list;
+            FrequencyGroup next = group.nextGroup;
+            if (next == null || next.frequency != group.frequency + 1) {
+                next = linkAfter(group, group.frequency + 1);
+            }
+            group.remove(node);
+            next.addLast(node);
+            unlinkIfEmpty(group);
+        }
+
+        @Override
+        public void recordMiss(int hash) {
+        }
+
+        @Override
+        public void remove(CacheNode node) {
+            FrequencyGroup group = (FrequencyGroup) node.list;
+            group.remove(node);
+            unlinkIfEmpty(group);
+        }
+
+        @Override
+        public CacheNode victim() {
+            // Spares the node just added, alone in the first group if the
+            // others have all been used again.
+            if (first.frequency == 1 && first.size == 1 && first.nextGroup != null) {
+                return first.nextGroup.head;
+            }
+            return first.head;
+        }
+
+        @Override
+        public void clear() {
+            first = null;
+        }
+
+        /**
+         * Returns a new group of FREQUENCY linked after GROUP, or first if
+         * GROUP is null.
+         */
+        private FrequencyGroup linkAfter(FrequencyGroup group, long frequency) {
+            FrequencyGroup added = new FrequencyGroup(frequency);
+            added.prevGroup = group;
+            added.nextGroup = group == null ? first : group.nextGroup;
+            if (added.nextGroup != null) {
+                added.nextGroup.prevGroup = added;
+            }
+            if (group == null) {
+                first = added;
+            } else {
+                group.nextGroup = added;
+            }
+            return added;
+        }
+
+        private void unlinkIfEmpty(FrequencyGroup group) {
+            if (group.size > 0) {
+                return;
+            }
+            if (group.prevGroup == null) {
+                first = group.nextGroup;
+            } else {
+                group.prevGroup.nextGroup = group.nextGroup;
+            }
+            if (group.nextGroup != null) {
+                group.nextGroup.prevGroup = group.prevGroup;
+            }
+        }
+    }
+
+    private class TinyLfuEvictor implements Evictor<CacheNode> {
+        private final int windowCapacity;
+        private final int protectedCapacity;
+        private final FrequencySketch sketch;
+        private NodeList window = new NodeList();
+        private NodeList probation = new NodeList();
+        private NodeList protectedList = new NodeList();
+
+        /**
+         * The node the last add() moved out of the window, if any.
+         */
+        private CacheNode candidate;
+
+        TinyLfuEvictor() {
+            windowCapacity = Math.max(1, capacity / 100);
+            protectedCapacity = (capacity - windowCapacity) * 4 / 5;
+            sketch = new FrequencySketch(capacity);
+        }
+
+        @Override
+        public void add(CacheNode node) {
+            sketch.increment(hash(node.key));
+            window.addLast(node);
+            candidate = null;
+            if (window.size > windowCapacity) {
+                // The window's LRU node moves to the main lists, where it
+                // is the candidate for admission should the map be full.
+                candidate = window.head;
+                window.remove(candidate);
+                probation.addLast(candidate);
+            }
+        }
+
+        @Override
+        public void recordAccess(CacheNode node) {
+            sketch.increment(hash(node.key));
+            if (node.list == probation) {
+                // Used again on probation: promoted.
+                probation.remove(node);
+                protectedList.addLast(node);
+                if (protectedList.size > protectedCapacity) {
+                    CacheNode demoted = protectedList.head;
+                    protectedList.remove(demoted);
+                    probation.addLast(demoted);
+                }
+            } else {
+                node.list.moveToLast(node);
+            }
+        }
+
+        @Override
+        public void recordMiss(int hash) {
+            sketch.increment(hash);
+        }
+
+        @Override
+        public void remove(CacheNode node) {
+            node.list.remove(node);
+        }
+
+        @Override
+        public CacheNode victim() {
+            CacheNode admitted = candidate;
+            candidate = null;
+            CacheNode victim = probation.head;
+            if (victim == admitted) {
+                victim = admitted.next;
+            }
+            if (victim == null) {
+                victim = protectedList.head;
+            }
+            if (admitted == null || admitted.list != probation) {
+                return victim == null ? window.head : victim;
+            }
+            if (victim == null) {
+                return admitted;
+            }
+            int candidateFrequency = sketch.frequency(hash(admitted.key));
+            int victimFrequency = sketch.frequency(hash(victim.key));
+            return candidateFrequency > victimFrequency ? victim : admitted;
+        }
+
+        @Override
+        public void clear() {
+            window = new NodeList();
+            probation = new NodeList();
+            protectedList = new NodeList();
+            candidate = null;
+            sketch.clear();
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters, estimating how often hashes
+     * have been seen lately: every counter is halved once as many
+     * increments as ten times the counters have been made, so that old
+     * uses fade.
+     */
+    private static class FrequencySketch {
+        private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L,
+            0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        /**
+         * Sixteen counters per long.
+         */
+        private final long[] table;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(int capacity) {
+            int length = 1;
+            while (length * 16 < Math.max(capacity, 16) * 4) {
+                length <<= 1;
+            }
+            table = new long[length];
+            sampleSize = length * 16 * 10;
+        }
+
+        /**
+         * Returns the counter of HASH in row I, as a long index and a shift.
+         */
+        private int counter(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h ^= h >>> 32;
+            // 4 bits of counter offset in the long, the rest picks the long.
+            return (int) h & ((table.length << 4) - 1);
+        }
+
+        int frequency(int hash) {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int c = counter(hash, i);
+                min = Math.min(min, (int) (table[c >>> 4] >>> ((c & 15) << 2)) & 15);
+            }
+            return min;
+        }
+
+        void increment(int hash) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                int c = counter(hash, i);
+                int shift = (c & 15) << 2;
+                if (((table[c >>> 4] >>> shift) & 15) != 15) {
+                    table[c >>> 4] += 1L << shift;
+                }
+            }
+            additions += 1;
+            if (additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & HALF_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        void clear() {
+            Arrays.fill(table, 0);
+            additions = 0;
+        }
+    }
+
+    private final int capacity;
+    private final Evictor<CacheNode> evictor;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a cache of at most capacity mappings, replacing them
+     * following policy.
+     *
+     * @param capacity maximum number of mappings, at least 1
+     * @param policy   replacement policy
+     */
+    public BoundedCache(int capacity, Policy policy) {
+        super();
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        switch (policy) {
+            case LRU:
+                evictor = new LruEvictor();
+                break;
+            case LFU:
+                evictor = new LfuEvictor();
+                break;
+            default:
+                evictor = new TinyLfuEvictor();
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if
+     * this cache contains no mapping for the key, counting a hit or a miss.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Node node = getNode(key);
+        if (node == null) {
+            misses += 1;
+            evictor.recordMiss(hash(key));
+            return null;
+        }
+        hits += 1;
+        evictor.recordAccess((CacheNode) node);
+        return node.value;
+    }
+
+    /**
+     * Removes all of the mappings from this cache. The counters stay.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        evictor.clear();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    @Override
+    protected Node createNode(K key, V value) {
+        return new CacheNode(key, value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void afterNodeInsertion(Node node) {
+        evictor.add((CacheNode) node);
+        while (size() > capacity) {
+            removeNode(evictor.victim());
+            evictions += 1;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void afterNodeAccess(Node node) {
+        evictor.recordAccess((CacheNode) node);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void afterNodeRemoval(Node node) {
+        evictor.remove((CacheNode) node);
+    }
+
+    @Override
+    protected boolean resizesDown() {
+        return true;
+    }
+
+    /**
+     * The policy must see every put, and evict as it goes.
+     */
+    @Override
+    protected boolean bulkLoadsDirectly() {
+        return false;
+    }
+}
@@ -0,0 +1,410 @@
+package hashmap;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A hash table-backed Map implementation which may be used by several
+ * threads at once, without any global lock.
+ * <p>
+ * The keys are striped over segments by the high bits of their hash, each
+ * segment being a small hash table of its own with its own lock. put(),
+ * remove() and clear() lock the segments they change, so writes to
+ * different segments go on in parallel. A segment grows its table on its
+ * own, under its lock, so resizing never stops the other segments.
+ * <p>
+ * get() and containsKey() take no lock at all. A bucket is a chain of
+ * nodes whose keys and links never change once published: put() links a
+ * new node in front of the chain, remove() copies the nodes before the
+ * removed one, and resizing copies every node into the new table. Readers
+ * therefore always walk a consistent chain, of the table they read before
+ * or after a write. The table is published through a volatile field and
+ * the buckets through an AtomicReferenceArray.
+ * <p>
+ * size() sums a LongAdder, updated by every insertion and removal, so
+ * that counting does not make threads fight over one counter. Iteration
+ * is weakly consistent: it never fails, and sees every mapping present
+ * during the whole iteration, but may or may not see concurrent changes.
+ * <p>
+ * Assumes null keys and values will never be inserted, and does not
+ * resize down upon remove().
+ *
+ * @author Vincent Ma
+ */
+public class ConcurrentMyHashMap<K, V> implements Map61B<K, V> {
+
+    /**
+     * A key/value pair of a bucket chain. Only the value may change once
+     * the node is in a table.
+     */
+    private static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        final Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A stripe of the map, locked by the writes to it.
+     */
+    private static class Segment<K, V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The buckets, whose number is a power of two.
+         */
+        volatile AtomicReferenceArray<Node<K, V>> table;
+
+        /**
+         * The number of mappings, only read and written under the lock.
+         */
+        int count = 0;
+
+        Segment(int tableSize) {
+            table = new AtomicReferenceArray<>(tableSize);
+        }
+    }
+
+    /* Instance Variables */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_MAX_LOADER = 0.75;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final double maxLoad;
+    private final int segmentTableSize;
+    private final Segment<K, V>[] segments;
+
+    /**
+     * The shift to bring the segment bits of a hash down.
+     */
+    private final int segmentShift;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Constructors
+     */
+    public ConcurrentMyHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
+    }
+
+    public ConcurrentMyHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOADER);
+    }
+
+    public ConcurrentMyHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * ConcurrentMyHashMap constructor that creates backing arrays of
+     * initialSize buckets in all, rounded up to a power of two per segment.
+     * The load factor (# items / # buckets) of each segment should always
+     * be <= maxLoad.
+     *
+     * @param initialSize      initial number of buckets
+     * @param maxLoad          maximum load factor
+     * @param concurrencyLevel number of segments, rounded up to a power of
+     *                         two, which is the number of threads which
+     *                         may write at once without waiting
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentMyHashMap(int initialSize, double maxLoad, int concurrencyLevel) {
+        if (maxLoad <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int segmentCount = 1;
+        int bits = 0;
+        while (segmentCount < concurrencyLevel) {
+            segmentCount <<= 1;
+            bits += 1;
+        }
+        int tableSize = 2;
+        while ((long) tableSize * segmentCount < initialSize) {
+            tableSize <<= 1;
+        }
+        this.maxLoad = maxLoad;
+        this.segmentTableSize = tableSize;
+        this.segmentShift = 32 - bits;
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] stripes = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            stripes[i] = new Segment<>(tableSize);
+        }
+        this.segments = stripes;
+    }
+
+    /**
+     * Removes all of the mappings from this map. Mappings put concurrently
+     * may or may not stay.
+     */
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                segment.table = new AtomicReferenceArray<>(segmentTableSize);
+                size.add(-segment.count);
+                segment.count = 0;
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return getNode(key) != null;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public V get(K key) {
+        Node<K, V> node = getNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size.sum()));
+    }
+
+    private Node<K, V> getNode(K key) {
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> table = segmentFor(hash).table;
+        Node<K, V> node = table.get(hash & (table.length() - 1));
+        while (node != null) {
+            if (node.hash == hash && key.equals(node.key)) {
+                return node;
+            }
+            node = node.next;
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null value");
+        }
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        segment.lock();
+        try {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            int index = hash & (table.length() - 1);
+            Node<K, V> head = table.get(index);
+            for (Node<K, V> node = head; node != null; node = node.next) {
+                if (node.hash == hash && key.equals(node.key)) {
+                    // Changed its value.
+                    node.value = value;
+                    return;
+                }
+            }
+            if ((double) (segment.count + 1) / table.length() > maxLoad) {
+                table = rehash(segment);
+                index = hash & (table.length() - 1);
+                head = table.get(index);
+            }
+            table.set(index, new Node<>(hash, key, value, head));
+            segment.count += 1;
+            size.increment();
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K k : this) {
+            set.add(k);
+        }
+        return set;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public V remove(K key) {
+        return remove(key, null, false);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     */
+    @Override
+    public V remove(K key, V value) {
+        return remove(key, value, true);
+    }
+
+    /**
+     * Removes the mapping for KEY, only if mapped to VALUE if CHECKVALUE.
+     *
+     * @return the value KEY was mapped to if removed, else null.
+     */
+    private V remove(K key, V value, boolean checkValue) {
+        int hash = hash(key);
+        Segment<K, V> segment = segmentFor(hash);
+        segment.lock();
+        try {
+            AtomicReferenceArray<Node<K, V>> table = segment.table;
+            int index = hash & (table.length() - 1);
+            Node<K, V> head = table.get(index);
+            Node<K, V> node = head;
+            while (node != null && !(node.hash == hash && key.equals(node.key))) {
+                node = node.next;
+            }
+            if (node == null || (checkValue && !node.value.equals(value))) {
+                return null;
+            }
+            // Copies the nodes before NODE onto the nodes after it.
+            Node<K, V> rest = node.next;
+            for (Node<K, V> p = head; p != node; p = p.next) {
+                rest = new Node<>(p.hash, p.key, p.value, rest);
+            }
+            table.set(index, rest);
+            segment.count -= 1;
+            size.decrement();
+            return node.value;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Doubles the table of SEGMENT, whose lock is held, and returns the
+     * new table.
+     * <p>
+     * Copies the nodes, as readers may still be walking the old chains.
+     * A node at the end of a chain going to the same new bucket as the
+     * previous ones is reused with the nodes after it, as their links stay
+     * right; with a doubled table, that is the tail of about half the
+     * chains.
+     */
+    private AtomicReferenceArray<Node<K, V>> rehash(Segment<K, V> segment) {
+        AtomicReferenceArray<Node<K, V>> oldTable = segment.table;
+        int oldLength = oldTable.length();
+        AtomicReferenceArray<Node<K, V>> table = new AtomicReferenceArray<>(oldLength * 2);
+        int mask = oldLength * 2 - 1;
+        for (int i = 0; i < oldLength; i++) {
+            Node<K, V> head = oldTable.get(i);
+            if (head == null) {
+                continue;
+            }
+            // Finds the last run of nodes going to the same bucket.
+            Node<K, V> lastRun = head;
+            int lastIndex = head.hash & mask;
+            for (Node<K, V> node = head.next; node != null; node = node.next) {
+                int index = node.hash & mask;
+                if (index != lastIndex) {
+                    lastIndex = index;
+                    lastRun = node;
+                }
+            }
+            table.set(lastIndex, lastRun);
+            for (Node<K, V> node = head; node != lastRun; node = node.next) {
+                int index = node.hash & mask;
+                table.set(index, new Node<>(node.hash, node.key, node.value,
+                        table.get(index)));
+            }
+        }
+        segment.table = table;
+        return table;
+    }
+
+    /**
+     * Returns the hash of key K, spread so that both its high bits, picking
+     * the segment, and its low bits, picking the bucket, depend on all bits
+     * of its hashCode.
+     */
+    private static int hash(Object k) {
+        int h = k.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        // segmentShift is 32 with a single segment, which Java takes as 0.
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KIterator();
+    }
+
+    /**
+     * Iterates over the segments in order, and over the table each of them
+     * has when the iterator gets to it.
+     */
+    private class KIterator implements Iterator<K> {
+        private int segmentIndex = 0;
+        private AtomicReferenceArray<Node<K, V>> table = segments[0].table;
+        private int bucketIndex = 0;
+        private Node<K, V> nextNode = null;
+
+        KIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public K next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            K key = nextNode.key;
+            nextNode = nextNode.next;
+            advance();
+            return key;
+        }
+
+        /**
+         * Moves nextNode to the next node, if it is at the end of a chain.
+         */
+        private void advance() {
+            while (nextNode == null) {
+                if (bucketIndex == table.length()) {
+                    segmentIndex += 1;
+                    if (segmentIndex == segments.length) {
+                        return;
+                    }
+                    table = segments[segmentIndex].table;
+                    bucketIndex = 0;
+                }
+                nextNode = table.get(bucketIndex);
+                bucketIndex += 1;
+            }
+        }
+    }
+}
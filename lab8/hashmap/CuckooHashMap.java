@@ -0,0 +1,484 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A bucketized cuckoo hash table, whose lookups look at no more than two
+ * buckets of four slots, and a small stash.
+ * <p>
+ * Each key has two candidate buckets, picked by two hash functions. Like
+ * RobinHoodHashMap, keys, values and cached hashes live in three parallel
+ * arrays, the four slots of a bucket being consecutive. A key is inserted
+ * in a free slot of either bucket; if both are full, it takes the slot of
+ * a random key of its buckets, which moves to its other bucket, and so on.
+ * A key still homeless after MAX_PATH such displacements goes to the
+ * stash, a short array scanned after the two buckets. Once the stash holds
+ * more than MAX_STASH keys, the table doubles and every key is inserted
+ * anew, which empties the stash.
+ * <p>
+ * This bounds get(), containsKey() and remove() to eight slots and
+ * MAX_STASH stashed keys however full the table is, so that it can be
+ * filled up to a load of 0.9 by default. Puts pay for it: they may
+ * displace up to MAX_PATH keys. Only many keys with equal hashCodes, which
+ * get the same two buckets, can make the stash grow further, as doubling
+ * the table would not help them.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon
+ * remove().
+ *
+ * @author Vincent Ma
+ */
+public class CuckooHashMap<K, V> implements Map61B<K, V> {
+
+    /* Instance Variables */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_MAX_LOADER = 0.9;
+
+    private static final int SLOTS_PER_BUCKET = 4;
+
+    /**
+     * The longest chain of displacements of one insertion.
+     */
+    private static final int MAX_PATH = 64;
+
+    /**
+     * The number of stashed keys beyond which the table doubles, unless it
+     * is less than half as loaded as maxLoad allows.
+     */
+    private static final int MAX_STASH = 4;
+
+    /**
+     * The hash of an empty slot. Stored hashes are never EMPTY.
+     */
+    private static final int EMPTY = 0;
+
+    private final int initialSize;
+    private final double maxLoad;
+    private int size = 0;
+
+    /**
+     * The keys, values and hashes of the slots, SLOTS_PER_BUCKET per
+     * bucket. The number of buckets is a power of two.
+     */
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+
+    /**
+     * The keys, values and hashes of the stashSize stashed keys.
+     */
+    private Object[] stashKeys;
+    private Object[] stashValues;
+    private int[] stashHashes;
+    private int stashSize;
+
+    /**
+     * State of the xorshift generator picking the keys to displace.
+     */
+    private int seed = 0x2545F491;
+
+    /**
+     * Constructors
+     */
+    public CuckooHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
+    }
+
+    public CuckooHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOADER);
+    }
+
+    /**
+     * CuckooHashMap constructor that creates backing arrays of at least
+     * initialSize slots, rounded up to a power of two of at least one
+     * bucket. The load factor (# items / # slots) should always be
+     * <= maxLoad, which must be below 1.
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor
+     */
+    public CuckooHashMap(int initialSize, double maxLoad) {
+        if (maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException("maxLoad must be in (0, 1)");
+        }
+        this.initialSize = tableSizeFor(initialSize);
+        this.maxLoad = maxLoad;
+        createTable(this.initialSize);
+    }
+
+    /**
+     * Returns the smallest power of two no less than N, and at least
+     * SLOTS_PER_BUCKET.
+     */
+    private static int tableSizeFor(int n) {
+        int size = SLOTS_PER_BUCKET;
+        while (size < n) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private void createTable(int tableSize) {
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        stashKeys = new Object[MAX_STASH];
+        stashValues = new Object[MAX_STASH];
+        stashHashes = new int[MAX_STASH];
+        stashSize = 0;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        createTable(initialSize);
+        size = 0;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        int hash = hash(key);
+        return findSlot(key, hash) >= 0 || findStashed(key, hash) >= 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        int i = findStashed(key, hash);
+        return i < 0 ? null : (V) stashValues[i];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            // Changed its value.
+            values[slot] = value;
+            return;
+        }
+        int i = findStashed(key, hash);
+        if (i >= 0) {
+            stashValues[i] = value;
+            return;
+        }
+        if (willBeOverLoaded()) {
+            resize(hashes.length * 2);
+        }
+        insert(hash, key, value);
+        size += 1;
+        while (stashSize > MAX_STASH && size >= hashes.length * maxLoad / 2) {
+            resize(hashes.length * 2);
+        }
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K k : this) {
+            set.add(k);
+        }
+        return set;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            V val = (V) values[slot];
+            removeSlot(slot);
+            return val;
+        }
+        int i = findStashed(key, hash);
+        if (i < 0) {
+            return null;
+        }
+        V val = (V) stashValues[i];
+        removeStashed(i);
+        return val;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     */
+    @Override
+    public V remove(K key, V value) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            if (!Objects.equals(value, values[slot])) {
+                return null;
+            }
+            removeSlot(slot);
+            return value;
+        }
+        int i = findStashed(key, hash);
+        if (i < 0 || !Objects.equals(value, stashValues[i])) {
+            return null;
+        }
+        removeStashed(i);
+        return value;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KIterator();
+    }
+
+    /**
+     * Returns the hash of key K, spread so that the low bits used to pick
+     * a bucket depend on all bits of its hashCode, and never EMPTY.
+     */
+    private static int hash(Object k) {
+        int h = k.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h == EMPTY ? 1 : h;
+    }
+
+    /**
+     * Returns the first slot of the first bucket of a key with HASH.
+     */
+    private int firstBucket(int hash) {
+        return hash & (hashes.length - SLOTS_PER_BUCKET);
+    }
+
+    /**
+     * Returns the first slot of the second bucket of a key with HASH,
+     * picked by hashing HASH again.
+     */
+    private int secondBucket(int hash) {
+        int h = hash * 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & (hashes.length - SLOTS_PER_BUCKET);
+    }
+
+    /**
+     * Returns the slot of KEY with HASH, or -1 if it is not in a bucket.
+     */
+    private int findSlot(K key, int hash) {
+        int bucket = firstBucket(hash);
+        for (int slot = bucket; slot < bucket + SLOTS_PER_BUCKET; slot++) {
+            if (hashes[slot] == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+        }
+        bucket = secondBucket(hash);
+        for (int slot = bucket; slot < bucket + SLOTS_PER_BUCKET; slot++) {
+            if (hashes[slot] == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of KEY with HASH in the stash, or -1 if it is not
+     * stashed.
+     */
+    private int findStashed(K key, int hash) {
+        for (int i = 0; i < stashSize; i++) {
+            if (stashHashes[i] == hash && key.equals(stashKeys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a free slot of the bucket starting at BUCKET, or -1 if it is
+     * full.
+     */
+    private int freeSlot(int bucket) {
+        for (int slot = bucket; slot < bucket + SLOTS_PER_BUCKET; slot++) {
+            if (hashes[slot] == EMPTY) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts KEY, which is not in this map, with HASH and VALUE, in one of
+     * its buckets, displacing other keys to their other bucket if need be,
+     * or else in the stash.
+     */
+    private void insert(int hash, Object key, Object value) {
+        for (int path = 0; path < MAX_PATH; path++) {
+            int first = firstBucket(hash);
+            int second = secondBucket(hash);
+            int slot = freeSlot(first);
+            if (slot < 0) {
+                slot = freeSlot(second);
+            }
+            if (slot >= 0) {
+                hashes[slot] = hash;
+                keys[slot] = key;
+                values[slot] = value;
+                return;
+            }
+            // Takes the slot of a random key of its buckets, and carries on
+            // with that key.
+            int r = nextRandom();
+            slot = ((r & SLOTS_PER_BUCKET) == 0 ? first : second) + (r & (SLOTS_PER_BUCKET - 1));
+            int h = hashes[slot];
+            Object k = keys[slot];
+            Object v = values[slot];
+            hashes[slot] = hash;
+            keys[slot] = key;
+            values[slot] = value;
+            hash = h;
+            key = k;
+            value = v;
+        }
+        stash(hash, key, value);
+    }
+
+    private int nextRandom() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private void stash(int hash, Object key, Object value) {
+        if (stashSize == stashHashes.length) {
+            stashKeys = Arrays.copyOf(stashKeys, stashSize * 2);
+            stashValues = Arrays.copyOf(stashValues, stashSize * 2);
+            stashHashes = Arrays.copyOf(stashHashes, stashSize * 2);
+        }
+        stashHashes[stashSize] = hash;
+        stashKeys[stashSize] = key;
+        stashValues[stashSize] = value;
+        stashSize += 1;
+    }
+
+    /**
+     * Empties SLOT, and moves into it a stashed key of its bucket, if any.
+     */
+    private void removeSlot(int slot) {
+        hashes[slot] = EMPTY;
+        keys[slot] = null;
+        values[slot] = null;
+        size -= 1;
+        int bucket = slot & -SLOTS_PER_BUCKET;
+        for (int i = 0; i < stashSize; i++) {
+            int h = stashHashes[i];
+            if (firstBucket(h) == bucket || secondBucket(h) == bucket) {
+                hashes[slot] = h;
+                keys[slot] = stashKeys[i];
+                values[slot] = stashValues[i];
+                size += 1;
+                removeStashed(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the stashed key at I, moving the last stashed key there.
+     */
+    private void removeStashed(int i) {
+        stashSize -= 1;
+        stashHashes[i] = stashHashes[stashSize];
+        stashKeys[i] = stashKeys[stashSize];
+        stashValues[i] = stashValues[stashSize];
+        stashKeys[stashSize] = null;
+        stashValues[stashSize] = null;
+        size -= 1;
+    }
+
+    /**
+     * Resize current table from size to toSize.
+     *
+     * @param toSize Table's size after resizing.
+     */
+    private void resize(int toSize) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        Object[] oldStashKeys = stashKeys;
+        Object[] oldStashValues = stashValues;
+        int[] oldStashHashes = stashHashes;
+        int oldStashSize = stashSize;
+        createTable(toSize);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+        for (int i = 0; i < oldStashSize; i++) {
+            insert(oldStashHashes[i], oldStashKeys[i], oldStashValues[i]);
+        }
+    }
+
+    /**
+     * Checks if the table is overloaded if adding a key.
+     */
+    private boolean willBeOverLoaded() {
+        return (double) (size + 1) / hashes.length > maxLoad;
+    }
+
+    private class KIterator implements Iterator<K> {
+        /**
+         * The next slot to look at, the stash following the buckets.
+         */
+        private int slot = 0;
+        private int cnt = 0;
+
+        @Override
+        public boolean hasNext() {
+            return cnt < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (slot < hashes.length && hashes[slot] == EMPTY) {
+                slot += 1;
+            }
+            cnt += 1;
+            if (slot < hashes.length) {
+                return (K) keys[slot++];
+            }
+            return (K) stashKeys[slot++ - hashes.length];
+        }
+    }
+}
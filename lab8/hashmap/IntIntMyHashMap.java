@@ -0,0 +1,327 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A hash map from int keys to int values, which stores them unboxed in two
+ * parallel arrays with linear probing. Its primitive methods, put(int, int),
+ * get(int), containsKey(int) and remove(int), allocate nothing; the
+ * Map61B methods taking and returning Integers are there so that it can
+ * be used as any other Map61B, at the cost of boxing.
+ * <p>
+ * Key 0 marks empty slots, so a mapping for key 0 is kept aside. Removal
+ * shifts the following keys back instead of leaving a tombstone. Does not
+ * resize down upon remove().
+ *
+ * @author Vincent Ma
+ */
+public class IntIntMyHashMap implements Map61B<Integer, Integer> {
+
+    /* Instance Variables */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_MAX_LOADER = 0.75;
+
+    private final int initialSize;
+    private final double maxLoad;
+    private int size = 0;
+
+    /**
+     * The keys and values of the slots, 0 keys marking empty slots.
+     * Their length is a power of two.
+     */
+    private int[] keys;
+    private int[] values;
+
+    /**
+     * If key 0 is mapped, and to which value.
+     */
+    private boolean hasZeroKey = false;
+    private int zeroValue;
+
+    /**
+     * The value returned by get(int) and remove(int) for a missing key.
+     */
+    private int noEntryValue = 0;
+
+    /**
+     * Constructors
+     */
+    public IntIntMyHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
+    }
+
+    public IntIntMyHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOADER);
+    }
+
+    /**
+     * IntIntMyHashMap constructor that creates backing arrays of at least
+     * initialSize slots, rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= maxLoad,
+     * which must be below 1.
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor
+     */
+    public IntIntMyHashMap(int initialSize, double maxLoad) {
+        if (maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException("maxLoad must be in (0, 1)");
+        }
+        int tableSize = 2;
+        while (tableSize < initialSize) {
+            tableSize <<= 1;
+        }
+        this.initialSize = tableSize;
+        this.maxLoad = maxLoad;
+        keys = new int[tableSize];
+        values = new int[tableSize];
+    }
+
+    /**
+     * Sets the value returned by get(int) and remove(int) for a missing
+     * key, 0 by default.
+     */
+    public void setNoEntryValue(int noEntryValue) {
+        this.noEntryValue = noEntryValue;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        keys = new int[initialSize];
+        values = new int[initialSize];
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for KEY.
+     */
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns the value to which KEY is mapped, or the no entry value if
+     * this map contains no mapping for KEY.
+     */
+    public int get(int key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : noEntryValue;
+        }
+        int slot = findSlot(key);
+        return slot < 0 ? noEntryValue : values[slot];
+    }
+
+    /**
+     * Associates VALUE with KEY in this map, replacing the old value if
+     * any.
+     */
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size += 1;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size += 1;
+        if ((double) size / keys.length > maxLoad) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the mapping for KEY from this map if present.
+     *
+     * @return The value KEY was mapped to, or the no entry value.
+     */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            size -= 1;
+            return zeroValue;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        int val = values[slot];
+        removeSlot(slot);
+        return val;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /* Boxed Map61B methods */
+
+    @Override
+    public boolean containsKey(Integer key) {
+        return containsKey(key.intValue());
+    }
+
+    @Override
+    public Integer get(Integer key) {
+        return containsKey(key.intValue()) ? get(key.intValue()) : null;
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+        put(key.intValue(), value.intValue());
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        Set<Integer> set = new HashSet<>();
+        for (Integer k : this) {
+            set.add(k);
+        }
+        return set;
+    }
+
+    @Override
+    public Integer remove(Integer key) {
+        return containsKey(key.intValue()) ? remove(key.intValue()) : null;
+    }
+
+    @Override
+    public Integer remove(Integer key, Integer value) {
+        if (value == null || !containsKey(key.intValue())
+                || get(key.intValue()) != value.intValue()) {
+            return null;
+        }
+        return remove(key.intValue());
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new KIterator();
+    }
+
+    /**
+     * Returns the hash of KEY, spread so that the low bits used to pick a
+     * slot depend on all its bits.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot of non-zero KEY, or -1 if it is not in this map.
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties SLOT, moving back the keys after it which could not be
+     * found anymore.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            int key = keys[next];
+            if (key == 0) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // Moves KEY to SLOT unless its home is cyclically in (slot, next].
+            boolean stays = slot <= next
+                    ? slot < home && home <= next
+                    : slot < home || home <= next;
+            if (!stays) {
+                keys[slot] = key;
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = 0;
+        size -= 1;
+    }
+
+    /**
+     * Resize current table from size to toSize.
+     *
+     * @param toSize Table's size after resizing.
+     */
+    private void resize(int toSize) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[toSize];
+        values = new int[toSize];
+        int mask = toSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private class KIterator implements Iterator<Integer> {
+        private int slot = -1;
+        private int cnt = 0;
+
+        @Override
+        public boolean hasNext() {
+            return cnt < size;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            cnt += 1;
+            if (slot < 0) {
+                slot = 0;
+                if (hasZeroKey) {
+                    return 0;
+                }
+            }
+            while (keys[slot] == 0) {
+                slot += 1;
+            }
+            return keys[slot++];
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A hash map from long keys to object values, which stores the keys unboxed
+ * in an array parallel to the values, with linear probing. Its methods
+ * taking a long key, put(long, V), get(long), containsKey(long) and
+ * remove(long), allocate nothing; the Map61B methods taking Long keys are
+ * there so that it can be used as any other Map61B, at the cost of boxing.
+ * <p>
+ * Key 0 marks empty slots, so a mapping for key 0 is kept aside. Removal
+ * shifts the following keys back instead of leaving a tombstone. Does not
+ * resize down upon remove().
+ *
+ * @author Vincent Ma
+ */
+public class LongObjectMyHashMap<V> implements Map61B<Long, V> {
+
+    /* Instance Variables */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_MAX_LOADER = 0.75;
+
+    private final int initialSize;
+    private final double maxLoad;
+    private int size = 0;
+
+    /**
+     * The keys and values of the slots, 0 keys marking empty slots.
+     * Their length is a power of two.
+     */
+    private long[] keys;
+    private Object[] values;
+
+    /**
+     * If key 0 is mapped, and to which value.
+     */
+    private boolean hasZeroKey = false;
+    private V zeroValue;
+
+    /**
+     * Constructors
+     */
+    public LongObjectMyHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
+    }
+
+    public LongObjectMyHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOADER);
+    }
+
+    /**
+     * LongObjectMyHashMap constructor that creates backing arrays of at
+     * least initialSize slots, rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= maxLoad,
+     * which must be below 1.
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor
+     */
+    public LongObjectMyHashMap(int initialSize, double maxLoad) {
+        if (maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException("maxLoad must be in (0, 1)");
+        }
+        int tableSize = 2;
+        while (tableSize < initialSize) {
+            tableSize <<= 1;
+        }
+        this.initialSize = tableSize;
+        this.maxLoad = maxLoad;
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        keys = new long[initialSize];
+        values = new Object[initialSize];
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for KEY.
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? hasZeroKey : findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns the value to which KEY is mapped, or null if this map
+     * contains no mapping for KEY.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Associates VALUE with KEY in this map, replacing the old value if
+     * any.
+     */
+    public void put(long key, V value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size += 1;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size += 1;
+        if ((double) size / keys.length > maxLoad) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the mapping for KEY from this map if present.
+     *
+     * @return The value KEY was mapped to, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            V val = zeroValue;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size -= 1;
+            }
+            return val;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V val = (V) values[slot];
+        removeSlot(slot);
+        return val;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /* Boxed Map61B methods */
+
+    @Override
+    public boolean containsKey(Long key) {
+        return containsKey(key.longValue());
+    }
+
+    @Override
+    public V get(Long key) {
+        return get(key.longValue());
+    }
+
+    @Override
+    public void put(Long key, V value) {
+        put(key.longValue(), value);
+    }
+
+    @Override
+    public Set<Long> keySet() {
+        Set<Long> set = new HashSet<>();
+        for (Long k : this) {
+            set.add(k);
+        }
+        return set;
+    }
+
+    @Override
+    public V remove(Long key) {
+        return remove(key.longValue());
+    }
+
+    @Override
+    public V remove(Long key, V value) {
+        if (!containsKey(key.longValue())
+                || !Objects.equals(value, get(key.longValue()))) {
+            return null;
+        }
+        return remove(key.longValue());
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new KIterator();
+    }
+
+    /**
+     * Returns the hash of KEY, spread so that the low bits used to pick a
+     * slot depend on all its bits.
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32));
+        return i ^ (i >>> 16);
+    }
+
+    /**
+     * Returns the slot of non-zero KEY, or -1 if it is not in this map.
+     */
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Empties SLOT, moving back the keys after it which could not be
+     * found anymore.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long key = keys[next];
+            if (key == 0) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // Moves KEY to SLOT unless its home is cyclically in (slot, next].
+            boolean stays = slot <= next
+                    ? slot < home && home <= next
+                    : slot < home || home <= next;
+            if (!stays) {
+                keys[slot] = key;
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = 0;
+        values[slot] = null;
+        size -= 1;
+    }
+
+    /**
+     * Resize current table from size to toSize.
+     *
+     * @param toSize Table's size after resizing.
+     */
+    private void resize(int toSize) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[toSize];
+        values = new Object[toSize];
+        int mask = toSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private class KIterator implements Iterator<Long> {
+        private int slot = -1;
+        private int cnt = 0;
+
+        @Override
+        public boolean hasNext() {
+            return cnt < size;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            cnt += 1;
+            if (slot < 0) {
+                slot = 0;
+                if (hasZeroKey) {
+                    return 0L;
+                }
+            }
+            while (keys[slot] == 0) {
+                slot += 1;
+            }
+            return keys[slot++];
+        }
+    }
+}
@@ -1,13 +1,33 @@
 package hashmap;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A hash table-backed Map implementation. Provides amortized constant time
  * access to elements via get(), remove(), and put() in the best case.
  * <p>
  * Assumes null keys will never be inserted, and does not resize down upon
- * remove().
+ * remove() unless a subclass's resizesDown() says so.
+ * <p>
+ * putAll() and bulkLoad() grow the table once for all the mappings they
+ * add, and insert large batches in parallel: the keys are sorted by range
+ * of buckets, and each range filled by its own task on the common
+ * fork-join pool, so that no two tasks touch the same bucket.
+ * <p>
+ * Subclasses may keep more per mapping by overriding createNode() with
+ * their own kind of Node, and follow the mappings through the hooks
+ * afterNodeInsertion(), afterNodeAccess() and afterNodeRemoval().
+ * <p>
+ * In incremental resize mode, growing the table does not rehash every node
+ * at once. The old table is kept next to the new one, and each get(),
+ * containsKey(), put() and remove() then migrates a few old buckets, in
+ * order, until the old table is empty. A key lives in the old table as
+ * long as its old bucket has not been migrated, so an operation looks in
+ * the old table or in the new one depending on where its key's old bucket
+ * is. Buckets of the new table are created as the old buckets are
+ * migrated, so no operation pays more than a few buckets' worth of work.
  *
  * @author Vincent Ma
  */
@@ -27,29 +47,276 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         }
     }
 
+    /**
+     * An entry of entrySet(), writing through to its node. Nodes keep the
+     * equals() and hashCode() of Object, as buckets such as HashSets must
+     * not see them change with their values, so entrySet() wraps each one
+     * in an Entry comparing by key and value, as Map.Entry specifies.
+     */
+    private class Entry implements Map.Entry<K, V> {
+        private final Node node;
+
+        Entry(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public K getKey() {
+            return node.key;
+        }
+
+        @Override
+        public V getValue() {
+            return node.value;
+        }
+
+        @Override
+        public V setValue(V v) {
+            V old = node.value;
+            node.value = v;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(node.key, entry.getKey())
+                    && Objects.equals(node.value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(node.key) ^ Objects.hashCode(node.value);
+        }
+
+        @Override
+        public String toString() {
+            return node.key + "=" + node.value;
+        }
+    }
+
+    /**
+     * A bucket which keeps its nodes in a list while it is small, and in a
+     * red-black tree once it holds more than TREEIFY_THRESHOLD nodes, so
+     * that keys colliding in one bucket cost O(log n) instead of O(n).
+     * MyHashMap looks a key up in it through find().
+     * <p>
+     * The tree orders keys by their mixed hash, then by class name, then by
+     * compareTo if they are Comparable. Distinct keys which still
+     * compare equal, having the same hash and no order, are kept aside in
+     * a list of ties, so that adversarial keys of one class with equal
+     * hashCodes and no order fall back to a linear scan, which nothing
+     * can avoid without an order.
+     */
+    protected class TreeBucket extends AbstractCollection<Node> {
+        private static final int TREEIFY_THRESHOLD = 8;
+        private static final int UNTREEIFY_THRESHOLD = 6;
+
+        /**
+         * The nodes while not treeified, else null.
+         */
+        private List<Node> list = new ArrayList<>(0);
+
+        /**
+         * Casts keys to their nodes, and the nodes whose keys compare equal
+         * to one of the tree but are not, while treeified.
+         */
+        private TreeMap<K, Node> tree;
+        private List<Node> ties;
+
+        /**
+         * Returns the node of key K, or null if it is not in this bucket.
+         */
+        Node find(K k) {
+            if (tree == null) {
+                for (Node node : list) {
+                    if (k.equals(node.key)) {
+                        return node;
+                    }
+                }
+                return null;
+            }
+            Node node = tree.get(k);
+            if (node != null && k.equals(node.key)) {
+                return node;
+            }
+            for (Node tie : ties) {
+                if (k.equals(tie.key)) {
+                    return tie;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean add(Node node) {
+            if (tree != null) {
+                treeAdd(node);
+                return true;
+            }
+            list.add(node);
+            if (list.size() > TREEIFY_THRESHOLD) {
+                tree = new TreeMap<>(this::compareKeys);
+                ties = new ArrayList<>(0);
+                for (Node n : list) {
+                    treeAdd(n);
+                }
+                list = null;
+            }
+            return true;
+        }
+
+        private void treeAdd(Node node) {
+            Node old = tree.putIfAbsent(node.key, node);
+            if (old != null) {
+                ties.add(node);
+            }
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (tree == null) {
+                return list.remove(o);
+            }
+            Object k = ((MyHashMap<?, ?>.Node) o).key;
+            if (tree.get(k) == o) {
+                // Its ties, if any, stay in ties, where find() looks too.
+                tree.remove(k);
+            } else if (!ties.remove(o)) {
+                return false;
+            }
+            if (size() < UNTREEIFY_THRESHOLD) {
+                list = new ArrayList<>(tree.values());
+                list.addAll(ties);
+                tree = null;
+                ties = null;
+            }
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return tree == null ? list.size() : tree.size() + ties.size();
+        }
+
+        /**
+         * Returns an iterator over the tree, then the ties, or over the
+         * list. Its remove() does not turn the bucket back into a list.
+         */
+        @Override
+        public Iterator<Node> iterator() {
+            if (tree == null) {
+                return list.iterator();
+            }
+            Iterator<Node> treeIterator = tree.values().iterator();
+            Iterator<Node> tiesIterator = ties.iterator();
+            return new Iterator<Node>() {
+                private Iterator<Node> last;
+
+                @Override
+                public boolean hasNext() {
+                    return treeIterator.hasNext() || tiesIterator.hasNext();
+                }
+
+                @Override
+                public Node next() {
+                    last = treeIterator.hasNext() ? treeIterator : tiesIterator;
+                    return last.next();
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    last.remove();
+                    last = null;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compareKeys(K a, K b) {
+            int cmp = Integer.compare(hash(a), hash(b));
+            if (cmp != 0) {
+                return cmp;
+            }
+            if (a.getClass() != b.getClass()) {
+                return a.getClass().getName().compareTo(b.getClass().getName());
+            }
+            return a instanceof Comparable ? ((Comparable<Object>) a).compareTo(b) : 0;
+        }
+    }
+
     /* Instance Variables */
     private static final int DEFAULT_INITIAL_CAPACITY = 16;
     private static final double DEFAULT_MAX_LOADER = 0.75;
 
+    /**
+     * The number of keys from which putAll() and bulkLoad() insert in
+     * parallel, and the number of bucket ranges per thread they split the
+     * table into, so that threads finishing early can take more.
+     */
+    private static final int PARALLEL_LOAD_THRESHOLD = 1 << 14;
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * The largest table ensureCapacity() grows to.
+     */
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
     private final int initialSize;
     private int size = 0;
     private final double maxLoad;
     private Collection<Node>[] buckets;
 
+    /**
+     * If the table is resized incrementally.
+     */
+    private final boolean incrementalResize;
+
+    /**
+     * The number of old buckets migrated per operation while incrementally
+     * resizing. Doubling at load maxLoad leaves at least maxLoad * old
+     * length puts before the next resize, so this must exceed 1 / maxLoad
+     * for the migration to end in time on puts alone.
+     */
+    private final int migrationStep;
+
+    /**
+     * The table being migrated into buckets, or null if none is.
+     * Its buckets below migrateIndex have been migrated and are null, as
+     * are the buckets of the new table which none of the migrated old
+     * buckets map to.
+     */
+    private Collection<Node>[] oldBuckets;
+    private int migrateIndex;
+
+    /**
+     * The number of insertions and removals so far, for iterators to fail
+     * fast when the map changes under them.
+     */
+    private int modCount = 0;
+
+    /**
+     * The views of the map, created on first use.
+     */
+    private KeySet keySet;
+    private Values values;
+    private EntrySet entrySet;
+
     /**
      * Constructors
      */
     public MyHashMap() {
-        this.initialSize = DEFAULT_INITIAL_CAPACITY;
-        this.maxLoad = DEFAULT_MAX_LOADER;
-        buckets = createTable(DEFAULT_INITIAL_CAPACITY);
-
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
     }
 
     public MyHashMap(int initialSize) {
-        this.initialSize = initialSize;
-        this.maxLoad = DEFAULT_MAX_LOADER;
-        buckets = createTable(initialSize);
+        this(initialSize, DEFAULT_MAX_LOADER);
     }
 
     /**
@@ -60,18 +327,64 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * @param maxLoad     maximum load factor
      */
     public MyHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, false);
+    }
+
+    /**
+     * MyHashMap constructor that creates a backing array of initialSize,
+     * resized incrementally if incrementalResize.
+     *
+     * @param initialSize       initial size of backing array
+     * @param maxLoad           maximum load factor
+     * @param incrementalResize if resizing migrates a few buckets per
+     *                          operation instead of all of them at once
+     */
+    public MyHashMap(int initialSize, double maxLoad, boolean incrementalResize) {
         this.initialSize = initialSize;
         this.maxLoad = maxLoad;
+        this.incrementalResize = incrementalResize;
+        this.migrationStep = (int) Math.ceil(1 / maxLoad) + 1;
         buckets = createTable(initialSize);
     }
 
     /**
      * Returns a new node to be placed in a hash table bucket
+     * <p>
+     * Override this method to keep more per mapping in a subclass of Node.
      */
-    private Node createNode(K key, V value) {
+    protected Node createNode(K key, V value) {
         return new Node(key, value);
     }
 
+    /**
+     * Called by put() once it has added NODE to the map.
+     */
+    protected void afterNodeInsertion(Node node) {
+    }
+
+    /**
+     * Called by put() once it has changed the value of NODE.
+     */
+    protected void afterNodeAccess(Node node) {
+    }
+
+    /**
+     * Called once NODE has been removed from the map, other than by
+     * clear().
+     */
+    protected void afterNodeRemoval(Node node) {
+    }
+
+    /**
+     * Returns true if the table should halve once a removal leaves it a
+     * quarter as loaded as maxLoad allows, down to its initial size.
+     * <p>
+     * Override this method to have the table shrink.
+     */
+    protected boolean resizesDown() {
+        return false;
+    }
+
     /**
      * Returns a data structure to be a hash table bucket
      * <p>
@@ -107,20 +420,30 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * @param tableSize the size of the table to create
      */
     private Collection<Node>[] createTable(int tableSize) {
-        Collection<Node>[] table = new Collection[tableSize];
+        Collection<Node>[] table = newTable(tableSize);
         for (int i = 0; i < table.length; i++) {
             table[i] = createBucket();
         }
         return table;
     }
 
+    /**
+     * Returns a table of TABLE SIZE null buckets.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Collection<Node>[] newTable(int tableSize) {
+        return (Collection<Node>[]) new Collection[tableSize];
+    }
+
     /**
      * Removes all of the mappings from this map.
      */
     @Override
     public void clear() {
         buckets = createTable(initialSize);
+        oldBuckets = null;
         size = 0;
+        modCount += 1;
     }
 
     /**
@@ -149,9 +472,22 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         return size;
     }
 
-    private Node getNode(K k) {
-        int index = getIndex(k);
-        for (Node node : buckets[index]) {
+    /**
+     * Returns the node of key K, or null if it is not in this map.
+     */
+    protected Node getNode(K k) {
+        migrate(migrationStep);
+        return findNode(getBucket(k), k);
+    }
+
+    /**
+     * Returns the node of key K in BUCKET, or null if there is none.
+     */
+    private Node findNode(Collection<Node> bucket, K k) {
+        if (bucket instanceof TreeBucket) {
+            return ((TreeBucket) bucket).find(k);
+        }
+        for (Node node : bucket) {
             if (k.equals(node.key)) {
                 return node;
             }
@@ -172,24 +508,236 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             if (willBeOverLoaded()) {
                 resize(buckets.length * 2);
             }
-            buckets[getIndex(key)].add(createNode(key, value));
+            node = createNode(key, value);
+            getBucket(key).add(node);
             size += 1;
+            modCount += 1;
+            afterNodeInsertion(node);
         } else {
             // Changed its value.
             node.value = value;
+            afterNodeAccess(node);
         }
     }
 
     /**
-     * Returns a Set view of the keys contained in this map.
+     * Copies all of the mappings of MAP into this map, as put() would,
+     * growing the table once for them all.
+     */
+    public void putAll(Map61B<? extends K, ? extends V> map) {
+        if (map != this) {
+            putAllFrom(map);
+        }
+    }
+
+    private <L extends K> void putAllFrom(Map61B<L, ? extends V> map) {
+        Object[] keys = new Object[map.size()];
+        Object[] vals = new Object[keys.length];
+        int n = 0;
+        if (map instanceof MyHashMap) {
+            // Reads the nodes, without looking each key up again, which
+            // would count as a use in a BoundedCache.
+            for (Map.Entry<?, ?> entry : ((MyHashMap<?, ?>) map).entrySet()) {
+                keys[n] = entry.getKey();
+                vals[n] = entry.getValue();
+                n += 1;
+            }
+        } else {
+            for (L k : map) {
+                keys[n] = k;
+                vals[n] = map.get(k);
+                n += 1;
+            }
+        }
+        load(keys, vals, n);
+    }
+
+    /**
+     * Associates VALUES[i] with KEYS[i] for every i, as put() would in
+     * order, so that the last value of a repeated key wins. The table
+     * grows once, to hold as many mappings as this map and KEYS together,
+     * and at least PARALLEL_LOAD_THRESHOLD keys are inserted in parallel.
+     */
+    public void bulkLoad(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys and values differ in length");
+        }
+        load(keys, values, keys.length);
+    }
+
+    /**
+     * Returns true if putAll() and bulkLoad() may grow the table ahead of
+     * time and insert nodes in parallel, bypassing put() and the hooks.
+     * <p>
+     * Override this method to return false if the hooks must see every
+     * put, in order: putAll() and bulkLoad() then call put() for each
+     * mapping.
+     */
+    protected boolean bulkLoadsDirectly() {
+        return true;
+    }
+
+    /**
+     * Puts the first N of KEYS with their VALUES.
+     */
+    @SuppressWarnings("unchecked")
+    private void load(Object[] keys, Object[] values, int n) {
+        if (bulkLoadsDirectly()) {
+            ensureCapacity((long) size + n);
+            if (n >= PARALLEL_LOAD_THRESHOLD) {
+                loadInParallel(keys, values, n);
+                return;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            put((K) keys[i], (V) values[i]);
+        }
+    }
+
+    /**
+     * Grows the table, at once, to hold EXPECTED mappings within maxLoad.
+     */
+    private void ensureCapacity(long expected) {
+        int toSize = buckets.length;
+        while (expected > toSize * maxLoad && toSize <= MAX_TABLE_SIZE / 2) {
+            toSize *= 2;
+        }
+        if (toSize > buckets.length) {
+            resize(toSize);
+        }
+    }
+
+    /**
+     * Puts the first N of KEYS with their VALUES, on the common fork-join
+     * pool, into a table large enough for them.
+     */
+    @SuppressWarnings("unchecked")
+    private void loadInParallel(Object[] keys, Object[] values, int n) {
+        // Every key must have its bucket in the table itself.
+        migrate(Integer.MAX_VALUE);
+        int length = buckets.length;
+        int[] indexes = new int[n];
+        Arrays.parallelSetAll(indexes, i -> getIndex((K) keys[i], length));
+
+        // Sorts the keys by range of buckets, keeping their order within a
+        // range: those of range r are order[starts[r]] to order[starts[r + 1] - 1].
+        int ranges = Math.min(length, ForkJoinPool.getCommonPoolParallelism() * RANGES_PER_THREAD);
+        int[] starts = new int[ranges + 1];
+        for (int i = 0; i < n; i++) {
+            starts[rangeOf(indexes[i], ranges, length) + 1] += 1;
+        }
+        for (int r = 0; r < ranges; r++) {
+            starts[r + 1] += starts[r];
+        }
+        int[] order = new int[n];
+        int[] next = Arrays.copyOf(starts, ranges);
+        for (int i = 0; i < n; i++) {
+            int r = rangeOf(indexes[i], ranges, length);
+            order[next[r]] = i;
+            next[r] += 1;
+        }
+
+        LoadTask task = new LoadTask(keys, values, indexes, order, starts, 0, ranges);
+        size += ForkJoinPool.commonPool().invoke(task);
+        modCount += 1;
+    }
+
+    /**
+     * Returns which of RANGES equal ranges of a table of LENGTH buckets
+     * holds bucket INDEX.
+     */
+    private static int rangeOf(int index, int ranges, int length) {
+        return (int) ((long) index * ranges / length);
+    }
+
+    /**
+     * Inserts the keys of ranges lo to hi - 1 into their buckets, and
+     * returns how many of them were not in the map.
+     */
+    private class LoadTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] keys;
+        private final Object[] values;
+        private final int[] indexes;
+        private final int[] order;
+        private final int[] starts;
+        private final int lo;
+        private final int hi;
+
+        LoadTask(Object[] keys, Object[] values, int[] indexes, int[] order,
+                 int[] starts, int lo, int hi) {
+            this.keys = keys;
+            this.values = values;
+            this.indexes = indexes;
+            this.order = order;
+            this.starts = starts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Integer compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                LoadTask left = new LoadTask(keys, values, indexes, order, starts, lo, mid);
+                left.fork();
+                int added = new LoadTask(keys, values, indexes, order, starts, mid, hi).compute();
+                return added + left.join();
+            }
+            int added = 0;
+            for (int j = starts[lo]; j < starts[hi]; j++) {
+                int i = order[j];
+                K key = (K) keys[i];
+                Collection<Node> bucket = buckets[indexes[i]];
+                Node node = findNode(bucket, key);
+                if (node == null) {
+                    bucket.add(createNode(key, (V) values[i]));
+                    added += 1;
+                } else {
+                    node.value = (V) values[i];
+                }
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map. The set is
+     * backed by the map, so changes to the map show in the set, and
+     * removing keys from the set or through its iterator removes them
+     * from the map. Its iterators fail fast.
      */
     @Override
     public Set<K> keySet() {
-        Set<K> set = new HashSet<>();
-        for (K k : this) {
-            set.add(k);
+        if (keySet == null) {
+            keySet = new KeySet();
+        }
+        return keySet;
+    }
+
+    /**
+     * Returns a Collection view of the values contained in this map,
+     * backed by the map as keySet() is.
+     */
+    public Collection<V> values() {
+        if (values == null) {
+            values = new Values();
         }
-        return set;
+        return values;
+    }
+
+    /**
+     * Returns a Set view of the mappings contained in this map, backed by
+     * the map as keySet() is. setValue() on its entries writes through to
+     * the map.
+     */
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
     }
 
     /**
@@ -203,8 +751,8 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         }
 
         V val = node.value;
-        buckets[getIndex(key)].remove(node);
-        size -= 1;
+        removeNode(node);
+        shrinkIfSparse();
         return val;
     }
 
@@ -218,17 +766,47 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             return null;
         }
 
-        buckets[getIndex(key)].remove(node);
-        size -= 1;
+        removeNode(node);
+        shrinkIfSparse();
         return value;
     }
 
+    /**
+     * Removes NODE, which is in this map, from its bucket.
+     */
+    protected void removeNode(Node node) {
+        getBucket(node.key).remove(node);
+        size -= 1;
+        modCount += 1;
+        afterNodeRemoval(node);
+    }
+
+    /**
+     * Halves the table if resizesDown() and it has become sparse enough.
+     * Not called from iterators, which would lose their place.
+     */
+    private void shrinkIfSparse() {
+        int toSize = buckets.length / 2;
+        if (resizesDown() && toSize >= initialSize
+                && size < buckets.length * maxLoad / 4) {
+            resize(toSize);
+        }
+    }
+
     /**
      * Resize current table from size to toSize.
      *
      * @param toSize Table's size after resizing.
      */
     private void resize(int toSize) {
+        // Ends the previous migration, if puts alone outran it.
+        migrate(Integer.MAX_VALUE);
+        if (incrementalResize && toSize > buckets.length) {
+            oldBuckets = buckets;
+            buckets = newTable(toSize);
+            migrateIndex = 0;
+            return;
+        }
         Collection<Node>[] table = createTable(toSize);
         NodeIterator nodeIterator = new NodeIterator();
         while (nodeIterator.hasNext()) {
@@ -239,6 +817,49 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         buckets = table;
     }
 
+    /**
+     * Migrates up to STEPS buckets of the old table, if any, into the new
+     * one, creating the buckets of the new table they map to.
+     * <p>
+     * The new table's length is a multiple of the old one's, so old bucket
+     * i maps to the new buckets i + k * old length. The old bucket itself
+     * is left untouched, only dropped from the old table, so that an
+     * iterator in the middle of it can go on.
+     */
+    private void migrate(int steps) {
+        if (oldBuckets == null) {
+            return;
+        }
+        int oldLength = oldBuckets.length;
+        int end = (int) Math.min(oldLength, (long) migrateIndex + steps);
+        for (; migrateIndex < end; migrateIndex++) {
+            for (int i = migrateIndex; i < buckets.length; i += oldLength) {
+                buckets[i] = createBucket();
+            }
+            for (Node node : oldBuckets[migrateIndex]) {
+                buckets[getIndex(node.key)].add(node);
+            }
+            oldBuckets[migrateIndex] = null;
+        }
+        if (migrateIndex == oldLength) {
+            oldBuckets = null;
+        }
+    }
+
+    /**
+     * Returns the bucket which holds key K if it is in this map: its old
+     * bucket if it has not been migrated yet, else its bucket.
+     */
+    private Collection<Node> getBucket(K k) {
+        if (oldBuckets != null) {
+            int oldIndex = getIndex(k, oldBuckets.length);
+            if (oldIndex >= migrateIndex) {
+                return oldBuckets[oldIndex];
+            }
+        }
+        return buckets[getIndex(k)];
+    }
+
     /**
      * Checks if the table is overloaded if adding node.
      */
@@ -251,7 +872,17 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
     }
 
     private int getIndex(K k, int len) {
-        return Math.floorMod(k.hashCode(), len);
+        return Math.floorMod(hash(k), len);
+    }
+
+    /**
+     * Returns the hashCode of key K with its bits mixed, so that keys whose
+     * hashCodes differ only in their high bits, or are multiples of the
+     * table size, still spread over the buckets.
+     */
+    protected static int hash(Object k) {
+        int h = k.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
     }
 
     @Override
@@ -259,11 +890,38 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         return new KIterator();
     }
 
+    /**
+     * Iterates over the nodes old bucket by old bucket: the slots are the
+     * buckets of the old table when the iterator is created, and a slot
+     * holds either its old bucket or the new buckets it was migrated to.
+     * This stays correct while get() and friends migrate buckets under it.
+     * <p>
+     * Fails fast if a key is inserted or removed other than through
+     * remove().
+     */
     private class NodeIterator implements Iterator<Node> {
 
-        private final Iterator<Collection<Node>> tableIterator = Arrays.stream(buckets).iterator();
-        private Iterator<Node> bucketIterator = tableIterator.next().iterator();
+        /**
+         * The number of slots, and the stride between the new buckets of a
+         * slot.
+         */
+        private final int slots = oldBuckets == null ? buckets.length : oldBuckets.length;
+        private int slot = 0;
+
+        /**
+         * Which of the new buckets of the slot comes next, or -1 if the old
+         * bucket of the slot is being iterated over.
+         */
+        private int next = 0;
+        private Collection<Node> bucket = Collections.emptyList();
+        private Iterator<Node> bucketIterator = bucket.iterator();
         private int cnt = 0;
+        private int expectedModCount = modCount;
+
+        /**
+         * The node returned last, unless removed since.
+         */
+        private Node lastReturned;
 
         @Override
         public boolean hasNext() {
@@ -272,19 +930,59 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
 
         @Override
         public Node next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
             cnt += 1;
-            if (bucketIterator.hasNext()) {
-                return bucketIterator.next();
-            }
-            while (true) {
-                Collection<Node> curBucket = tableIterator.next();
-                if (!curBucket.isEmpty()) {
-                    bucketIterator = curBucket.iterator();
-                    break;
-                }
+            while (!bucketIterator.hasNext()) {
+                bucket = nextBucket();
+                bucketIterator = bucket.iterator();
+            }
+            lastReturned = bucketIterator.next();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
             }
+            if (getBucket(lastReturned.key) == bucket) {
+                bucketIterator.remove();
+                size -= 1;
+                modCount += 1;
+                afterNodeRemoval(lastReturned);
+            } else {
+                // BUCKET is an old bucket migrated since, left as it was.
+                removeNode(lastReturned);
+            }
+            expectedModCount = modCount;
+            cnt -= 1;
+            lastReturned = null;
+        }
 
-            return bucketIterator.next();
+        private Collection<Node> nextBucket() {
+            if (next >= 0) {
+                if (oldBuckets != null && oldBuckets.length == slots
+                        && slot >= migrateIndex) {
+                    next = -1;
+                    return oldBuckets[slot];
+                }
+                int index = slot + next * slots;
+                if (index < buckets.length) {
+                    next += 1;
+                    return buckets[index];
+                }
+            }
+            slot += 1;
+            next = 0;
+            return Collections.emptyList();
         }
     }
 
@@ -300,5 +998,147 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         public K next() {
             return nodeIterator.next().key;
         }
+
+        @Override
+        public void remove() {
+            nodeIterator.remove();
+        }
+    }
+
+    private class VIterator implements Iterator<V> {
+        private final NodeIterator nodeIterator = new NodeIterator();
+
+        @Override
+        public boolean hasNext() {
+            return nodeIterator.hasNext();
+        }
+
+        @Override
+        public V next() {
+            return nodeIterator.next().value;
+        }
+
+        @Override
+        public void remove() {
+            nodeIterator.remove();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final NodeIterator nodeIterator = new NodeIterator();
+
+        @Override
+        public boolean hasNext() {
+            return nodeIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            return new Entry(nodeIterator.next());
+        }
+
+        @Override
+        public void remove() {
+            nodeIterator.remove();
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return o != null && getNode((K) o) != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            Node node = o == null ? null : getNode((K) o);
+            if (node == null) {
+                return false;
+            }
+            removeNode(node);
+            shrinkIfSparse();
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            MyHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new KIterator();
+        }
+    }
+
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            MyHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new VIterator();
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the node of the key of entry O if it is mapped to the
+         * value of O, else null.
+         */
+        @SuppressWarnings("unchecked")
+        private Node getNode(Object o) {
+            if (!(o instanceof Map.Entry) || ((Map.Entry<?, ?>) o).getKey() == null) {
+                return null;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            Node node = MyHashMap.this.getNode((K) entry.getKey());
+            return node != null && Objects.equals(node.value, entry.getValue()) ? node : null;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return getNode(o) != null;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            Node node = getNode(o);
+            if (node == null) {
+                return false;
+            }
+            removeNode(node);
+            shrinkIfSparse();
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            MyHashMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
     }
 }
@@ -0,0 +1,46 @@
+package hashmap;
+
+import java.util.Collection;
+
+/**
+ * Hash Table with buckets turning from lists into red-black trees when
+ * keys pile up in them
+ *
+ * @author Vincent Ma
+ */
+public class MyHashMapTreeBuckets<K, V> extends MyHashMap<K, V> {
+
+    /**
+     * Constructor that creates a backing array with default
+     * initial size and load factor
+     */
+    public MyHashMapTreeBuckets() {
+        super();
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize
+     * and default load factor
+     *
+     * @param initialSize initial size of backing array
+     */
+    public MyHashMapTreeBuckets(int initialSize) {
+        super(initialSize);
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize.
+     * The load factor (# items / # buckets) should always be <= loadFactor
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad     maximum load factor
+     */
+    public MyHashMapTreeBuckets(int initialSize, double maxLoad) {
+        super(initialSize, maxLoad);
+    }
+
+    @Override
+    protected Collection<Node> createBucket() {
+        return new TreeBucket();
+    }
+}
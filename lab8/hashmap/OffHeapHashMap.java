@@ -0,0 +1,741 @@
+package hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A hash map from Strings to byte arrays which keeps its entries outside
+ * the Java heap, in direct ByteBuffers, or in memory-mapped files so that
+ * it survives restarts. Its heap usage does not grow with its number of
+ * entries, so that the garbage collector never has to walk them.
+ * <p>
+ * The map is made of two regions of off-heap memory, each a list of slabs
+ * of the same power-of-two size addressed by a long, the first slab
+ * starting smaller while the region is small:
+ * the index, a header followed by an open-addressing table of 16-byte
+ * slots {hash, unused, record address}, with linear probing, a 0 hash
+ * marking an empty slot, and removal shifting the following slots back;
+ * and the data, an append-only log of records {key length, value length,
+ * UTF-8 key, value}, never straddling two slabs.
+ * <p>
+ * Overwriting a value of the same length writes it in place; any other
+ * put or remove leaves the old record behind as garbage. Once the index
+ * is too loaded, or garbage takes more than half of the data, both
+ * regions are rebuilt, copying only the live records.
+ * <p>
+ * Backed by a directory, the regions are the files "index" and "data"
+ * in it, mapped with FileChannel.map, and a map opened on an existing
+ * directory starts from what it holds, without reading it. Changes reach
+ * the files as the operating system writes the pages back; flush() and
+ * close() force them. A crash while rebuilding may lose the map.
+ * <p>
+ * get() returns a copy of the value; changing the array given to put()
+ * or returned by get() does not change the map. keySet() builds a Set on
+ * the heap, of all the keys.
+ *
+ * @author Vincent Ma
+ */
+public class OffHeapHashMap implements Map61B<String, byte[]>, Closeable {
+
+    /**
+     * A growable address space of slabs, in direct buffers or mapped from
+     * a file.
+     */
+    private static class Region {
+        private final FileChannel channel;
+        private final int slabShift;
+        private final int slabMask;
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+
+        /**
+         * Creates a region of slabs of 2^SLABSHIFT bytes, mapped from
+         * CHANNEL, or direct if CHANNEL is null.
+         */
+        Region(FileChannel channel, int slabShift) {
+            this.channel = channel;
+            this.slabShift = slabShift;
+            this.slabMask = (1 << slabShift) - 1;
+        }
+
+        long capacity() {
+            if (slabs.size() == 1) {
+                return slabs.get(0).capacity();
+            }
+            return (long) slabs.size() << slabShift;
+        }
+
+        /**
+         * Adds slabs until the addresses below END are all in the region.
+         * The first slab starts small and doubles up to the slab size, so
+         * that small maps stay small.
+         */
+        void ensureCapacity(long end) {
+            int slabSize = 1 << slabShift;
+            while (capacity() < end) {
+                if (slabs.isEmpty()) {
+                    slabs.add(newSlab(0, Math.min(slabSize, MIN_SLAB_SIZE)));
+                } else if (slabs.size() == 1 && slabs.get(0).capacity() < slabSize) {
+                    ByteBuffer old = slabs.get(0);
+                    ByteBuffer grown = newSlab(0, old.capacity() * 2);
+                    if (channel == null) {
+                        ByteBuffer from = old.duplicate();
+                        from.clear();
+                        grown.duplicate().put(from);
+                    }
+                    slabs.set(0, grown);
+                } else {
+                    slabs.add(newSlab(slabs.size(), slabSize));
+                }
+            }
+        }
+
+        /**
+         * Returns a slab of SIZE bytes, the INDEXth of the region.
+         */
+        private ByteBuffer newSlab(int index, int size) {
+            if (channel == null) {
+                return ByteBuffer.allocateDirect(size);
+            }
+            try {
+                return channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) index << slabShift, size);
+            } catch (IOException excp) {
+                throw new UncheckedIOException(excp);
+            }
+        }
+
+        /**
+         * Returns the address of the first of LENGTH bytes from ADDRESS on
+         * which do not straddle two slabs.
+         */
+        long fit(long address, int length) {
+            long slabEnd = (address | slabMask) + 1;
+            return address + length <= slabEnd ? address : slabEnd;
+        }
+
+        private ByteBuffer slab(long address) {
+            return slabs.get((int) (address >>> slabShift));
+        }
+
+        int getInt(long address) {
+            return slab(address).getInt((int) address & slabMask);
+        }
+
+        void putInt(long address, int value) {
+            slab(address).putInt((int) address & slabMask, value);
+        }
+
+        long getLong(long address) {
+            return slab(address).getLong((int) address & slabMask);
+        }
+
+        void putLong(long address, long value) {
+            slab(address).putLong((int) address & slabMask, value);
+        }
+
+        byte get(long address) {
+            return slab(address).get((int) address & slabMask);
+        }
+
+        void get(long address, byte[] bytes) {
+            ByteBuffer view = slab(address).duplicate();
+            view.position((int) address & slabMask);
+            view.get(bytes);
+        }
+
+        void put(long address, byte[] bytes) {
+            ByteBuffer view = slab(address).duplicate();
+            view.position((int) address & slabMask);
+            view.put(bytes);
+        }
+
+        /**
+         * Writes the mapped slabs back to the file.
+         */
+        void force() {
+            for (ByteBuffer slab : slabs) {
+                if (slab instanceof MappedByteBuffer) {
+                    ((MappedByteBuffer) slab).force();
+                }
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /* Instance Variables */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_MAX_LOADER = 0.75;
+    private static final int DEFAULT_SLAB_SHIFT = 24;
+    private static final int MIN_SLAB_SIZE = 1 << 12;
+
+    /**
+     * The layout of the index header: "OHHM", version, slab shift, size,
+     * slot count, data end, garbage bytes.
+     */
+    private static final int MAGIC = 0x4F48484D;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLAB_SHIFT_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int SLOTS_OFFSET = 16;
+    private static final int DATA_END_OFFSET = 24;
+    private static final int GARBAGE_OFFSET = 32;
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * The layout of a slot: hash, unused, record address.
+     */
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOT_ADDRESS_OFFSET = 8;
+
+    /**
+     * The bytes of a record before its key: key length, value length.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * The data below this address are never garbage, so that no record
+     * address is 0.
+     */
+    private static final long DATA_START = 8;
+
+    private final Path directory;
+    private final double maxLoad;
+    private final int slabShift;
+    private final int initialSlots;
+    private Region index;
+    private Region data;
+
+    /**
+     * The number of slots, a power of two, the number of mappings, where
+     * the next record goes, and the bytes of garbage records. The index
+     * header keeps a copy of them.
+     */
+    private long slots;
+    private int size;
+    private long dataEnd;
+    private long garbage;
+
+    /**
+     * Constructors
+     */
+    public OffHeapHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
+    }
+
+    public OffHeapHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOADER);
+    }
+
+    /**
+     * OffHeapHashMap constructor that creates an index of at least
+     * initialSize slots, rounded up to a power of two, in direct buffers.
+     * The load factor (# items / # slots) should always be <= maxLoad,
+     * which must be below 1.
+     *
+     * @param initialSize initial number of slots
+     * @param maxLoad     maximum load factor
+     */
+    public OffHeapHashMap(int initialSize, double maxLoad) {
+        this(null, initialSize, maxLoad, DEFAULT_SLAB_SHIFT);
+    }
+
+    /**
+     * OffHeapHashMap constructor that opens the map kept in DIRECTORY, or
+     * creates it there if there is none.
+     *
+     * @param directory the directory of the index and data files
+     */
+    public OffHeapHashMap(Path directory) {
+        this(directory, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER, DEFAULT_SLAB_SHIFT);
+    }
+
+    /**
+     * OffHeapHashMap constructor that opens the map kept in DIRECTORY,
+     * or creates it there, in slabs of 2^slabShift bytes, if there is
+     * none. A null DIRECTORY keeps the map in direct buffers.
+     *
+     * @param directory   the directory of the index and data files, or null
+     * @param initialSize initial number of slots of a new map
+     * @param maxLoad     maximum load factor
+     * @param slabShift   log2 of the slab size of a new map, from 12 to 30;
+     *                    no key and value may take more than a slab
+     */
+    public OffHeapHashMap(Path directory, int initialSize, double maxLoad, int slabShift) {
+        if (maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException("maxLoad must be in (0, 1)");
+        }
+        if (slabShift < 12 || slabShift > 30) {
+            throw new IllegalArgumentException("slabShift must be in [12, 30]");
+        }
+        long tableSize = 2;
+        while (tableSize < initialSize) {
+            tableSize <<= 1;
+        }
+        this.directory = directory;
+        this.maxLoad = maxLoad;
+        this.initialSlots = (int) tableSize;
+        try {
+            if (directory != null && Files.exists(directory.resolve("index"))) {
+                this.slabShift = open();
+                return;
+            }
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        this.slabShift = slabShift;
+        create(initialSlots);
+    }
+
+    /**
+     * Maps the regions of the map in the directory, and returns its slab
+     * shift.
+     */
+    private int open() throws IOException {
+        FileChannel indexChannel = openChannel("index");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && indexChannel.read(header) >= 0) {
+            continue;
+        }
+        if (header.hasRemaining() || header.getInt(MAGIC_OFFSET) != MAGIC
+                || header.getInt(VERSION_OFFSET) != VERSION) {
+            indexChannel.close();
+            throw new IllegalArgumentException("Not an OffHeapHashMap: " + directory);
+        }
+        int shift = header.getInt(SLAB_SHIFT_OFFSET);
+        slots = header.getLong(SLOTS_OFFSET);
+        index = new Region(indexChannel, shift);
+        index.ensureCapacity(HEADER_SIZE + slots * SLOT_SIZE);
+        data = new Region(openChannel("data"), shift);
+        size = index.getInt(SIZE_OFFSET);
+        dataEnd = index.getLong(DATA_END_OFFSET);
+        garbage = index.getLong(GARBAGE_OFFSET);
+        data.ensureCapacity(dataEnd);
+        return shift;
+    }
+
+    /**
+     * Starts an empty map of SLOTCOUNT slots.
+     */
+    private void create(long slotCount) {
+        Region[] regions = newRegions("");
+        index = regions[0];
+        data = regions[1];
+        slots = slotCount;
+        size = 0;
+        dataEnd = DATA_START;
+        garbage = 0;
+        index.ensureCapacity(HEADER_SIZE + slots * SLOT_SIZE);
+        data.ensureCapacity(dataEnd);
+        index.putInt(MAGIC_OFFSET, MAGIC);
+        index.putInt(VERSION_OFFSET, VERSION);
+        index.putInt(SLAB_SHIFT_OFFSET, slabShift);
+        index.putLong(SLOTS_OFFSET, slots);
+        writeHeader();
+    }
+
+    /**
+     * Returns new empty index and data regions, in the files named "index"
+     * and "data" followed by SUFFIX if the map has a directory.
+     */
+    private Region[] newRegions(String suffix) {
+        if (directory == null) {
+            return new Region[]{new Region(null, slabShift), new Region(null, slabShift)};
+        }
+        try {
+            Files.deleteIfExists(directory.resolve("index" + suffix));
+            Files.deleteIfExists(directory.resolve("data" + suffix));
+            return new Region[]{new Region(openChannel("index" + suffix), slabShift),
+                new Region(openChannel("data" + suffix), slabShift)};
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    private FileChannel openChannel(String name) throws IOException {
+        return FileChannel.open(directory.resolve(name), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void writeHeader() {
+        index.putInt(SIZE_OFFSET, size);
+        index.putLong(DATA_END_OFFSET, dataEnd);
+        index.putLong(GARBAGE_OFFSET, garbage);
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        closeRegions();
+        create(initialSlots);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(String key) {
+        return findSlot(key.getBytes(StandardCharsets.UTF_8), hash(key)) >= 0;
+    }
+
+    /**
+     * Returns a copy of the value to which the specified key is mapped, or
+     * null if this map contains no mapping for the key.
+     */
+    @Override
+    public byte[] get(String key) {
+        long slot = findSlot(key.getBytes(StandardCharsets.UTF_8), hash(key));
+        return slot < 0 ? null : readValue(recordAt(slot));
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates a copy of the specified value with the specified key in
+     * this map. If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        long slot = findSlot(keyBytes, hash);
+        if (slot >= 0) {
+            long record = recordAt(slot);
+            if (data.getInt(record + 4) == value.length) {
+                // Changed its value in place.
+                data.put(record + RECORD_HEADER_SIZE + keyBytes.length, value);
+                return;
+            }
+            garbage += recordSize(record);
+            index.putLong(slotAddress(slot) + SLOT_ADDRESS_OFFSET, append(keyBytes, value));
+            writeHeader();
+            rebuildIfNeeded();
+            return;
+        }
+        if ((double) (size + 1) / slots > maxLoad) {
+            rebuild(slots * 2);
+        }
+        insert(hash, append(keyBytes, value));
+        size += 1;
+        writeHeader();
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map, built on the heap.
+     */
+    @Override
+    public Set<String> keySet() {
+        Set<String> set = new HashSet<>();
+        for (String k : this) {
+            set.add(k);
+        }
+        return set;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public byte[] remove(String key) {
+        long slot = findSlot(key.getBytes(StandardCharsets.UTF_8), hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        byte[] val = readValue(recordAt(slot));
+        removeSlot(slot);
+        return val;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * a value with the same bytes.
+     */
+    @Override
+    public byte[] remove(String key, byte[] value) {
+        long slot = findSlot(key.getBytes(StandardCharsets.UTF_8), hash(key));
+        if (slot < 0 || !Arrays.equals(value, readValue(recordAt(slot)))) {
+            return null;
+        }
+        removeSlot(slot);
+        return value;
+    }
+
+    /**
+     * Writes all changes back to the files of the map, if it has any.
+     */
+    public void flush() {
+        data.force();
+        index.force();
+    }
+
+    /**
+     * Flushes the map and closes its files. The map must not be used
+     * afterwards.
+     */
+    @Override
+    public void close() {
+        flush();
+        closeRegions();
+    }
+
+    private void closeRegions() {
+        try {
+            index.close();
+            data.close();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new KIterator();
+    }
+
+    /**
+     * Returns the mixed hashCode of KEY, never 0. String.hashCode is
+     * specified, so the hashes stay valid across runs.
+     */
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+    private static long slotAddress(long slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private long recordAt(long slot) {
+        return index.getLong(slotAddress(slot) + SLOT_ADDRESS_OFFSET);
+    }
+
+    private long recordSize(long record) {
+        return RECORD_HEADER_SIZE + data.getInt(record) + data.getInt(record + 4);
+    }
+
+    private byte[] readValue(long record) {
+        byte[] value = new byte[data.getInt(record + 4)];
+        data.get(record + RECORD_HEADER_SIZE + data.getInt(record), value);
+        return value;
+    }
+
+    private String readKey(long record) {
+        byte[] key = new byte[data.getInt(record)];
+        data.get(record + RECORD_HEADER_SIZE, key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns true if the record at RECORD has key KEYBYTES, comparing
+     * the bytes where they are.
+     */
+    private boolean hasKey(long record, byte[] keyBytes) {
+        if (data.getInt(record) != keyBytes.length) {
+            return false;
+        }
+        long address = record + RECORD_HEADER_SIZE;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (data.get(address + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the slot of the key of KEYBYTES with HASH, or -1 if it is
+     * not in this map.
+     */
+    private long findSlot(byte[] keyBytes, int hash) {
+        long mask = slots - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int h = index.getInt(slotAddress(slot));
+            if (h == 0) {
+                return -1;
+            }
+            if (h == hash && hasKey(recordAt(slot), keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Puts the record at RECORD, of a key with HASH which is not in this
+     * map, into the first free slot from its home slot on.
+     */
+    private void insert(int hash, long record) {
+        long mask = slots - 1;
+        long slot = hash & mask;
+        while (index.getInt(slotAddress(slot)) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index.putInt(slotAddress(slot), hash);
+        index.putLong(slotAddress(slot) + SLOT_ADDRESS_OFFSET, record);
+    }
+
+    /**
+     * Appends a record of KEYBYTES and VALUE to the data, and returns its
+     * address.
+     */
+    private long append(byte[] keyBytes, byte[] value) {
+        int length = RECORD_HEADER_SIZE + keyBytes.length + value.length;
+        if (length > 1 << slabShift) {
+            throw new IllegalArgumentException("Entry larger than a slab: " + length);
+        }
+        long record = data.fit(dataEnd, length);
+        garbage += record - dataEnd;
+        data.ensureCapacity(record + length);
+        data.putInt(record, keyBytes.length);
+        data.putInt(record + 4, value.length);
+        data.put(record + RECORD_HEADER_SIZE, keyBytes);
+        data.put(record + RECORD_HEADER_SIZE + keyBytes.length, value);
+        dataEnd = record + length;
+        return record;
+    }
+
+    /**
+     * Empties SLOT, moving back the slots after it which could not be
+     * found anymore, and counts its record as garbage.
+     */
+    private void removeSlot(long slot) {
+        garbage += recordSize(recordAt(slot));
+        long mask = slots - 1;
+        long next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            int hash = index.getInt(slotAddress(next));
+            if (hash == 0) {
+                break;
+            }
+            long home = hash & mask;
+            // Moves NEXT to SLOT unless its home is cyclically in (slot, next].
+            boolean stays = slot <= next
+                    ? slot < home && home <= next
+                    : slot < home || home <= next;
+            if (!stays) {
+                index.putInt(slotAddress(slot), hash);
+                index.putLong(slotAddress(slot) + SLOT_ADDRESS_OFFSET, recordAt(next));
+                slot = next;
+            }
+        }
+        index.putInt(slotAddress(slot), 0);
+        index.putLong(slotAddress(slot) + SLOT_ADDRESS_OFFSET, 0);
+        size -= 1;
+        writeHeader();
+        rebuildIfNeeded();
+    }
+
+    /**
+     * Rebuilds the map if garbage takes more than half of its data.
+     */
+    private void rebuildIfNeeded() {
+        if (garbage > (1 << 16) && garbage * 2 > dataEnd) {
+            rebuild(slots);
+        }
+    }
+
+    /**
+     * Copies the live records into new regions with an index of SLOTCOUNT
+     * slots, and replaces the current regions by them.
+     */
+    private void rebuild(long slotCount) {
+        Region oldIndex = index;
+        Region oldData = data;
+        long oldSlots = slots;
+        int oldSize = size;
+        Region[] regions = newRegions(".tmp");
+        index = regions[0];
+        data = regions[1];
+        slots = slotCount;
+        dataEnd = DATA_START;
+        garbage = 0;
+        index.ensureCapacity(HEADER_SIZE + slots * SLOT_SIZE);
+        data.ensureCapacity(dataEnd);
+        for (long slot = 0; slot < oldSlots; slot++) {
+            int hash = oldIndex.getInt(slotAddress(slot));
+            if (hash == 0) {
+                continue;
+            }
+            long record = oldIndex.getLong(slotAddress(slot) + SLOT_ADDRESS_OFFSET);
+            byte[] bytes = new byte[RECORD_HEADER_SIZE + oldData.getInt(record)
+                    + oldData.getInt(record + 4)];
+            oldData.get(record, bytes);
+            long copy = data.fit(dataEnd, bytes.length);
+            garbage += copy - dataEnd;
+            data.ensureCapacity(copy + bytes.length);
+            data.put(copy, bytes);
+            dataEnd = copy + bytes.length;
+            insert(hash, copy);
+        }
+        size = oldSize;
+        index.putInt(MAGIC_OFFSET, MAGIC);
+        index.putInt(VERSION_OFFSET, VERSION);
+        index.putInt(SLAB_SHIFT_OFFSET, slabShift);
+        index.putLong(SLOTS_OFFSET, slots);
+        writeHeader();
+        try {
+            oldIndex.close();
+            oldData.close();
+            if (directory != null) {
+                flush();
+                Files.move(directory.resolve("data.tmp"), directory.resolve("data"),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(directory.resolve("index.tmp"), directory.resolve("index"),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    private class KIterator implements Iterator<String> {
+        private long slot = 0;
+        private int cnt = 0;
+
+        @Override
+        public boolean hasNext() {
+            return cnt < size;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (index.getInt(slotAddress(slot)) == 0) {
+                slot += 1;
+            }
+            cnt += 1;
+            return readKey(recordAt(slot++));
+        }
+    }
+}
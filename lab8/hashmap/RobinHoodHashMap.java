@@ -0,0 +1,333 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * An open-addressing hash table with Robin Hood probing. Unlike MyHashMap,
+ * it allocates no bucket and no node per mapping: keys, values and cached
+ * hashes live in three parallel arrays, and a lookup walks consecutive
+ * slots of these arrays.
+ * <p>
+ * A key is stored at the first free slot from its home slot (its hash
+ * modulo the table size) onwards. On insertion, a key that is further from
+ * its home slot than the key occupying a slot takes that slot, and the
+ * displaced key moves on. This keeps every key close to its home slot,
+ * and lets a failed lookup stop as soon as it meets a key nearer to its
+ * own home than the searched key would be. Removal shifts the following
+ * keys back by one slot instead of leaving a tombstone.
+ * <p>
+ * Assumes null keys will never be inserted, and does not resize down upon
+ * remove().
+ *
+ * @author Vincent Ma
+ */
+public class RobinHoodHashMap<K, V> implements Map61B<K, V> {
+
+    /* Instance Variables */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final double DEFAULT_MAX_LOADER = 0.75;
+
+    /**
+     * The hash of an empty slot. Stored hashes are never EMPTY.
+     */
+    private static final int EMPTY = 0;
+
+    private final int initialSize;
+    private final double maxLoad;
+    private int size = 0;
+
+    /**
+     * The keys, values and hashes of the slots. Their length is a power of
+     * two.
+     */
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+
+    /**
+     * Constructors
+     */
+    public RobinHoodHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_LOADER);
+    }
+
+    public RobinHoodHashMap(int initialSize) {
+        this(initialSize, DEFAULT_MAX_LOADER);
+    }
+
+    /**
+     * RobinHoodHashMap constructor that creates backing arrays of at least
+     * initialSize slots, rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= maxLoad,
+     * which must be below 1.
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor
+     */
+    public RobinHoodHashMap(int initialSize, double maxLoad) {
+        if (maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException("maxLoad must be in (0, 1)");
+        }
+        this.initialSize = tableSizeFor(initialSize);
+        this.maxLoad = maxLoad;
+        createTable(this.initialSize);
+    }
+
+    /**
+     * Returns the smallest power of two no less than N, and at least 2.
+     */
+    private static int tableSizeFor(int n) {
+        int size = 2;
+        while (size < n) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private void createTable(int tableSize) {
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        createTable(initialSize);
+        size = 0;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            // Changed its value.
+            values[slot] = value;
+            return;
+        }
+        if (willBeOverLoaded()) {
+            resize(hashes.length * 2);
+        }
+        insert(hash, key, value);
+        size += 1;
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> set = new HashSet<>();
+        for (K k : this) {
+            set.add(k);
+        }
+        return set;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V val = (V) values[slot];
+        removeSlot(slot);
+        return val;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     */
+    @Override
+    public V remove(K key, V value) {
+        int slot = findSlot(key);
+        if (slot < 0 || !Objects.equals(value, values[slot])) {
+            return null;
+        }
+        removeSlot(slot);
+        return value;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new KIterator();
+    }
+
+    /**
+     * Returns the hash of key K, spread so that the low bits used to pick
+     * a slot depend on all bits of its hashCode, and never EMPTY.
+     */
+    private static int hash(Object k) {
+        int h = k.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h == EMPTY ? 1 : h;
+    }
+
+    /**
+     * Returns how far the key with HASH stored at SLOT is from its home slot.
+     */
+    private int probeDistance(int hash, int slot) {
+        return (slot - hash) & (hashes.length - 1);
+    }
+
+    private int findSlot(K key) {
+        return findSlot(key, hash(key));
+    }
+
+    /**
+     * Returns the slot of KEY with HASH, or -1 if it is not in this map.
+     */
+    private int findSlot(K key, int hash) {
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        for (int dist = 0; ; dist++) {
+            int h = hashes[slot];
+            if (h == EMPTY || dist > probeDistance(h, slot)) {
+                // KEY would have taken this slot.
+                return -1;
+            }
+            if (h == hash && key.equals(keys[slot])) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Inserts KEY, which is not in this map, with HASH and VALUE, taking
+     * the slots of keys nearer to their home slot.
+     */
+    private void insert(int hash, Object key, Object value) {
+        int mask = hashes.length - 1;
+        int slot = hash & mask;
+        for (int dist = 0; ; dist++) {
+            int h = hashes[slot];
+            if (h == EMPTY) {
+                hashes[slot] = hash;
+                keys[slot] = key;
+                values[slot] = value;
+                return;
+            }
+            int d = probeDistance(h, slot);
+            if (d < dist) {
+                // Takes the slot, and carries on with the key it held.
+                Object k = keys[slot];
+                Object v = values[slot];
+                hashes[slot] = hash;
+                keys[slot] = key;
+                values[slot] = value;
+                hash = h;
+                key = k;
+                value = v;
+                dist = d;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties SLOT, shifting the keys after it back until a free slot or a
+     * key at its home slot.
+     */
+    private void removeSlot(int slot) {
+        int mask = hashes.length - 1;
+        int next = (slot + 1) & mask;
+        while (hashes[next] != EMPTY && probeDistance(hashes[next], next) > 0) {
+            hashes[slot] = hashes[next];
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        hashes[slot] = EMPTY;
+        keys[slot] = null;
+        values[slot] = null;
+        size -= 1;
+    }
+
+    /**
+     * Resize current table from size to toSize.
+     *
+     * @param toSize Table's size after resizing.
+     */
+    private void resize(int toSize) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        createTable(toSize);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                insert(oldHashes[i], oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks if the table is overloaded if adding a key.
+     */
+    private boolean willBeOverLoaded() {
+        return (double) (size + 1) / hashes.length > maxLoad;
+    }
+
+    private class KIterator implements Iterator<K> {
+        private int slot = 0;
+        private int cnt = 0;
+
+        @Override
+        public boolean hasNext() {
+            return cnt < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (hashes[slot] == EMPTY) {
+                slot += 1;
+            }
+            cnt += 1;
+            return (K) keys[slot++];
+        }
+    }
+}
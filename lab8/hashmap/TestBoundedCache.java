@@ -0,0 +1,210 @@
+package hashmap;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of BoundedCache.
+ *
+ * @author Vincent Ma
+ */
+public class TestBoundedCache {
+
+    @Test
+    public void sanityTest() {
+        for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+            TestMyHashMap.sanityClearTest(new BoundedCache<String, Integer>(1000, policy));
+            TestMyHashMap.sanityContainsKeyTest(new BoundedCache<String, Integer>(1000, policy));
+            TestMyHashMap.sanityGetTest(new BoundedCache<String, Integer>(1000, policy));
+            TestMyHashMap.sanityPutTest(new BoundedCache<String, Integer>(1000, policy));
+            TestMyHashMap.functionalityTest(new BoundedCache<String, String>(1000, policy),
+                    new BoundedCache<String, Integer>(1000, policy));
+        }
+    }
+
+    /**
+     * Compares an LRU cache with a LinkedHashMap in access order evicting
+     * its eldest entry.
+     */
+    @Test
+    public void lruTest() {
+        int capacity = 100;
+        BoundedCache<Integer, Integer> cache =
+                new BoundedCache<>(capacity, BoundedCache.Policy.LRU);
+        Map<Integer, Integer> expected = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > capacity;
+            }
+        };
+        Random random = new Random(61);
+        for (int i = 0; i < 100000; i++) {
+            Integer key = random.nextInt(300);
+            int op = random.nextInt(10);
+            if (op < 5) {
+                assertEquals(expected.get(key), cache.get(key));
+            } else if (op < 9) {
+                expected.put(key, i);
+                cache.put(key, i);
+            } else {
+                assertEquals(expected.remove(key), cache.remove(key));
+            }
+            assertEquals(expected.size(), cache.size());
+        }
+        assertEquals(expected.keySet(), cache.keySet());
+        for (Integer key : new HashSet<>(expected.keySet())) {
+            assertEquals(expected.get(key), cache.get(key));
+        }
+    }
+
+    @Test
+    public void lfuTest() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(3, BoundedCache.Policy.LFU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        // c was used least.
+        cache.put("d", 4);
+        assertFalse(cache.containsKey("c"));
+        // d was used least.
+        cache.put("e", 5);
+        assertFalse(cache.containsKey("d"));
+        cache.get("e");
+        // b and e were used as much, but b less recently.
+        cache.put("f", 6);
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("e"));
+        assertTrue(cache.containsKey("f"));
+        assertEquals(3, cache.evictions());
+    }
+
+    /**
+     * Checks that a scan of keys used once does not flush the keys used
+     * often from a W_TINY_LFU cache, while it does from an LRU one.
+     */
+    @Test
+    public void scanResistanceTest() {
+        int capacity = 1000;
+        BoundedCache<Integer, Integer> lru = new BoundedCache<>(capacity, BoundedCache.Policy.LRU);
+        BoundedCache<Integer, Integer> tinyLfu =
+                new BoundedCache<>(capacity, BoundedCache.Policy.W_TINY_LFU);
+        for (BoundedCache<Integer, Integer> cache : List.of(lru, tinyLfu)) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < capacity / 2; i++) {
+                    if (cache.get(i) == null) {
+                        cache.put(i, i);
+                    }
+                }
+            }
+            for (int i = capacity; i < capacity * 10; i++) {
+                if (cache.get(i) == null) {
+                    cache.put(i, i);
+                }
+            }
+        }
+        int lruKept = 0;
+        int tinyLfuKept = 0;
+        for (int i = 0; i < capacity / 2; i++) {
+            lruKept += lru.containsKey(i) ? 1 : 0;
+            tinyLfuKept += tinyLfu.containsKey(i) ? 1 : 0;
+        }
+        assertEquals(0, lruKept);
+        assertTrue("kept " + tinyLfuKept, tinyLfuKept > capacity * 9 / 20);
+    }
+
+    @Test
+    public void capacityTest() {
+        for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+            for (int capacity : new int[]{1, 2, 7, 100}) {
+                BoundedCache<Integer, Integer> cache = new BoundedCache<>(capacity, policy);
+                Set<Integer> keys = new HashSet<>();
+                Random random = new Random(capacity);
+                for (int i = 0; i < 20000; i++) {
+                    Integer key = random.nextInt(capacity * 4);
+                    if (random.nextBoolean()) {
+                        cache.get(key);
+                    } else if (random.nextInt(10) == 0) {
+                        if (cache.remove(key) != null) {
+                            keys.remove(key);
+                        }
+                    } else {
+                        cache.put(key, i);
+                        assertEquals(i, (int) cache.get(key));
+                        keys.add(key);
+                    }
+                    assertTrue(cache.size() <= capacity);
+                    keys.retainAll(cache.keySet());
+                    assertEquals(keys, cache.keySet());
+                }
+                cache.clear();
+                assertEquals(0, cache.size());
+                cache.put(1, 1);
+                assertEquals(1, (int) cache.get(1));
+            }
+        }
+    }
+
+    @Test
+    public void bulkLoadTest() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, BoundedCache.Policy.LRU);
+        Integer[] keys = new Integer[50000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        cache.bulkLoad(keys, keys);
+        assertEquals(100, cache.size());
+        assertEquals(keys.length - 100, cache.evictions());
+        for (int i = keys.length - 100; i < keys.length; i++) {
+            assertEquals(i, (int) cache.get(i));
+        }
+    }
+
+    @Test
+    public void countersTest() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Policy.LRU);
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, (int) cache.get("a"));
+        cache.put("c", 3);
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void shrinkTest() {
+        BoundedCache<Integer, Integer> cache =
+                new BoundedCache<>(100000, BoundedCache.Policy.LRU);
+        for (int i = 0; i < 100000; i++) {
+            cache.put(i, i);
+        }
+        for (int i = 0; i < 99990; i++) {
+            assertEquals(i, (int) cache.remove(i));
+        }
+        assertEquals(10, cache.size());
+        for (int i = 99990; i < 100000; i++) {
+            assertEquals(i, (int) cache.get(i));
+        }
+        // The eviction order survives the table shrinking.
+        cache.get(99990);
+        for (int i = 0; i < 99999; i++) {
+            cache.put(-i - 1, i);
+        }
+        assertTrue(cache.containsKey(99990));
+        assertFalse(cache.containsKey(99991));
+    }
+}
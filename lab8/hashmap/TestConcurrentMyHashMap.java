@@ -0,0 +1,94 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Tests of ConcurrentMyHashMap, alone and shared by threads. */
+public class TestConcurrentMyHashMap {
+
+    @Test
+    public void sanityTest() {
+        TestMap61B.sanityClearTest(new ConcurrentMyHashMap<>());
+        TestMap61B.sanityContainsKeyTest(new ConcurrentMyHashMap<>());
+        TestMap61B.sanityGetTest(new ConcurrentMyHashMap<>());
+        TestMap61B.sanitySizeTest(new ConcurrentMyHashMap<>());
+        TestMap61B.sanityPutTest(new ConcurrentMyHashMap<>());
+        TestMap61B.sanityKeySetTest(new ConcurrentMyHashMap<>());
+        TestMap61B.functionalityTest(new ConcurrentMyHashMap<>(),
+                new ConcurrentMyHashMap<>());
+    }
+
+    @Test
+    public void randomizedTest() {
+        TestMap61B.randomizedTest(new ConcurrentMyHashMap<>());
+        TestMap61B.randomizedTest(new ConcurrentMyHashMap<>(1, 0.75, 1));
+        TestMap61B.randomizedTest(new ConcurrentMyHashMap<>(1, 4, 64));
+    }
+
+    /**
+     * Threads put and remove their own keys while others read them all:
+     * readers must only ever see a key's own value, and the size must add
+     * up in the end.
+     */
+    @Test
+    public void threadsTest() throws InterruptedException {
+        int writers = 4;
+        int keys = 20000;
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>(1, 0.75, 4);
+        AtomicBoolean done = new AtomicBoolean(false);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int first = w * keys;
+            threads.add(new Thread(() -> {
+                for (int k = first; k < first + keys; k++) {
+                    map.put(k, -k);
+                }
+                for (int k = first; k < first + keys; k += 2) {
+                    assertEquals(Integer.valueOf(-k), map.remove(k));
+                }
+            }));
+        }
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(new Thread(() -> {
+                while (!done.get()) {
+                    for (int k = 0; k < writers * keys; k += 7) {
+                        Integer value = map.get(k);
+                        assertTrue(value == null || value == -k);
+                    }
+                    for (Integer k : map) {
+                        assertTrue(k >= 0 && k < writers * keys);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+            thread.start();
+        }
+        for (Thread reader : readers) {
+            reader.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+            reader.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        assertEquals(writers * keys / 2, map.size());
+        assertEquals(writers * keys / 2, map.keySet().size());
+        for (int k = 0; k < writers * keys; k++) {
+            assertEquals(k % 2 == 0 ? null : Integer.valueOf(-k), map.get(k));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/** Runs the tests of MyHashMap on CuckooHashMap. */
+public class TestCuckooHashMap {
+
+    @Test
+    public void sanityClearTest() {
+        TestMap61B.sanityClearTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void sanityContainsKeyTest() {
+        TestMap61B.sanityContainsKeyTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void sanityGetTest() {
+        TestMap61B.sanityGetTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void sanitySizeTest() {
+        TestMap61B.sanitySizeTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void sanityPutTest() {
+        TestMap61B.sanityPutTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void sanityKeySetTest() {
+        TestMap61B.sanityKeySetTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void functionalityTest() {
+        TestMap61B.functionalityTest(new CuckooHashMap<>(),
+                new CuckooHashMap<>());
+    }
+
+    @Test
+    public void randomizedTest() {
+        TestMap61B.randomizedTest(new CuckooHashMap<>());
+        // A single bucket, nearly full, keeps displacing and stashing keys.
+        TestMap61B.randomizedTest(new CuckooHashMap<>(4, 0.99));
+    }
+
+    // Keys with the same hashCode share their two buckets, and overflow
+    // into the stash.
+    @Test
+    public void collidingKeysTest() {
+        List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int i = 0; i < 5; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String s : keys) {
+                longer.add(s + "Aa");
+                longer.add(s + "BB");
+            }
+            keys = longer;
+        }
+        CuckooHashMap<String, Integer> q = new CuckooHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            q.put(keys.get(i), i);
+        }
+        assertEquals(32, q.size());
+        assertEquals(new HashSet<>(keys), q.keySet());
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertEquals(Integer.valueOf(i), q.remove(keys.get(i)));
+            assertNull(q.remove(keys.get(i + 1), -1));
+        }
+        assertEquals(16, q.size());
+        for (int i = 0; i < keys.size(); i++) {
+            if (i % 2 == 0) {
+                assertFalse(q.containsKey(keys.get(i)));
+            } else {
+                assertEquals(Integer.valueOf(i), q.get(keys.get(i)));
+            }
+        }
+        int count = 0;
+        for (String key : q) {
+            count += 1;
+        }
+        assertEquals(16, count);
+    }
+
+    // Filling the table up to its maximum load displaces many keys.
+    @Test
+    public void fullTableTest() {
+        CuckooHashMap<Integer, Integer> q = new CuckooHashMap<>(1 << 16, 0.95);
+        int n = (int) ((1 << 16) * 0.95);
+        for (int i = 0; i < n; i++) {
+            q.put(i * 7919, i);
+        }
+        assertEquals(n, q.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Integer.valueOf(i), q.get(i * 7919));
+        }
+        assertFalse(q.containsKey(-7919));
+    }
+}
@@ -0,0 +1,148 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The tests of TestMyHashMap, for any Map61B, and a randomized test
+ * against java.util.HashMap.
+ */
+public class TestMap61B {
+
+    @Test
+    public void randomizedTest() {
+        randomizedTest(new MyHashMap<>());
+    }
+
+    public static void sanityClearTest(Map61B<String, Integer> b) {
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, 1);
+            //make sure put is working via containsKey and get
+            assertTrue(null != b.get("hi" + i)
+                    && b.containsKey("hi" + i));
+        }
+        b.clear();
+        assertEquals(0, b.size());
+        for (int i = 0; i < 455; i++) {
+            assertTrue(null == b.get("hi" + i) && !b.containsKey("hi" + i));
+        }
+    }
+
+    public static void sanityContainsKeyTest(Map61B<String, Integer> b) {
+        assertFalse(b.containsKey("waterYouDoingHere"));
+        b.put("waterYouDoingHere", 0);
+        assertTrue(b.containsKey("waterYouDoingHere"));
+    }
+
+    public static void sanityGetTest(Map61B<String, Integer> b) {
+        assertEquals(null, b.get("starChild"));
+        b.put("starChild", 5);
+        assertNotEquals(null, b.get("starChild"));
+        b.put("KISS", 5);
+        assertNotEquals(null, b.get("KISS"));
+        assertNotEquals(null, b.get("starChild"));
+    }
+
+    public static void sanitySizeTest(Map61B<String, Integer> b) {
+        assertEquals(0, b.size());
+        b.put("hi", 1);
+        assertEquals(1, b.size());
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, 1);
+        }
+        assertEquals(456, b.size());
+    }
+
+    public static void sanityPutTest(Map61B<String, Integer> b) {
+        b.put("hi", 1);
+        assertTrue(b.containsKey("hi") && b.get("hi") != null);
+    }
+
+    public static void sanityKeySetTest(Map61B<String, Integer> b) {
+        HashSet<String> values = new HashSet<String>();
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, 1);
+            values.add("hi" + i);
+        }
+        assertEquals(455, b.size()); //keys are there
+        Set<String> keySet = b.keySet();
+        assertTrue(values.containsAll(keySet));
+        assertTrue(keySet.containsAll(values));
+    }
+
+    public static void functionalityTest(Map61B<String, String> dictionary,
+            Map61B<String, Integer> studentIDs) {
+        assertEquals(0, dictionary.size());
+
+        // can put objects in dictionary and get them
+        dictionary.put("hello", "world");
+        assertTrue(dictionary.containsKey("hello"));
+        assertEquals("world", dictionary.get("hello"));
+        assertEquals(1, dictionary.size());
+
+        // putting with existing key updates the value
+        dictionary.put("hello", "kevin");
+        assertEquals(1, dictionary.size());
+        assertEquals("kevin", dictionary.get("hello"));
+
+        // putting key in multiple times does not affect behavior
+        studentIDs.put("sarah", 12345);
+        assertEquals(1, studentIDs.size());
+        assertEquals(12345, studentIDs.get("sarah").intValue());
+        studentIDs.put("alan", 345);
+        assertEquals(2, studentIDs.size());
+        assertEquals(12345, studentIDs.get("sarah").intValue());
+        assertEquals(345, studentIDs.get("alan").intValue());
+        studentIDs.put("alan", 345);
+        assertEquals(2, studentIDs.size());
+        assertEquals(12345, studentIDs.get("sarah").intValue());
+        assertEquals(345, studentIDs.get("alan").intValue());
+        studentIDs.put("alan", 345);
+        assertEquals(2, studentIDs.size());
+        assertEquals(12345, studentIDs.get("sarah").intValue());
+        assertEquals(345, studentIDs.get("alan").intValue());
+        assertTrue(studentIDs.containsKey("sarah"));
+        assertTrue(studentIDs.containsKey("alan"));
+
+        // handle values being the same
+        assertEquals(345, studentIDs.get("alan").intValue());
+        studentIDs.put("evil alan", 345);
+        assertEquals(345, studentIDs.get("evil alan").intValue());
+        assertEquals(studentIDs.get("evil alan"), studentIDs.get("alan"));
+    }
+
+    // Random puts, gets and removes agree with java.util.HashMap.
+    public static void randomizedTest(Map61B<Integer, Integer> b) {
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 20000; i++) {
+            Integer key = random.nextInt(2000);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    b.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 2:
+                    assertEquals(expected.remove(key), b.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), b.get(key));
+                    assertEquals(expected.containsKey(key), b.containsKey(key));
+            }
+            assertEquals(expected.size(), b.size());
+        }
+        assertEquals(expected.keySet(), b.keySet());
+        int count = 0;
+        for (Integer key : b) {
+            assertTrue(expected.containsKey(key));
+            count += 1;
+        }
+        assertEquals(expected.size(), count);
+    }
+}
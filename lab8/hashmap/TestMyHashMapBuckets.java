@@ -3,6 +3,11 @@ package hashmap;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
 /**
  * Tests by Brendan Hu, Spring 2015
  * Revised for 2016 by Josh Hug
@@ -36,6 +41,11 @@ public class TestMyHashMapBuckets {
         b = new MyHashMapPQBuckets<>();
         c = new MyHashMapPQBuckets<>();
         d = new MyHashMapPQBuckets<>();
+
+        a = new MyHashMapTreeBuckets<>();
+        b = new MyHashMapTreeBuckets<>();
+        c = new MyHashMapTreeBuckets<>();
+        d = new MyHashMapTreeBuckets<>();
     }
 
     //assumes put/size/containsKey/get work
@@ -46,6 +56,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityClearTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityClearTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityClearTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityClearTest(new MyHashMapTreeBuckets<>());
     }
 
     // assumes put works
@@ -56,6 +67,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityContainsKeyTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityContainsKeyTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityContainsKeyTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityContainsKeyTest(new MyHashMapTreeBuckets<>());
     }
 
     // assumes put works
@@ -66,6 +78,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityGetTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityGetTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityGetTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityGetTest(new MyHashMapTreeBuckets<>());
     }
 
     // assumes put works
@@ -76,6 +89,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanitySizeTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanitySizeTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanitySizeTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanitySizeTest(new MyHashMapTreeBuckets<>());
     }
 
     //assumes get/containskey work
@@ -86,6 +100,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityPutTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityPutTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityPutTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityPutTest(new MyHashMapTreeBuckets<>());
     }
 
     @Test
@@ -95,6 +110,7 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.sanityKeySetTest(new MyHashMapTSBuckets<>());
         TestMyHashMap.sanityKeySetTest(new MyHashMapHSBuckets<>());
         TestMyHashMap.sanityKeySetTest(new MyHashMapPQBuckets<>());
+        TestMyHashMap.sanityKeySetTest(new MyHashMapTreeBuckets<>());
     }
 
     // Test for general functionality and that the properties of Maps hold.
@@ -105,5 +121,95 @@ public class TestMyHashMapBuckets {
         TestMyHashMap.functionalityTest(new MyHashMapTSBuckets<>(), new MyHashMapTSBuckets<>());
         TestMyHashMap.functionalityTest(new MyHashMapHSBuckets<>(), new MyHashMapHSBuckets<>());
         TestMyHashMap.functionalityTest(new MyHashMapPQBuckets<>(), new MyHashMapPQBuckets<>());
+        TestMyHashMap.functionalityTest(new MyHashMapTreeBuckets<>(), new MyHashMapTreeBuckets<>());
+    }
+
+    @Test
+    public void viewsTest() {
+        TestMyHashMapViews.viewsTest(new MyHashMapALBuckets<>());
+        TestMyHashMapViews.viewsTest(new MyHashMapLLBuckets<>());
+        TestMyHashMapViews.viewsTest(new MyHashMapTSBuckets<>());
+        TestMyHashMapViews.viewsTest(new MyHashMapHSBuckets<>());
+        TestMyHashMapViews.viewsTest(new MyHashMapPQBuckets<>());
+        TestMyHashMapViews.viewsTest(new MyHashMapTreeBuckets<>());
+        // Tiny tables make buckets large enough to be treeified.
+        TestMyHashMapViews.viewsTest(new MyHashMapTreeBuckets<>(1, 100));
+    }
+
+    @Test
+    public void bulkLoadTest() {
+        TestMyHashMapBulkLoad.bulkLoadTest(new MyHashMapALBuckets<>());
+        TestMyHashMapBulkLoad.bulkLoadTest(new MyHashMapLLBuckets<>());
+        TestMyHashMapBulkLoad.bulkLoadTest(new MyHashMapTSBuckets<>());
+        TestMyHashMapBulkLoad.bulkLoadTest(new MyHashMapHSBuckets<>());
+        TestMyHashMapBulkLoad.bulkLoadTest(new MyHashMapPQBuckets<>());
+        TestMyHashMapBulkLoad.bulkLoadTest(new MyHashMapTreeBuckets<>());
+    }
+
+    /**
+     * A key whose hashCode is the same for all keys, and which has no
+     * order.
+     */
+    private static class BadKey {
+        private final int id;
+
+        BadKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BadKey && ((BadKey) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 61;
+        }
+    }
+
+    // Keys of equal hashCodes all land in one bucket, which gets treeified.
+    @Test
+    public void collidingKeysTest() {
+        // The 2^10 strings of 10 "Aa" or "BB" all hash alike.
+        List<String> strings = new ArrayList<>();
+        strings.add("");
+        for (int i = 0; i < 10; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String s : strings) {
+                longer.add(s + "Aa");
+                longer.add(s + "BB");
+            }
+            strings = longer;
+        }
+        collidingKeysTest(new MyHashMapTreeBuckets<>(), strings);
+        collidingKeysTest(new MyHashMapLLBuckets<>(), strings);
+
+        List<BadKey> badKeys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            badKeys.add(new BadKey(i));
+        }
+        collidingKeysTest(new MyHashMapTreeBuckets<>(), badKeys);
+    }
+
+    private static <K> void collidingKeysTest(MyHashMap<K, Integer> b, List<K> keys) {
+        HashMap<K, Integer> expected = new HashMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 20000; i++) {
+            K key = keys.get(random.nextInt(keys.size()));
+            switch (random.nextInt(3)) {
+                case 0:
+                    b.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), b.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), b.get(key));
+            }
+            assertEquals(expected.size(), b.size());
+        }
+        assertEquals(expected.keySet(), b.keySet());
     }
 }
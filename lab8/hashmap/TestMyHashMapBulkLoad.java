@@ -0,0 +1,110 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/** Tests of putAll and bulkLoad of MyHashMap. */
+public class TestMyHashMapBulkLoad {
+
+    @Test
+    public void bulkLoadTest() {
+        bulkLoadTest(new MyHashMap<>());
+        bulkLoadTest(new MyHashMap<>(16, 0.75, true));
+    }
+
+    /**
+     * Checks that bulk loads into B, small or large enough to be done in
+     * parallel, keep the last value of repeated keys, and the mappings
+     * already in B.
+     */
+    public static void bulkLoadTest(MyHashMap<Integer, Integer> b) {
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 1000; i++) {
+            b.put(i, i);
+            expected.put(i, i);
+        }
+        for (int n : new int[]{100, 50000}) {
+            Integer[] keys = new Integer[n];
+            Integer[] values = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = random.nextInt(n);
+                values[i] = random.nextInt();
+                expected.put(keys[i], values[i]);
+            }
+            b.bulkLoad(keys, values);
+            assertEquals(expected.size(), b.size());
+            for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+                assertEquals(e.getValue(), b.get(e.getKey()));
+            }
+        }
+
+        MyHashMap<Integer, Integer> copy = new MyHashMap<>();
+        copy.put(-1, -1);
+        copy.putAll(b);
+        expected.put(-1, -1);
+        assertEquals(expected.size(), copy.size());
+        assertEquals(expected.keySet(), copy.keySet());
+        for (Integer key : copy) {
+            assertEquals(expected.get(key), copy.get(key));
+        }
+        // Loading a map into itself only puts its own values back.
+        b.putAll(b);
+        assertEquals(expected.size() - 1, b.size());
+    }
+
+    // The table grows once for a whole bulk load, and not at all if it is
+    // large enough already.
+    @Test
+    public void bulkLoadResizeTest() {
+        int n = 100000;
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        for (int initialSize : new int[]{16, 1 << 18}) {
+            int[] created = {0};
+            MyHashMap<Integer, Integer> b = new MyHashMap<Integer, Integer>(initialSize) {
+                @Override
+                protected Collection<Node> createBucket() {
+                    created[0] += 1;
+                    return super.createBucket();
+                }
+            };
+            b.bulkLoad(keys, keys);
+            b.putAll(b);
+            // 2^18 buckets hold 196608 keys within a 0.75 load.
+            assertEquals(initialSize == 16 ? 16 + (1 << 18) : 1 << 18, created[0]);
+            assertEquals(n, b.size());
+        }
+    }
+
+    // Copying out of a cache reads its nodes, which is not a use of them.
+    @Test
+    public void putAllFromCacheTest() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(3, BoundedCache.Policy.LRU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+
+        MyHashMap<String, Integer> copy = new MyHashMap<>();
+        copy.putAll(cache);
+        assertEquals(3, copy.size());
+        assertEquals(Integer.valueOf(1), copy.get("a"));
+        assertEquals(Integer.valueOf(3), copy.get("c"));
+        assertEquals(1, cache.hits());
+        assertEquals(0, cache.misses());
+
+        // b is still the least recently used.
+        cache.put("d", 4);
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("c"));
+    }
+}
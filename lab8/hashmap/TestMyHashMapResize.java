@@ -0,0 +1,55 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/** Tests of the incremental resize mode of MyHashMap. */
+public class TestMyHashMapResize {
+
+    @Test
+    public void incrementalResizeTest() {
+        TestMap61B.randomizedTest(new MyHashMap<>(1, 0.75, true));
+        TestMyHashMap.sanityClearTest(new MyHashMap<>(16, 0.75, true));
+        TestMyHashMap.sanityKeySetTest(new MyHashMap<>(16, 0.75, true));
+
+        // Iterates while get() migrates the buckets under the iterator.
+        MyHashMap<Integer, Integer> b = new MyHashMap<>(16, 0.75, true);
+        for (int size = 1; size <= 5000; size++) {
+            b.put(size, size);
+            Set<Integer> seen = new HashSet<>();
+            for (Integer key : b) {
+                assertEquals(key, b.get(key));
+                assertTrue(seen.add(key));
+            }
+            assertEquals(size, seen.size());
+        }
+    }
+
+    // Each put migrates few enough buckets, even at a low maxLoad, where
+    // the next resize comes after few puts.
+    @Test
+    public void lowMaxLoadTest() {
+        for (double maxLoad : new double[]{0.25, 0.75, 4}) {
+            int[] created = {0};
+            MyHashMap<Integer, Integer> b = new MyHashMap<Integer, Integer>(16, maxLoad, true) {
+                @Override
+                protected Collection<Node> createBucket() {
+                    created[0] += 1;
+                    return super.createBucket();
+                }
+            };
+            // Each old bucket migrated creates the 2 new ones it maps to.
+            int maxCreated = 2 * ((int) Math.ceil(1 / maxLoad) + 1);
+            for (int i = 0; i < 100000; i++) {
+                int before = created[0];
+                b.put(i, i);
+                assertTrue(created[0] - before <= maxCreated);
+            }
+            TestMap61B.randomizedTest(new MyHashMap<>(1, maxLoad, true));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/** Tests of the keySet, values and entrySet views of MyHashMap. */
+public class TestMyHashMapViews {
+
+    @Test
+    public void viewsTest() {
+        viewsTest(new MyHashMap<>());
+        viewsTest(new MyHashMap<>(16, 0.75, true));
+    }
+
+    /**
+     * Checks that the views of B are live, and that removing through them
+     * or their iterators removes from B.
+     */
+    public static void viewsTest(MyHashMap<Integer, Integer> b) {
+        Set<Integer> keys = b.keySet();
+        Collection<Integer> values = b.values();
+        Set<Map.Entry<Integer, Integer>> entries = b.entrySet();
+        for (int i = 0; i < 1000; i++) {
+            b.put(i, -i);
+        }
+        assertEquals(1000, keys.size());
+        assertEquals(1000, values.size());
+        assertTrue(keys.contains(999));
+        assertFalse(keys.contains(1000));
+        assertTrue(values.contains(-999));
+        assertTrue(entries.contains(new AbstractMap.SimpleEntry<>(5, -5)));
+        assertFalse(entries.contains(new AbstractMap.SimpleEntry<>(5, 5)));
+
+        long sum = 0;
+        for (Integer v : values) {
+            sum += v;
+        }
+        assertEquals(-999 * 1000 / 2, sum);
+
+        // setValue writes through.
+        for (Map.Entry<Integer, Integer> e : entries) {
+            e.setValue(e.getKey() * 2);
+        }
+        assertEquals(Integer.valueOf(1998), b.get(999));
+
+        // Removes the odd keys through the iterators, and some through sets.
+        // containsKey() may migrate the bucket being iterated over.
+        Iterator<Integer> it = keys.iterator();
+        while (it.hasNext()) {
+            Integer k = it.next();
+            assertTrue(b.containsKey(k));
+            if (k % 2 == 1) {
+                it.remove();
+            }
+        }
+        assertEquals(500, b.size());
+        assertFalse(b.containsKey(1));
+        assertTrue(keys.remove(0));
+        assertFalse(keys.remove(1));
+        assertTrue(entries.remove(new AbstractMap.SimpleEntry<>(2, 4)));
+        assertEquals(498, b.size());
+        int count = 0;
+        for (Integer k : keys) {
+            assertTrue(k % 2 == 0 && k > 2);
+            count += 1;
+        }
+        assertEquals(498, count);
+
+        // Puts and removes under an iterator make it fail fast.
+        Iterator<Integer> failing = keys.iterator();
+        failing.next();
+        b.put(-1, 1);
+        try {
+            failing.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        keys.clear();
+        assertEquals(0, b.size());
+        assertFalse(values.iterator().hasNext());
+    }
+
+    @Test
+    public void entryContractTest() {
+        MyHashMap<Integer, String> b = new MyHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            b.put(i, "v" + i);
+            expected.put(i, "v" + i);
+        }
+        assertEquals(expected.entrySet().hashCode(), b.entrySet().hashCode());
+        assertTrue(expected.entrySet().equals(b.entrySet()));
+        assertTrue(b.entrySet().equals(expected.entrySet()));
+
+        Set<Map.Entry<Integer, String>> copy = new HashSet<>(b.entrySet());
+        assertTrue(copy.contains(Map.entry(7, "v7")));
+        assertFalse(copy.contains(Map.entry(7, "v8")));
+
+        Map.Entry<Integer, String> entry = b.entrySet().iterator().next();
+        Map.Entry<Integer, String> same = Map.entry(entry.getKey(), entry.getValue());
+        assertEquals(same, entry);
+        assertEquals(entry, same);
+        assertEquals(same.hashCode(), entry.hashCode());
+
+        // An entry follows its mapping, through setValue() or put().
+        entry.setValue("x");
+        assertEquals("x", b.get(entry.getKey()));
+        b.put(entry.getKey(), "y");
+        assertEquals("y", entry.getValue());
+        assertEquals(Map.entry(entry.getKey(), "y"), entry);
+    }
+}
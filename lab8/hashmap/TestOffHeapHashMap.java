@@ -0,0 +1,109 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/** Tests of OffHeapHashMap, in direct buffers and in files. */
+public class TestOffHeapHashMap {
+
+    @Test
+    public void directTest() {
+        randomizedTest(new OffHeapHashMap(), new HashMap<>());
+        // Small slabs make records skip to the next slab, and rebuilds.
+        randomizedTest(new OffHeapHashMap(null, 2, 0.9, 12), new HashMap<>());
+    }
+
+    @Test
+    public void fileTest() throws IOException {
+        Path dir = Files.createTempDirectory("offheap");
+        try {
+            Map<String, byte[]> expected = new HashMap<>();
+            OffHeapHashMap map = new OffHeapHashMap(dir, 16, 0.75, 12);
+            randomizedTest(map, expected);
+            map.close();
+
+            // Reopens the map, and goes on changing it.
+            map = new OffHeapHashMap(dir);
+            check(map, expected);
+            randomizedTest(map, expected);
+            map.close();
+
+            map = new OffHeapHashMap(dir);
+            check(map, expected);
+            map.clear();
+            assertEquals(0, map.size());
+            map.put("after clear", new byte[]{1});
+            map.close();
+            map = new OffHeapHashMap(dir);
+            assertEquals(1, map.size());
+            assertArrayEquals(new byte[]{1}, map.get("after clear"));
+            map.close();
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void valuesTest() {
+        OffHeapHashMap map = new OffHeapHashMap(null, 16, 0.75, 12);
+        byte[] value = "value".getBytes(StandardCharsets.UTF_8);
+        map.put("κλειδί", value);
+        // The map keeps a copy.
+        value[0] = 'V';
+        assertArrayEquals("value".getBytes(StandardCharsets.UTF_8), map.get("κλειδί"));
+        assertNull(map.remove("κλειδί", value));
+        assertNotNull(map.remove("κλειδί", "value".getBytes(StandardCharsets.UTF_8)));
+        map.put("empty", new byte[0]);
+        assertArrayEquals(new byte[0], map.get("empty"));
+        try {
+            map.put("too large", new byte[1 << 12]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void randomizedTest(OffHeapHashMap b, Map<String, byte[]> expected) {
+        Random random = new Random(61 + expected.size());
+        for (int i = 0; i < 20000; i++) {
+            String key = "key" + random.nextInt(2000);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    byte[] value = new byte[random.nextInt(300)];
+                    random.nextBytes(value);
+                    b.put(key, value);
+                    expected.put(key, value);
+                    break;
+                case 2:
+                    assertArrayEquals(expected.remove(key), b.remove(key));
+                    break;
+                default:
+                    assertArrayEquals(expected.get(key), b.get(key));
+                    assertEquals(expected.containsKey(key), b.containsKey(key));
+            }
+            assertEquals(expected.size(), b.size());
+        }
+        check(b, expected);
+    }
+
+    private static void check(OffHeapHashMap b, Map<String, byte[]> expected) {
+        assertEquals(expected.size(), b.size());
+        assertEquals(expected.keySet(), b.keySet());
+        for (Map.Entry<String, byte[]> e : expected.entrySet()) {
+            assertArrayEquals(e.getValue(), b.get(e.getKey()));
+        }
+    }
+}
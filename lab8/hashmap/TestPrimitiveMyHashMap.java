@@ -0,0 +1,104 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of IntIntMyHashMap and LongObjectMyHashMap. */
+public class TestPrimitiveMyHashMap {
+
+    @Test
+    public void boxedTest() {
+        TestMap61B.randomizedTest(new IntIntMyHashMap());
+        TestMap61B.randomizedTest(new IntIntMyHashMap(2, 0.9));
+    }
+
+    @Test
+    public void intIntTest() {
+        IntIntMyHashMap map = new IntIntMyHashMap();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 50000; i++) {
+            // Negative keys, 0, and keys colliding in small tables.
+            int key = (random.nextInt(400) - 200) * 1024;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                int removed = map.remove(key);
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? 0 : old, removed);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -300 * 1024; key < 300 * 1024; key += 1024) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? 0 : value, map.get(key));
+        }
+        assertEquals(expected.keySet(), map.keySet());
+
+        map.setNoEntryValue(-1);
+        assertEquals(-1, map.get(12345));
+        assertNull(map.get(Integer.valueOf(12345)));
+        map.put(0, 7);
+        // No value is null, so removing the mapping to null removes nothing.
+        assertNull(map.remove(Integer.valueOf(0), null));
+        assertTrue(map.containsKey(0));
+        assertEquals(Integer.valueOf(7), map.remove(Integer.valueOf(0), 7));
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void longObjectTest() {
+        LongObjectMyHashMap<String> map = new LongObjectMyHashMap<>();
+        HashMap<Long, String> expected = new HashMap<>();
+        Random random = new Random(61);
+        for (int i = 0; i < 50000; i++) {
+            long key = (random.nextInt(400) - 200) * (1L << 33);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                map.put(key, "v" + i);
+                expected.put(key, "v" + i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = -300; key < 300; key++) {
+            assertEquals(expected.get(key << 33), map.get(key << 33));
+        }
+        assertEquals(expected.keySet(), map.keySet());
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.iterator().hasNext());
+    }
+
+    // Once sized, the primitive methods allocate nothing.
+    @Test
+    public void noAllocationTest() {
+        java.lang.management.ThreadMXBean bean =
+                ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+        IntIntMyHashMap map = new IntIntMyHashMap(1 << 16);
+        long sum = 0;
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 1; i < 40000; i++) {
+                map.put(i, i);
+                sum += map.get(i) + map.get(-i);
+                map.remove(i + 1);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            assertTrue("allocated " + allocated, allocated < 1024);
+        }
+        assertTrue(sum > 0);
+    }
+}
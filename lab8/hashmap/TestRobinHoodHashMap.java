@@ -0,0 +1,70 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/** Runs the tests of MyHashMap on RobinHoodHashMap. */
+public class TestRobinHoodHashMap {
+
+    @Test
+    public void sanityClearTest() {
+        TestMap61B.sanityClearTest(new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void sanityContainsKeyTest() {
+        TestMap61B.sanityContainsKeyTest(new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void sanityGetTest() {
+        TestMap61B.sanityGetTest(new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void sanitySizeTest() {
+        TestMap61B.sanitySizeTest(new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void sanityPutTest() {
+        TestMap61B.sanityPutTest(new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void sanityKeySetTest() {
+        TestMap61B.sanityKeySetTest(new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void functionalityTest() {
+        TestMap61B.functionalityTest(new RobinHoodHashMap<>(),
+                new RobinHoodHashMap<>());
+    }
+
+    @Test
+    public void randomizedTest() {
+        TestMap61B.randomizedTest(new RobinHoodHashMap<>());
+        // A tiny table keeps long probe sequences wrapping around its end.
+        TestMap61B.randomizedTest(new RobinHoodHashMap<>(2, 0.9));
+    }
+
+    // Keys with the same hashCode all probe from the same home slot.
+    @Test
+    public void collidingKeysTest() {
+        RobinHoodHashMap<String, Integer> q = new RobinHoodHashMap<>();
+        String[] keys = {"Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa"};
+        for (int i = 0; i < keys.length; i++) {
+            q.put(keys[i], i);
+        }
+        assertEquals(Integer.valueOf(0), q.remove("Aa"));
+        assertEquals(Integer.valueOf(2), q.remove("AaAa", 2));
+        assertNull(q.remove("BBBB", 7));
+        assertEquals(4, q.size());
+        assertEquals(Integer.valueOf(1), q.get("BB"));
+        assertEquals(Integer.valueOf(3), q.get("BBBB"));
+        assertEquals(Integer.valueOf(4), q.get("AaBB"));
+        assertEquals(Integer.valueOf(5), q.get("BBAa"));
+        assertFalse(q.containsKey("Aa"));
+    }
+}
@@ -11,6 +11,8 @@ import hashmap.MyHashMapLLBuckets;
 import hashmap.MyHashMapTSBuckets;
 import hashmap.MyHashMapHSBuckets;
 import hashmap.MyHashMapPQBuckets;
+import hashmap.RobinHoodHashMap;
+import hashmap.CuckooHashMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Neil Kulkarni adapted from Josh Hug, Brendan Hu
@@ -42,6 +44,8 @@ public class BucketsSpeedTest {
             timeRandomMap61B(new MyHashMapTSBuckets<>(), N, L);
             timeRandomMap61B(new MyHashMapHSBuckets<>(), N, L);
             timeRandomMap61B(new MyHashMapPQBuckets<>(), N, L);
+            timeRandomMap61B(new RobinHoodHashMap<>(), N, L);
+            timeRandomMap61B(new CuckooHashMap<>(), N, L);
 
             System.out.print("\nWould you like to try more timed-tests? (y/n)");
             repeat = input.nextLine();
@@ -65,13 +69,15 @@ public class BucketsSpeedTest {
 
     /**
      * Attempts to insert N random strings of length L into map,
-     * Prints time of the N insert calls, otherwise
+     * Prints time of the N insert calls, and the latencies of getting
+     * each of them, otherwise
      * Prints a nice message about the error
      */
     public static void timeRandomMap61B(Map61B<String, Integer> map, int N, int L) {
         try {
             double mapTime = insertRandom(map, N, L);
             System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            System.out.println("  get latencies: " + Latencies.ofGets(map, map::get));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
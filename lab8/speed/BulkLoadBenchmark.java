@@ -0,0 +1,81 @@
+package speed;
+
+import java.util.Collection;
+import java.util.Random;
+
+import hashmap.MyHashMap;
+
+/**
+ * Compares building a MyHashMap one put at a time with bulkLoad(),
+ * without user input. Usage:
+ * java speed.BulkLoadBenchmark [N] [ROUNDS]
+ * which builds a new map of N (default 10000000) distinct Integers in a
+ * random order both ways, ROUNDS (default 3) times, and prints the best
+ * milliseconds of each, and how many buckets each created: every table
+ * the map went through, the last one included.
+ *
+ * @author Vincent Ma
+ */
+public class BulkLoadBenchmark {
+
+    /**
+     * A MyHashMap counting the buckets it creates.
+     */
+    private static class CountingMap extends MyHashMap<Integer, Integer> {
+        // No initializer, which would run after the first table is made.
+        private long created;
+
+        @Override
+        protected Collection<Node> createBucket() {
+            created += 1;
+            return super.createBucket();
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        Random random = new Random(61);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+
+        System.out.printf("%d keys, %d available processors, best of %d rounds%n",
+                n, Runtime.getRuntime().availableProcessors(), rounds);
+        System.out.printf("%-10s %10s %16s%n", "build", "ms", "buckets created");
+        run("put", keys, rounds, false);
+        run("bulkLoad", keys, rounds, true);
+    }
+
+    private static void run(String name, Integer[] keys, int rounds, boolean bulk) {
+        double best = Double.MAX_VALUE;
+        long created = 0;
+        for (int r = 0; r < rounds; r++) {
+            // Collects the previous round's map outside of the timing.
+            System.gc();
+            CountingMap map = new CountingMap();
+            long start = System.nanoTime();
+            if (bulk) {
+                map.bulkLoad(keys, keys);
+            } else {
+                for (Integer key : keys) {
+                    map.put(key, key);
+                }
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            created = map.created;
+            if (map.size() != keys.length) {
+                throw new IllegalStateException("lost keys");
+            }
+        }
+        System.out.printf("%-10s %10.0f %16d%n", name, best, created);
+    }
+}
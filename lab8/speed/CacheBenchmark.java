@@ -0,0 +1,108 @@
+package speed;
+
+import java.util.Random;
+
+import hashmap.BoundedCache;
+
+/**
+ * Compares the replacement policies of BoundedCache, without user input.
+ * Usage:
+ * java speed.CacheBenchmark [C] [N] [OPS]
+ * which runs OPS (default 5000000) lookups on a cache of C (default 10000)
+ * mappings from each policy, putting the keys missed, in two workloads:
+ * keys among N (default 1000000) following a Zipf distribution of
+ * exponent 0.9; the same, with a scan of 5C keys never seen before after
+ * every 20C lookups. Prints the hit rate and the nanoseconds per lookup.
+ *
+ * @author Vincent Ma
+ */
+public class CacheBenchmark {
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 5000000;
+
+        int[] zipf = zipfKeys(n, ops, 0.9, new Random(61));
+        int[] scanned = withScans(zipf, capacity, n);
+
+        System.out.printf("cache of %d, %d lookups on %d keys%n", capacity, ops, n);
+        System.out.printf("%-12s %-12s %10s %10s%n", "policy", "workload", "hit rate", "ns/op");
+        for (BoundedCache.Policy policy : BoundedCache.Policy.values()) {
+            run(policy, "zipf", capacity, zipf);
+            run(policy, "zipf+scans", capacity, scanned);
+        }
+        // Keeps the lookups from being optimized away.
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    /**
+     * Returns OPS keys in [0, N) where key k comes with probability
+     * proportional to 1 / (k + 1)^S.
+     */
+    private static int[] zipfKeys(int n, int ops, double s, Random random) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, s);
+            cumulative[k] = total;
+        }
+        int[] keys = new int[ops];
+        for (int i = 0; i < ops; i++) {
+            double u = random.nextDouble() * total;
+            int lo = 0;
+            int hi = n - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] < u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            keys[i] = lo;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns KEYS with every run of 5 CAPACITY of them after each 20
+     * CAPACITY replaced by keys from N up, each seen once.
+     */
+    private static int[] withScans(int[] keys, int capacity, int n) {
+        int[] scanned = keys.clone();
+        int next = n;
+        for (int i = 20 * capacity; i < scanned.length; i += 25 * capacity) {
+            for (int j = i; j < Math.min(i + 5 * capacity, scanned.length); j++) {
+                scanned[j] = next;
+                next += 1;
+            }
+        }
+        return scanned;
+    }
+
+    private static void run(BoundedCache.Policy policy, String workload, int capacity,
+                            int[] keys) {
+        // Boxes the keys beforehand, as callers would hold them already.
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = keys[i];
+        }
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(capacity, policy);
+        long start = System.nanoTime();
+        for (Integer key : boxed) {
+            Integer value = cache.get(key);
+            if (value == null) {
+                cache.put(key, key);
+            } else {
+                sink += value;
+            }
+        }
+        double ns = (double) (System.nanoTime() - start) / keys.length;
+        double hitRate = (double) cache.hits() / (cache.hits() + cache.misses());
+        System.out.printf("%-12s %-12s %9.1f%% %10.1f%n",
+                policy, workload, 100 * hitRate, ns);
+    }
+}
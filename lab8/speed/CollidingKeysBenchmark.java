@@ -0,0 +1,117 @@
+package speed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import hashmap.Map61B;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapTreeBuckets;
+import hashmap.RobinHoodHashMap;
+
+/**
+ * Compares the hash maps on keys which collide, without user input.
+ * Usage:
+ * java speed.CollidingKeysBenchmark [K] [N] [ROUNDS]
+ * which puts, then gets, in a new map of each kind, ROUNDS (default 3)
+ * times, each of these workloads:
+ * 2^K (default 2^13) strings of K "Aa" or "BB", which all have the same
+ * hashCode; N (default 200000) Integers multiples of 2^16, whose
+ * hashCodes only differ in the bits above those picking a bucket of a
+ * table without spreading; N random strings of length 10, for reference.
+ * Prints the best nanoseconds per operation.
+ *
+ * @author Vincent Ma
+ */
+public class CollidingKeysBenchmark {
+
+    /**
+     * A kind of map to measure.
+     */
+    private static class Contender {
+        private final String name;
+        private final Supplier<Map61B<Object, Integer>> factory;
+
+        Contender(String name, Supplier<Map61B<Object, Integer>> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        int k = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        List<Contender> contenders = new ArrayList<>();
+        contenders.add(new Contender("MyHashMapLLBuckets", MyHashMapLLBuckets::new));
+        contenders.add(new Contender("MyHashMapTreeBuckets", MyHashMapTreeBuckets::new));
+        contenders.add(new Contender("RobinHoodHashMap", RobinHoodHashMap::new));
+
+        Object[] equalHashes = equalHashStrings(k);
+        Object[] multiples = new Object[n];
+        Object[] random = new Object[n];
+        StringUtils.setSeed(61);
+        for (int i = 0; i < n; i++) {
+            multiples[i] = i << 16;
+            random[i] = StringUtils.randomString(10);
+        }
+
+        System.out.printf("best of %d rounds, ns per op%n", rounds);
+        System.out.printf("%-22s %-18s %10s %10s%n", "map", "keys", "put ns", "get ns");
+        for (Contender contender : contenders) {
+            run(contender, "2^" + k + " equal hash", equalHashes, rounds);
+            run(contender, n + " x 2^16", multiples, rounds);
+            run(contender, n + " random", random, rounds);
+        }
+        // Keeps the lookups from being optimized away.
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    /**
+     * Returns the 2^K strings made of K "Aa" or "BB", which have the same
+     * hashCode.
+     */
+    private static Object[] equalHashStrings(int k) {
+        List<String> strings = new ArrayList<>();
+        strings.add("");
+        for (int i = 0; i < k; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String s : strings) {
+                longer.add(s + "Aa");
+                longer.add(s + "BB");
+            }
+            strings = longer;
+        }
+        return strings.toArray();
+    }
+
+    private static void run(Contender contender, String workload, Object[] keys,
+                            int rounds) {
+        int n = keys.length;
+        double put = Double.MAX_VALUE;
+        double get = Double.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            Map61B<Object, Integer> map = contender.factory.get();
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                map.put(keys[i], i);
+            }
+            put = Math.min(put, nanosPerOp(start, n));
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sink += map.get(keys[i]);
+            }
+            get = Math.min(get, nanosPerOp(start, n));
+        }
+        System.out.printf("%-22s %-18s %10.1f %10.1f%n",
+                contender.name, workload, put, get);
+    }
+
+    private static double nanosPerOp(long start, int n) {
+        return (double) (System.nanoTime() - start) / n;
+    }
+}
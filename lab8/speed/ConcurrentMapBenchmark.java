@@ -0,0 +1,161 @@
+package speed;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import hashmap.ConcurrentMyHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/**
+ * Compares the throughput of a MyHashMap behind one global lock with that
+ * of a ConcurrentMyHashMap, shared by 1 to T threads, without user input.
+ * Usage:
+ * java speed.ConcurrentMapBenchmark [T] [N] [OPS] [PUTS]
+ * where each thread does OPS (default 2000000) operations on random keys
+ * among N (default 1000000), PUTS percent (default 10) of them puts and
+ * the others gets, on a map filled with half of the keys beforehand. T
+ * defaults to the number of available processors. Prints the millions of
+ * operations per second of all threads together.
+ *
+ * @author Vincent Ma
+ */
+public class ConcurrentMapBenchmark {
+
+    /**
+     * A Map61B whose every method holds the lock of the map it wraps, as
+     * our ingest used to share MyHashMap.
+     */
+    private static class SynchronizedMap61B<K, V> implements Map61B<K, V> {
+        private final Map61B<K, V> map;
+
+        SynchronizedMap61B(Map61B<K, V> map) {
+            this.map = map;
+        }
+
+        public synchronized void clear() {
+            map.clear();
+        }
+
+        public synchronized boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        public synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        public synchronized int size() {
+            return map.size();
+        }
+
+        public synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        public synchronized Set<K> keySet() {
+            return map.keySet();
+        }
+
+        public synchronized V remove(K key) {
+            return map.remove(key);
+        }
+
+        public synchronized V remove(K key, V value) {
+            return map.remove(key, value);
+        }
+
+        public Iterator<K> iterator() {
+            return keySet().iterator();
+        }
+    }
+
+    private static volatile long sink = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 2000000;
+        int puts = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+
+        System.out.printf("%d keys, %d ops per thread, %d%% puts, "
+                + "%d available processors%n", n, ops, puts,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %16s %20s%n", "threads",
+                "global lock Mops", "ConcurrentMyHashMap");
+        for (int t : threadCounts(maxThreads)) {
+            double locked = run(() -> new SynchronizedMap61B<>(new MyHashMap<>()),
+                    keys, t, ops, puts);
+            double concurrent = run(ConcurrentMyHashMap::new, keys, t, ops, puts);
+            System.out.printf("%-8d %16.1f %20.1f%n", t, locked, concurrent);
+        }
+    }
+
+    /**
+     * Returns the powers of two below MAX, then MAX.
+     */
+    private static List<Integer> threadCounts(int max) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < max; t *= 2) {
+            counts.add(t);
+        }
+        counts.add(max);
+        return counts;
+    }
+
+    /**
+     * Returns the millions of operations per second of THREADS threads
+     * doing OPS operations each on a new map from FACTORY.
+     */
+    private static double run(Supplier<Map61B<Integer, Integer>> factory,
+                              Integer[] keys, int threads, int ops, int puts)
+            throws InterruptedException {
+        Map61B<Integer, Integer> map = factory.get();
+        for (int i = 0; i < keys.length; i += 2) {
+            map.put(keys[i], i);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                long sum = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException excp) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    Integer key = keys[random.nextInt(keys.length)];
+                    if (random.nextInt(100) < puts) {
+                        map.put(key, i);
+                    } else {
+                        Integer value = map.get(key);
+                        sum += value == null ? 0 : 1;
+                    }
+                }
+                sink += sum;
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return (double) threads * ops / seconds / 1e6;
+    }
+}
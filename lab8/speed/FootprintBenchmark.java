@@ -0,0 +1,118 @@
+package speed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import hashmap.CuckooHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapPQBuckets;
+import hashmap.MyHashMapTSBuckets;
+import hashmap.MyHashMapTreeBuckets;
+import hashmap.RobinHoodHashMap;
+import hashmap.ULLMap;
+
+/**
+ * Measures the bytes each map takes per mapping, next to the time of its
+ * puts, without user input. Usage:
+ * java --add-opens java.base/java.util=ALL-UNNAMED
+ *      --add-opens java.base/java.lang=ALL-UNNAMED
+ *      speed.FootprintBenchmark [N] [L]
+ * which puts N (default 100000) random strings of length L (default 10)
+ * into a new map of each kind, ULLMap taking at most ULL_LIMIT of them as
+ * its puts take quadratic time, and prints the nanoseconds per put and
+ * the bytes the map retains, in all and per mapping, as measured by
+ * ObjectSizer. The keys and values are not counted, being the same for
+ * every map: their own bytes per mapping are printed last.
+ *
+ * @author Vincent Ma
+ */
+public class FootprintBenchmark {
+
+    private static final int ULL_LIMIT = 5000;
+
+    /**
+     * A kind of map to measure.
+     */
+    private static class Contender {
+        private final String name;
+        private final Supplier<Map61B<String, Integer>> factory;
+        private final int limit;
+
+        Contender(String name, Supplier<Map61B<String, Integer>> factory, int limit) {
+            this.name = name;
+            this.factory = factory;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Returns the maps to compare.
+     */
+    private static List<Contender> contenders() {
+        List<Contender> contenders = new ArrayList<>();
+        contenders.add(new Contender("MyHashMap", MyHashMap::new, Integer.MAX_VALUE));
+        contenders.add(new Contender("MyHashMapALBuckets", MyHashMapALBuckets::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("MyHashMapLLBuckets", MyHashMapLLBuckets::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("MyHashMapTSBuckets", MyHashMapTSBuckets::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("MyHashMapHSBuckets", MyHashMapHSBuckets::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("MyHashMapPQBuckets", MyHashMapPQBuckets::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("MyHashMapTreeBuckets", MyHashMapTreeBuckets::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("RobinHoodHashMap", RobinHoodHashMap::new,
+                Integer.MAX_VALUE));
+        contenders.add(new Contender("CuckooHashMap", CuckooHashMap::new, Integer.MAX_VALUE));
+        contenders.add(new Contender("ULLMap", ULLMap::new, ULL_LIMIT));
+        return contenders;
+    }
+
+    @SuppressWarnings({"deprecation", "removal"})
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        StringUtils.setSeed(61);
+        String[] keys = new String[n];
+        Integer[] values = new Integer[n];
+        Set<Object> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < n; i++) {
+            keys[i] = StringUtils.randomString(length);
+            // Distinct Integers, unlike the cached ones of valueOf.
+            values[i] = new Integer(i);
+            excluded.add(keys[i]);
+            excluded.add(values[i]);
+        }
+
+        System.out.printf("random strings of length %d%n", length);
+        System.out.printf("%-20s %8s %10s %12s %12s%n",
+                "map", "N", "put ns", "bytes", "bytes/entry");
+        for (Contender contender : contenders()) {
+            int size = Math.min(n, contender.limit);
+            Map61B<String, Integer> map = contender.factory.get();
+            long start = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                map.put(keys[i], values[i]);
+            }
+            double put = (double) (System.nanoTime() - start) / size;
+            long bytes = ObjectSizer.deepSizeOf(map, excluded);
+            System.out.printf("%-20s %8d %10.1f %12d %12.1f%n",
+                    contender.name, map.size(), put, bytes, (double) bytes / map.size());
+        }
+        long keyBytes = ObjectSizer.deepSizeOf(keys) - ObjectSizer.deepSizeOf(new String[n]);
+        long valueBytes = ObjectSizer.deepSizeOf(values) - ObjectSizer.deepSizeOf(new Integer[n]);
+        System.out.printf("(keys and values: %.1f bytes/entry more)%n",
+                (double) (keyBytes + valueBytes) / n);
+    }
+}
@@ -8,6 +8,7 @@ import edu.princeton.cs.algs4.Stopwatch;
 import hashmap.Map61B;
 import hashmap.ULLMap;
 import hashmap.MyHashMap;
+import hashmap.CuckooHashMap;
 
 /**
  * Performs a timing test on three different set implementations.
@@ -40,6 +41,10 @@ public class InsertInOrderSpeedTest {
             timeInOrderMap61B(new MyHashMap<String, Integer>(),
                     i.waitForPositiveInt(input));
 
+            System.out.print("\nEnter # strings to insert into hashmap.CuckooHashMap: ");
+            timeInOrderMap61B(new CuckooHashMap<String, Integer>(),
+                    i.waitForPositiveInt(input));
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeInOrderHashMap(new HashMap<String, Integer>(),
                     i.waitForPositiveInt(input));
@@ -79,13 +84,15 @@ public class InsertInOrderSpeedTest {
 
     /**
      * Attempts to insert N in-order strings of length L into map,
-     * Prints time of the N insert calls, otherwise
+     * Prints time of the N insert calls, and the latencies of getting
+     * each of them, otherwise
      * Prints a nice message about the error
      */
     public static void timeInOrderMap61B(Map61B<String, Integer> map, int N) {
         try {
             double mapTime = insertInOrder(map, N);
             System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            System.out.println("  get latencies: " + Latencies.ofGets(map, map::get));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -95,13 +102,16 @@ public class InsertInOrderSpeedTest {
 
     /**
      * Attempts to insert N in-order strings of length L into HashMap,
-     * Prints time of the N insert calls, otherwise
+     * Prints time of the N insert calls, and the latencies of getting
+     * each of them, otherwise
      * Prints a nice message about the error
      */
     public static void timeInOrderHashMap(HashMap<String, Integer> hashMap, int N) {
         try {
             double javaTime = insertInOrder(hashMap, N);
             System.out.printf("Java's Built-in HashMap: %.2f sec\n", javaTime);
+            System.out.println("  get latencies: "
+                    + Latencies.ofGets(hashMap.keySet(), hashMap::get));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
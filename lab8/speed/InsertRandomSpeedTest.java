@@ -8,6 +8,7 @@ import edu.princeton.cs.algs4.Stopwatch;
 import hashmap.Map61B;
 import hashmap.ULLMap;
 import hashmap.MyHashMap;
+import hashmap.CuckooHashMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Josh Hug
@@ -39,6 +40,10 @@ public class InsertRandomSpeedTest {
             timeRandomMap61B(new MyHashMap<String, Integer>(),
                     waitForPositiveInt(input), L);
 
+            System.out.print("\nEnter # strings to insert into hashmap.CuckooHashMap: ");
+            timeRandomMap61B(new CuckooHashMap<String, Integer>(),
+                    waitForPositiveInt(input), L);
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeRandomHashMap(new HashMap<String, Integer>(),
                     waitForPositiveInt(input), L);
@@ -79,13 +84,15 @@ public class InsertRandomSpeedTest {
 
     /**
      * Attempts to insert N random strings of length L into map,
-     * Prints time of the N insert calls, otherwise
+     * Prints time of the N insert calls, and the latencies of getting
+     * each of them, otherwise
      * Prints a nice message about the error
      */
     public static void timeRandomMap61B(Map61B<String, Integer> map, int N, int L) {
         try {
             double mapTime = insertRandom(map, N, L);
             System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            System.out.println("  get latencies: " + Latencies.ofGets(map, map::get));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
@@ -95,13 +102,16 @@ public class InsertRandomSpeedTest {
 
     /**
      * Attempts to insert N random strings of length L into a HashMap
-     * Prints time of the N insert calls, otherwise
+     * Prints time of the N insert calls, and the latencies of getting
+     * each of them, otherwise
      * Prints a nice message about the error
      */
     public static void timeRandomHashMap(HashMap<String, Integer> hashMap, int N, int L) {
         try {
             double javaTime = insertRandom(hashMap, N, L);
             System.out.printf("Java's Built-in HashMap: %.2f sec\n", javaTime);
+            System.out.println("  get latencies: "
+                    + Latencies.ofGets(hashMap.keySet(), hashMap::get));
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N, L);
         } catch (RuntimeException e) {
@@ -0,0 +1,90 @@
+package speed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * The latencies of single operations, summed up by their percentiles.
+ *
+ * @author Vincent Ma
+ */
+public class Latencies {
+
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    /**
+     * Keeps the timed operations from being optimized away.
+     */
+    private static long sink = 0;
+
+    /**
+     * The latencies, in nanoseconds.
+     */
+    private final long[] nanos;
+
+    private Latencies(long[] nanos) {
+        this.nanos = nanos;
+        Arrays.sort(nanos);
+    }
+
+    /**
+     * Returns the latencies in NANOS, timed by the caller, which are sorted
+     * in place.
+     */
+    public static Latencies of(long[] nanos) {
+        return new Latencies(nanos);
+    }
+
+    /**
+     * Returns the latencies of calling GET once on each of KEYS, in a
+     * random order, so that lookups do not follow the layout of the map.
+     */
+    public static <K> Latencies ofGets(Iterable<K> keys, Function<K, ?> get) {
+        List<K> shuffled = new ArrayList<>();
+        for (K key : keys) {
+            shuffled.add(key);
+        }
+        Collections.shuffle(shuffled, new Random(61));
+        long[] nanos = new long[shuffled.size()];
+        for (int i = 0; i < nanos.length; i++) {
+            K key = shuffled.get(i);
+            long start = System.nanoTime();
+            Object value = get.apply(key);
+            nanos[i] = System.nanoTime() - start;
+            sink += value == null ? 0 : 1;
+        }
+        return new Latencies(nanos);
+    }
+
+    /**
+     * Returns the latency below which P percent of the operations took.
+     */
+    public long percentile(double p) {
+        int index = (int) Math.min(nanos.length - 1, Math.ceil(p / 100 * nanos.length) - 1);
+        return nanos[Math.max(0, index)];
+    }
+
+    public long max() {
+        return nanos[nanos.length - 1];
+    }
+
+    /**
+     * Returns the percentiles and the maximum, in nanoseconds.
+     */
+    @Override
+    public String toString() {
+        if (nanos.length == 0) {
+            return "no operations";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (double p : PERCENTILES) {
+            String name = p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p);
+            sb.append(String.format("p%s %d ns, ", name, percentile(p)));
+        }
+        return sb.append("max ").append(max()).append(" ns").toString();
+    }
+}
@@ -0,0 +1,130 @@
+package speed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import hashmap.Map61B;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapPQBuckets;
+import hashmap.MyHashMapTSBuckets;
+import hashmap.RobinHoodHashMap;
+
+/**
+ * Compares the hash maps on the same random <String, Integer> pairs,
+ * without user input. Usage:
+ * java speed.MapBenchmark [N] [L] [ROUNDS]
+ * which puts N (default 1000000) random strings of length L (default 10)
+ * into a new map of each kind, then gets each of them and a missing key
+ * per key, ROUNDS (default 5) times. Prints the best nanoseconds per
+ * operation, and the heap taken by a map per mapping, not counting the
+ * keys and values themselves.
+ *
+ * @author Vincent Ma
+ */
+public class MapBenchmark {
+
+    /**
+     * A kind of map to measure.
+     */
+    private static class Contender {
+        private final String name;
+        private final Supplier<Map61B<String, Integer>> factory;
+
+        Contender(String name, Supplier<Map61B<String, Integer>> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * Returns the maps to compare.
+     */
+    private static List<Contender> contenders() {
+        List<Contender> contenders = new ArrayList<>();
+        contenders.add(new Contender("MyHashMapALBuckets", MyHashMapALBuckets::new));
+        contenders.add(new Contender("MyHashMapLLBuckets", MyHashMapLLBuckets::new));
+        contenders.add(new Contender("MyHashMapTSBuckets", MyHashMapTSBuckets::new));
+        contenders.add(new Contender("MyHashMapHSBuckets", MyHashMapHSBuckets::new));
+        contenders.add(new Contender("MyHashMapPQBuckets", MyHashMapPQBuckets::new));
+        contenders.add(new Contender("RobinHoodHashMap", RobinHoodHashMap::new));
+        return contenders;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        StringUtils.setSeed(61);
+        String[] keys = new String[n];
+        String[] missing = new String[n];
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = StringUtils.randomString(length);
+            missing[i] = StringUtils.randomString(length + 1);
+            values[i] = i;
+        }
+
+        System.out.printf("%d random strings of length %d, best of %d rounds%n",
+                n, length, rounds);
+        System.out.printf("%-20s %10s %10s %10s %12s%n",
+                "map", "put ns", "get ns", "miss ns", "bytes/entry");
+        long sink = 0;
+        for (Contender contender : contenders()) {
+            double put = Double.MAX_VALUE;
+            double get = Double.MAX_VALUE;
+            double miss = Double.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                Map61B<String, Integer> map = contender.factory.get();
+                long start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    map.put(keys[i], values[i]);
+                }
+                put = Math.min(put, nanosPerOp(start, n));
+
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    sink += map.get(keys[i]);
+                }
+                get = Math.min(get, nanosPerOp(start, n));
+
+                start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    sink += map.containsKey(missing[i]) ? 1 : 0;
+                }
+                miss = Math.min(miss, nanosPerOp(start, n));
+            }
+
+            long before = usedMemory();
+            Map61B<String, Integer> map = contender.factory.get();
+            for (int i = 0; i < n; i++) {
+                map.put(keys[i], values[i]);
+            }
+            double bytes = (double) (usedMemory() - before) / n;
+            sink += map.size();
+
+            System.out.printf("%-20s %10.1f %10.1f %10.1f %12.1f%n",
+                    contender.name, put, get, miss, bytes);
+        }
+        // Keeps the lookups from being optimized away.
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    private static double nanosPerOp(long start, int n) {
+        return (double) (System.nanoTime() - start) / n;
+    }
+
+    /**
+     * Returns the bytes of heap in use, after collecting garbage.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,172 @@
+package speed;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the heap retained by an object, by walking the graph of the
+ * objects it reaches through reflection, and summing their sizes as laid
+ * out by a 64-bit HotSpot JVM: a 12-byte header, or 16 without compressed
+ * references, fields packed after it, arrays with a 4-byte length, and
+ * every object padded to a multiple of 8 bytes.
+ * <p>
+ * Static fields, Class objects, and the objects given as excluded, such
+ * as the keys and values held by a map, are not walked. On JDK 16 and
+ * later, reading the fields of java.util classes takes
+ * --add-opens java.base/java.util=ALL-UNNAMED
+ * --add-opens java.base/java.lang=ALL-UNNAMED
+ * on the command line.
+ *
+ * @author Vincent Ma
+ */
+public class ObjectSizer {
+
+    private static final boolean COMPRESSED_REFERENCES = compressedReferences();
+    private static final int HEADER = COMPRESSED_REFERENCES ? 12 : 16;
+    private static final int ARRAY_HEADER = HEADER + 4;
+    private static final int REFERENCE = COMPRESSED_REFERENCES ? 4 : 8;
+    private static final int ALIGNMENT = 8;
+
+    /**
+     * The shallow size and the reference fields of each class met so far.
+     */
+    private static final Map<Class<?>, Layout> LAYOUTS = new HashMap<>();
+
+    private static class Layout {
+        private final long size;
+        private final List<Field> references;
+
+        Layout(long size, List<Field> references) {
+            this.size = size;
+            this.references = references;
+        }
+    }
+
+    /**
+     * Returns the bytes of all objects reachable from ROOT, ROOT included,
+     * without walking into EXCLUDED objects.
+     */
+    public static long deepSizeOf(Object root, Set<Object> excluded) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> stack = new ArrayDeque<>();
+        stack.push(root);
+        long bytes = 0;
+        while (!stack.isEmpty()) {
+            Object o = stack.pop();
+            if (o instanceof Class || excluded.contains(o) || !visited.add(o)) {
+                continue;
+            }
+            Class<?> c = o.getClass();
+            if (c.isArray()) {
+                Class<?> component = c.getComponentType();
+                int length = Array.getLength(o);
+                bytes += align(ARRAY_HEADER + (long) length * sizeOf(component));
+                if (!component.isPrimitive()) {
+                    for (Object element : (Object[]) o) {
+                        if (element != null) {
+                            stack.push(element);
+                        }
+                    }
+                }
+                continue;
+            }
+            Layout layout = layoutOf(c);
+            bytes += layout.size;
+            for (Field f : layout.references) {
+                Object value;
+                try {
+                    value = f.get(o);
+                } catch (IllegalAccessException excp) {
+                    throw new IllegalStateException("cannot read " + f, excp);
+                }
+                if (value != null) {
+                    stack.push(value);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes of all objects reachable from ROOT, ROOT included.
+     */
+    public static long deepSizeOf(Object root) {
+        return deepSizeOf(root, Collections.emptySet());
+    }
+
+    private static Layout layoutOf(Class<?> c) {
+        Layout layout = LAYOUTS.get(c);
+        if (layout != null) {
+            return layout;
+        }
+        long fields = 0;
+        List<Field> references = new ArrayList<>();
+        for (Class<?> k = c; k != null; k = k.getSuperclass()) {
+            for (Field f : k.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers())) {
+                    continue;
+                }
+                fields += sizeOf(f.getType());
+                if (!f.getType().isPrimitive()) {
+                    try {
+                        f.setAccessible(true);
+                    } catch (RuntimeException excp) {
+                        throw new IllegalStateException("cannot read " + f
+                                + ", run with --add-opens "
+                                + k.getModule().getName() + "/" + k.getPackageName()
+                                + "=ALL-UNNAMED", excp);
+                    }
+                    references.add(f);
+                }
+            }
+        }
+        layout = new Layout(align(HEADER + fields), references);
+        LAYOUTS.put(c, layout);
+        return layout;
+    }
+
+    /**
+     * Returns the bytes taken by a field or an array element of type C.
+     */
+    private static int sizeOf(Class<?> c) {
+        if (c == long.class || c == double.class) {
+            return 8;
+        } else if (c == int.class || c == float.class) {
+            return 4;
+        } else if (c == short.class || c == char.class) {
+            return 2;
+        } else if (c == byte.class || c == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Returns true if this JVM uses compressed references, as it does by
+     * default for heaps below 32 GB.
+     */
+    private static boolean compressedReferences() {
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean bean = ManagementFactory
+                    .getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(bean.getVMOption("UseCompressedOops").getValue());
+        } catch (RuntimeException excp) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package speed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+import hashmap.OffHeapHashMap;
+
+/**
+ * Compares a MyHashMap from Strings to byte arrays with OffHeapHashMaps,
+ * in direct buffers and in files, without user input. Usage:
+ * java speed.OffHeapBenchmark [N] [V]
+ * which puts N (default 1000000) random strings of length 10 with random
+ * values of V (default 32) bytes into a new map of each kind, then gets
+ * each of them. Prints the nanoseconds per operation, the heap taken by
+ * the map per mapping, not counting the keys and values given to it, and
+ * the milliseconds of a full garbage collection with the map alive. The
+ * file-backed map is then closed and reopened, and the time this takes
+ * printed.
+ *
+ * @author Vincent Ma
+ */
+public class OffHeapBenchmark {
+
+    private static long sink = 0;
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int valueLength = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        StringUtils.setSeed(61);
+        String[] keys = new String[n];
+        byte[][] values = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            keys[i] = StringUtils.randomString(10);
+            values[i] = new byte[valueLength];
+            values[i][i % valueLength] = (byte) i;
+        }
+
+        System.out.printf("%d random strings of length 10 to %d bytes%n", n, valueLength);
+        System.out.printf("%-22s %10s %10s %12s %10s%n",
+                "map", "put ns", "get ns", "heap B/entry", "full GC ms");
+        run("MyHashMap", new MyHashMap<>(), keys, values);
+        run("OffHeapHashMap", new OffHeapHashMap(), keys, values);
+
+        Path dir = Files.createTempDirectory("offheap");
+        try {
+            OffHeapHashMap map = new OffHeapHashMap(dir);
+            run("OffHeapHashMap (file)", map, keys, values);
+            map.close();
+
+            long start = System.nanoTime();
+            map = new OffHeapHashMap(dir);
+            double reopen = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sink += map.get(keys[i]).length;
+            }
+            double firstGets = (double) (System.nanoTime() - start) / n;
+            System.out.printf("reopened %d entries in %.1f ms, first gets %.1f ns%n",
+                    map.size(), reopen, firstGets);
+            map.close();
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        // Keeps the lookups from being optimized away.
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    private static void run(String name, Map61B<String, byte[]> map, String[] keys,
+                            byte[][] values) {
+        int n = keys.length;
+        long before = usedMemory();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            map.put(keys[i], values[i]);
+        }
+        double put = (double) (System.nanoTime() - start) / n;
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            sink += map.get(keys[i]).length;
+        }
+        double get = (double) (System.nanoTime() - start) / n;
+
+        start = System.nanoTime();
+        double bytes = (double) (usedMemory() - before) / n;
+        double gc = (System.nanoTime() - start) / 1e6 / 3;
+        sink += map.size();
+
+        System.out.printf("%-22s %10.1f %10.1f %12.1f %10.1f%n",
+                name, put, get, bytes, gc);
+    }
+
+    /**
+     * Returns the bytes of heap in use, after three full collections.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
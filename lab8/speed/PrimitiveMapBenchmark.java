@@ -0,0 +1,274 @@
+package speed;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import hashmap.IntIntMyHashMap;
+import hashmap.LongObjectMyHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+import hashmap.RobinHoodHashMap;
+
+/**
+ * Compares the primitive-specialized maps with boxed maps on the same
+ * random keys, without user input. Usage:
+ * java speed.PrimitiveMapBenchmark [N] [ROUNDS]
+ * which puts N (default 1000000) random int keys into a new map of each
+ * kind, then gets each of them and a missing key per key, ROUNDS (default
+ * 5) times, and does the same with long keys. Prints the best nanoseconds
+ * per operation, the heap allocated per operation, and the heap taken by
+ * a map per mapping, counting the boxes it holds.
+ *
+ * @author Vincent Ma
+ */
+public class PrimitiveMapBenchmark {
+
+    /**
+     * The operations measured on a kind of map.
+     */
+    private interface Contender {
+        /** Creates a new empty map. */
+        void create();
+
+        /** Puts KEYS[i] to i, for each i. */
+        void putAll(long[] keys);
+
+        /** Returns the sum of the values of KEYS, 0 for missing ones. */
+        long getAll(long[] keys);
+
+        /** Returns the map created last. */
+        Object map();
+    }
+
+    /**
+     * A boxed Map61B from int keys to int values.
+     */
+    private static class BoxedInt implements Contender {
+        private final boolean robinHood;
+        private Map61B<Integer, Integer> map;
+
+        BoxedInt(boolean robinHood) {
+            this.robinHood = robinHood;
+        }
+
+        public void create() {
+            map = robinHood ? new RobinHoodHashMap<>() : new MyHashMap<>();
+        }
+
+        public void putAll(long[] keys) {
+            for (int i = 0; i < keys.length; i++) {
+                map.put((int) keys[i], i);
+            }
+        }
+
+        public long getAll(long[] keys) {
+            long sum = 0;
+            for (long key : keys) {
+                Integer value = map.get((int) key);
+                sum += value == null ? 0 : value;
+            }
+            return sum;
+        }
+
+        public Object map() {
+            return map;
+        }
+    }
+
+    private static class PrimitiveInt implements Contender {
+        private IntIntMyHashMap map;
+
+        public void create() {
+            map = new IntIntMyHashMap();
+        }
+
+        public void putAll(long[] keys) {
+            for (int i = 0; i < keys.length; i++) {
+                map.put((int) keys[i], i);
+            }
+        }
+
+        public long getAll(long[] keys) {
+            long sum = 0;
+            for (long key : keys) {
+                sum += map.get((int) key);
+            }
+            return sum;
+        }
+
+        public Object map() {
+            return map;
+        }
+    }
+
+    /**
+     * A boxed Map61B from long keys to String values.
+     */
+    private static class BoxedLong implements Contender {
+        private final String[] values;
+        private Map61B<Long, String> map;
+
+        BoxedLong(String[] values) {
+            this.values = values;
+        }
+
+        public void create() {
+            map = new MyHashMap<>();
+        }
+
+        public void putAll(long[] keys) {
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], values[i]);
+            }
+        }
+
+        public long getAll(long[] keys) {
+            long sum = 0;
+            for (long key : keys) {
+                String value = map.get(key);
+                sum += value == null ? 0 : value.length();
+            }
+            return sum;
+        }
+
+        public Object map() {
+            return map;
+        }
+    }
+
+    private static class PrimitiveLong implements Contender {
+        private final String[] values;
+        private LongObjectMyHashMap<String> map;
+
+        PrimitiveLong(String[] values) {
+            this.values = values;
+        }
+
+        public void create() {
+            map = new LongObjectMyHashMap<>();
+        }
+
+        public void putAll(long[] keys) {
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], values[i]);
+            }
+        }
+
+        public long getAll(long[] keys) {
+            long sum = 0;
+            for (long key : keys) {
+                String value = map.get(key);
+                sum += value == null ? 0 : value.length();
+            }
+            return sum;
+        }
+
+        public Object map() {
+            return map;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        if (ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean) {
+            threads = (com.sun.management.ThreadMXBean)
+                    ManagementFactory.getThreadMXBean();
+        }
+
+        Random random = new Random(61);
+        long[] intKeys = new long[n];
+        long[] intMissing = new long[n];
+        long[] longKeys = new long[n];
+        long[] longMissing = new long[n];
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            // Even keys are put, odd ones are missing.
+            intKeys[i] = random.nextInt() & ~1;
+            intMissing[i] = random.nextInt() | 1;
+            longKeys[i] = random.nextLong() & ~1L;
+            longMissing[i] = random.nextLong() | 1L;
+            values[i] = Integer.toString(i);
+        }
+
+        System.out.printf("%d random keys, best of %d rounds%n", n, rounds);
+        System.out.printf("%-26s %8s %8s %8s %10s %10s %12s%n", "map",
+                "put ns", "get ns", "miss ns", "put B/op", "get B/op",
+                "bytes/entry");
+        run("MyHashMap<Integer>", new BoxedInt(false), intKeys, intMissing, rounds);
+        run("RobinHoodHashMap<Integer>", new BoxedInt(true), intKeys, intMissing, rounds);
+        run("IntIntMyHashMap", new PrimitiveInt(), intKeys, intMissing, rounds);
+        run("MyHashMap<Long>", new BoxedLong(values), longKeys, longMissing, rounds);
+        run("LongObjectMyHashMap", new PrimitiveLong(values), longKeys, longMissing, rounds);
+        // Keeps the lookups from being optimized away.
+        System.out.printf("(checksum %d)%n", sink);
+    }
+
+    private static void run(String name, Contender contender, long[] keys,
+                            long[] missing, int rounds) {
+        int n = keys.length;
+        double put = Double.MAX_VALUE;
+        double get = Double.MAX_VALUE;
+        double miss = Double.MAX_VALUE;
+        double putBytes = Double.MAX_VALUE;
+        double getBytes = Double.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            contender.create();
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            contender.putAll(keys);
+            put = Math.min(put, nanosPerOp(start, n));
+            putBytes = Math.min(putBytes,
+                    (double) (allocatedBytes() - allocated) / n);
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            sink += contender.getAll(keys);
+            get = Math.min(get, nanosPerOp(start, n));
+            getBytes = Math.min(getBytes,
+                    (double) (allocatedBytes() - allocated) / n);
+
+            start = System.nanoTime();
+            sink += contender.getAll(missing);
+            miss = Math.min(miss, nanosPerOp(start, n));
+        }
+
+        contender.create();
+        long before = usedMemory();
+        contender.putAll(keys);
+        double bytes = (double) (usedMemory() - before) / n;
+        sink += contender.map().hashCode();
+
+        System.out.printf("%-26s %8.1f %8.1f %8.1f %10.1f %10.1f %12.1f%n",
+                name, put, get, miss, putBytes, getBytes, bytes);
+    }
+
+    private static double nanosPerOp(long start, int n) {
+        return (double) (System.nanoTime() - start) / n;
+    }
+
+    /**
+     * Returns the bytes of heap allocated by this thread so far, or 0 if
+     * the JVM does not tell.
+     */
+    private static long allocatedBytes() {
+        return threads == null
+                ? 0 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns the bytes of heap in use, after collecting garbage.
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,63 @@
+package speed;
+
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/**
+ * Compares the latency of single puts into a MyHashMap resizing all at
+ * once and into one resizing incrementally, without user input. Usage:
+ * java speed.ResizeLatencyBenchmark [N] [ROUNDS]
+ * which times each of N (default 4000000) puts of distinct keys into a
+ * new map of each kind, ROUNDS (default 3) times, and prints the
+ * percentiles and the maximum of the put latencies of the last round,
+ * along with the total time of each round.
+ *
+ * @author Vincent Ma
+ */
+public class ResizeLatencyBenchmark {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 4000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i * 31;
+        }
+
+        System.out.printf("%d puts, latencies in ns of round %d%n", n, rounds);
+        System.out.printf("%-12s", "resize");
+        for (double p : PERCENTILES) {
+            System.out.printf(" %10s", "p" + p);
+        }
+        System.out.printf(" %12s %10s%n", "max", "total ms");
+        run("all at once", false, keys, rounds);
+        run("incremental", true, keys, rounds);
+    }
+
+    private static void run(String name, boolean incremental, Integer[] keys,
+                            int rounds) {
+        int n = keys.length;
+        long[] latencies = new long[n];
+        double total = 0;
+        for (int r = 0; r < rounds; r++) {
+            Map61B<Integer, Integer> map = new MyHashMap<>(16, 0.75, incremental);
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                long start = System.nanoTime();
+                map.put(keys[i], keys[i]);
+                latencies[i] = System.nanoTime() - start;
+            }
+            total = (System.nanoTime() - roundStart) / 1e6;
+        }
+
+        Latencies last = Latencies.of(latencies);
+        System.out.printf("%-12s", name);
+        for (double p : PERCENTILES) {
+            System.out.printf(" %10d", last.percentile(p));
+        }
+        System.out.printf(" %12d %10.0f%n", last.max(), total);
+    }
+}
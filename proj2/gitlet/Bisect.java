@@ -0,0 +1,462 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.*;
+
+import static gitlet.Utils.*;
+
+/**
+ * Represents a bisect in progress, searching the first bad commit between
+ * good and bad ones. It is saved in .gitlet/BISECT from bisect start to
+ * bisect reset. While it is saved, the working directory holds the files
+ * of the commit being tested, and the branches are left alone.
+ *
+ * @author Vincent Ma
+ */
+public class Bisect implements Serializable, Dumpable {
+    /**
+     * Fixed so that a bisect in progress can still be read after a field
+     * of this class changes.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The file storing the bisect object.
+     */
+    private static final File BISECT_FILE =
+            join(Repository.GITLET_DIR, "BISECT");
+
+    /**
+     * The exit code of a bisect run script meaning the commit can not be
+     * tested.
+     */
+    private static final int SKIP_CODE = 125;
+
+    /**
+     * The head commit id when the bisect started.
+     */
+    private final String startCommitId;
+
+    /**
+     * The id of the commit whose files are in the working directory.
+     */
+    private String curCommitId;
+
+    /**
+     * The files tracked in the commit with cur commit id, read at most
+     * once per command.
+     */
+    private transient Map<String, String> curTracked;
+
+    /**
+     * The id of the bad commit, or null if not given yet.
+     */
+    private String badCommitId;
+
+    /**
+     * The ids of the good commits.
+     */
+    private final TreeSet<String> goodCommitIds = new TreeSet<>();
+
+    /**
+     * The ids of the commits which can not be tested.
+     */
+    private final TreeSet<String> skippedCommitIds = new TreeSet<>();
+
+    /**
+     * The id of the first bad commit, once it is found.
+     */
+    private String firstBadCommitId;
+
+    /**
+     * The ids of the commits reachable from the bad commit but not from
+     * the good ones when they were last computed, parents first, or null
+     * if they have to be computed again. A candidate is known by its
+     * index in this array.
+     */
+    private String[] candidateIds;
+
+    /**
+     * The candidates which may still be the first bad one.
+     */
+    private EwahBitmap remaining;
+
+    /**
+     * The candidates in remaining reached by each candidate in remaining,
+     * itself included, or null for the others.
+     */
+    private EwahBitmap[] reaches;
+
+    private Bisect(String startCommitId) {
+        this.startCommitId = startCommitId;
+        this.curCommitId = startCommitId;
+    }
+
+    /**
+     * Returns if a bisect is in progress.
+     */
+    public static boolean isBisecting() {
+        return BISECT_FILE.isFile();
+    }
+
+    /**
+     * Gets the Bisect in progress, quitting if there is none.
+     */
+    public static Bisect getCurBisect() {
+        if (!isBisecting()) {
+            Repository.exit("Not bisecting.");
+        }
+        return readObject(BISECT_FILE, Bisect.class);
+    }
+
+    /**
+     * gitlet.Main bisect start
+     * <p>
+     * Starts a bisect at the head commit of the project.
+     */
+    public static void start() {
+        if (isBisecting()) {
+            Repository.exit("Already bisecting.");
+        }
+        String headId = Repository.resolveCommitId(Head.getHeadBranchName());
+        checkUnchanged(CommitTree.read(headId));
+        new Bisect(headId).save();
+    }
+
+    /**
+     * gitlet.Main bisect reset
+     * <p>
+     * Ends the bisect, putting back the files of the commit it started
+     * from.
+     */
+    public static void reset() {
+        Bisect bisect = getCurBisect();
+        checkUnchanged(bisect.getCurTracked());
+        Repository.checkoutChanges(bisect.getCurTracked(),
+                CommitTree.read(bisect.startCommitId));
+        BISECT_FILE.delete();
+    }
+
+    /**
+     * Marks the commit with COMMIT ID as bad, or the commit being tested
+     * if COMMIT ID is null, then moves on to the next commit to test.
+     */
+    public void markBad(String commitId) {
+        checkUnchanged(getCurTracked());
+        setBad(resolve(commitId));
+        next();
+    }
+
+    /**
+     * Marks the commit with COMMIT ID as good, or the commit being tested
+     * if COMMIT ID is null, then moves on to the next commit to test.
+     */
+    public void markGood(String commitId) {
+        checkUnchanged(getCurTracked());
+        addGood(resolve(commitId));
+        next();
+    }
+
+    /**
+     * Marks the commit with COMMIT ID as untestable, or the commit being
+     * tested if COMMIT ID is null, then moves on to the next commit to test.
+     */
+    public void markSkipped(String commitId) {
+        checkUnchanged(getCurTracked());
+        skippedCommitIds.add(resolve(commitId));
+        next();
+    }
+
+    /**
+     * Makes the commit with COMMIT ID the bad one. If it is a candidate,
+     * the candidates left are those it reaches.
+     */
+    private void setBad(String commitId) {
+        badCommitId = commitId;
+        int candidate = indexOf(commitId);
+        if (candidate < 0) {
+            candidateIds = null;
+        } else {
+            shrink(reaches[candidate]);
+        }
+    }
+
+    /**
+     * Adds the commit with COMMIT ID to the good ones. If it is a
+     * candidate, those it reaches are not candidates anymore.
+     */
+    private void addGood(String commitId) {
+        goodCommitIds.add(commitId);
+        int candidate = indexOf(commitId);
+        if (candidate < 0) {
+            candidateIds = null;
+        } else {
+            shrink(remaining.andNot(reaches[candidate]));
+        }
+    }
+
+    /**
+     * gitlet.Main bisect run [script] [args...]
+     * <p>
+     * Runs COMMAND in the working directory on each commit to test, until
+     * the first bad commit is found. The commit is good if COMMAND exits
+     * with 0, untestable if it exits with 125, and bad if it exits with
+     * any other code below 128. Other codes abort the run.
+     */
+    public void run(List<String> command) {
+        if (badCommitId == null || goodCommitIds.isEmpty()) {
+            Repository.exit("You need to give at least one bad"
+                    + " and one good commit.");
+        }
+        List<String> cmd = new ArrayList<>(command);
+        String script = cmd.get(0);
+        if (script.contains(File.separator) && !new File(script).isAbsolute()) {
+            cmd.set(0, join(Repository.CWD, script).getPath());
+        }
+        while (firstBadCommitId == null) {
+            System.out.println("running " + String.join(" ", command));
+            Staging.unlock();
+            int code = runScript(cmd);
+            checkUnchanged(getCurTracked());
+            String commitId = curCommitId;
+            if (code == 0) {
+                addGood(commitId);
+            } else if (code == SKIP_CODE) {
+                skippedCommitIds.add(commitId);
+            } else if (code > 0 && code < 128) {
+                setBad(commitId);
+            } else {
+                save();
+                Repository.exit("bisect run failed: exit code " + code
+                        + " from " + String.join(" ", command));
+            }
+            if (!next()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Runs CMD in the working directory, copying its output to
+     * System.out, and returns its exit code.
+     */
+    private static int runScript(List<String> cmd) {
+        try {
+            Process process = new ProcessBuilder(cmd)
+                    .directory(Repository.CWD)
+                    .redirectErrorStream(true)
+                    .start();
+            try (InputStream out = process.getInputStream()) {
+                out.transferTo(System.out);
+            }
+            System.out.flush();
+            return process.waitFor();
+        } catch (IOException excp) {
+            throw error("bisect run failed: %s", excp.getMessage());
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            throw error("bisect run interrupted");
+        }
+    }
+
+    /**
+     * Returns the full id of the commit with COMMIT ID, or at the head of
+     * the branch named COMMIT ID, or of the commit being tested if COMMIT
+     * ID is null.
+     */
+    private String resolve(String commitId) {
+        if (commitId == null) {
+            return curCommitId;
+        }
+        return Repository.resolveCommitId(commitId);
+    }
+
+    /**
+     * Returns the files tracked in the commit whose files are in the
+     * working directory.
+     */
+    private Map<String, String> getCurTracked() {
+        if (curTracked == null) {
+            curTracked = CommitTree.read(curCommitId);
+        }
+        return curTracked;
+    }
+
+    /**
+     * Checks out the next commit to test, or reports the first bad commit
+     * if it is known, and saves this Bisect.
+     *
+     * @return True if there are more commits to test.
+     */
+    private boolean next() {
+        try {
+            if (badCommitId == null || goodCommitIds.isEmpty()) {
+                return false;
+            }
+            if (candidateIds == null) {
+                findCandidates();
+            }
+            int[] left = remaining.toArray();
+            int n = left.length;
+            if (n == 0) {
+                Repository.exit("The bad commit is an ancestor of a good commit.");
+            }
+            if (n == 1) {
+                firstBadCommitId = badCommitId;
+                System.out.println(badCommitId + " is the first bad commit");
+                CommitHeader.read(badCommitId).printLog();
+                return false;
+            }
+
+            int best = -1;
+            long bestReach = 0;
+            long bestDistance = Long.MAX_VALUE;
+            for (int candidate : left) {
+                String id = candidateIds[candidate];
+                if (id.equals(badCommitId) || skippedCommitIds.contains(id)) {
+                    continue;
+                }
+                long reach = reaches[candidate].cardinality();
+                long distance = Math.abs(2 * reach - n);
+                if (distance < bestDistance) {
+                    best = candidate;
+                    bestReach = reach;
+                    bestDistance = distance;
+                }
+            }
+            if (best < 0) {
+                System.out.println("There are only 'skip'ped commits left"
+                        + " to test.");
+                System.out.println("The first bad commit could be any of:");
+                for (int candidate : left) {
+                    System.out.println(candidateIds[candidate]);
+                }
+                return false;
+            }
+
+            long untested = Math.max(bestReach - 1, n - bestReach - 1);
+            int steps = 64 - Long.numberOfLeadingZeros(untested);
+            Map<String, String> next = CommitTree.read(candidateIds[best]);
+            Repository.checkoutChanges(getCurTracked(), next);
+            curCommitId = candidateIds[best];
+            curTracked = next;
+            System.out.println("Bisecting: " + untested + " revisions left to"
+                    + " test after this (roughly " + steps + " steps)");
+            System.out.println("[" + curCommitId + "] "
+                    + CommitHeader.read(curCommitId).getMessage());
+            return true;
+        } finally {
+            save();
+        }
+    }
+
+    /**
+     * Computes the candidates from the commit graph: the commits reachable
+     * from the bad commit but not from the good ones. The graph numbers
+     * parents first, so the candidates reached by each candidate are built
+     * in one pass, from those of its parents.
+     */
+    private void findCandidates() {
+        CommitGraph graph = CommitGraph.getCommitGraph();
+        EwahBitmap candidates = graph.reachable(badCommitId);
+        for (String goodId : goodCommitIds) {
+            candidates = candidates.andNot(graph.reachable(goodId));
+        }
+        int[] positions = candidates.toArray();
+        candidateIds = new String[positions.length];
+        reaches = new EwahBitmap[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            candidateIds[i] = graph.idAt(positions[i]);
+            EwahBitmap reach = EwahBitmap.singleton(i);
+            for (int parent : graph.parentsAt(positions[i])) {
+                int j = Arrays.binarySearch(positions, 0, i, parent);
+                if (j >= 0) {
+                    reach = reach.or(reaches[j]);
+                }
+            }
+            reaches[i] = reach;
+        }
+        remaining = EwahBitmap.range(positions.length);
+        graph.save();
+    }
+
+    /**
+     * Returns the index of the remaining candidate with COMMIT ID, or -1 if
+     * it is not one or the candidates have to be computed again.
+     */
+    private int indexOf(String commitId) {
+        if (candidateIds == null) {
+            return -1;
+        }
+        for (int candidate : remaining.toArray()) {
+            if (candidateIds[candidate].equals(commitId)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Keeps only the candidates in LEFT, a subset of remaining, and what
+     * each of them reaches among them.
+     */
+    private void shrink(EwahBitmap left) {
+        for (int candidate : remaining.toArray()) {
+            reaches[candidate] = left.get(candidate)
+                    ? reaches[candidate].and(left) : null;
+        }
+        remaining = left;
+    }
+
+    /**
+     * Quits if files are staged, or if a file in TRACKED, the files of the
+     * commit in the working directory, was changed or deleted there:
+     * checking out another commit would silently lose the change.
+     */
+    private static void checkUnchanged(Map<String, String> tracked) {
+        Staging staging = Staging.getCurStaging();
+        boolean changed = !staging.isEmpty();
+        SparseCheckout sparse = SparseCheckout.getCurSparse();
+        for (Map.Entry<String, String> entry : tracked.entrySet()) {
+            if (changed) {
+                break;
+            }
+            if (!SparseCheckout.includes(sparse, entry.getKey())) {
+                continue;
+            }
+            File file = join(Repository.CWD, entry.getKey());
+            changed = !file.isFile()
+                    || !new Blob(file, staging).getSha1().equals(entry.getValue());
+        }
+        staging.saveStamps();
+        if (changed) {
+            Repository.exit("You have uncommitted changes.");
+        }
+    }
+
+    /**
+     * Saves current Bisect to .gitlet/BISECT.
+     */
+    public void save() {
+        writeObject(BISECT_FILE, this);
+    }
+
+    /**
+     * Print useful information about this object on System.out.
+     */
+    @Override
+    public void dump() {
+        System.out.println("start=" + startCommitId);
+        System.out.println("current=" + curCommitId);
+        System.out.println("bad=" + badCommitId);
+        System.out.println("good=" + goodCommitIds);
+        System.out.println("skipped=" + skippedCommitIds);
+        if (candidateIds != null) {
+            System.out.println("candidates=" + remaining.cardinality()
+                    + " of " + candidateIds.length);
+        }
+    }
+}
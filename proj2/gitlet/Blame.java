@@ -0,0 +1,231 @@
+package gitlet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+import static gitlet.Utils.*;
+
+/**
+ * Finds the commit which last changed each line of a file, walking the
+ * first parents from the head commit.
+ * <p>
+ * The lines not attributed yet are kept as ranges of the version being
+ * looked at. Going from a commit to its parent, the ranges are matched
+ * against the lines the two versions have in common: common lines are
+ * carried to the parent, the others are attributed to the commit. A
+ * parent with the same blob carries every range as it is, without any
+ * diff. The walk stops once every line is attributed.
+ * <p>
+ * Commits hold their parents, so the head commit gives the whole history
+ * without reading any other commit. Each blob is read and split into
+ * lines once, equal lines of all versions sharing one int so that the
+ * diff compares ints.
+ *
+ * @author Vincent Ma
+ */
+public class Blame {
+    /**
+     * The format of the dates in the blame.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss Z")
+            .withZone(ZoneId.systemDefault());
+
+    /**
+     * The name of the file being blamed.
+     */
+    private final String filename;
+
+    /**
+     * Casts each distinct line to its int.
+     */
+    private final Map<String, Integer> lineIds = new HashMap<>();
+
+    /**
+     * Casts blob ids to their lines, as ints.
+     */
+    private final Map<String, int[]> blobLines = new HashMap<>();
+
+    /**
+     * The lines of the file in the head commit.
+     */
+    private String[] lines;
+
+    /**
+     * The commit each line of the file in the head commit comes from.
+     */
+    private Commit[] origins;
+
+    private Blame(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * gitlet.Main blame [file name]
+     * <p>
+     * Prints each line of the file as in the head commit, after the
+     * abbreviated id and the date of the commit which last changed it.
+     */
+    public static void blame(String filename) {
+        Commit head = Commit.getProjectHeadCommit();
+        String sha = head.getTrackedMap().get(filename);
+        if (sha == null) {
+            Repository.exit("File does not exist in that commit.");
+        }
+        Blame blame = new Blame(filename);
+        blame.attribute(head, sha);
+        blame.print();
+    }
+
+    /**
+     * Attributes the lines of blob SHA, the version of the file in commit
+     * HEAD.
+     */
+    private void attribute(Commit head, String sha) {
+        lines = split(sha);
+        origins = new Commit[lines.length];
+        int[] curLines = intern(sha, lines);
+
+        // {start in the current version, start in the head version, length}
+        List<int[]> ranges = new ArrayList<>();
+        if (lines.length > 0) {
+            ranges.add(new int[]{0, 0, lines.length});
+        }
+        Commit commit = head;
+        while (!ranges.isEmpty()) {
+            Commit parent = commit.hasParents() ? commit.getParents()[0] : null;
+            String parentSha = parent == null
+                    ? null : parent.getTrackedMap().get(filename);
+            if (parentSha == null) {
+                for (int[] range : ranges) {
+                    assign(range[1], range[2], commit);
+                }
+                break;
+            }
+            if (!parentSha.equals(sha)) {
+                int[] parentLines = getLines(parentSha);
+                ranges = carry(ranges, Diff.matches(parentLines, curLines),
+                        commit);
+                curLines = parentLines;
+                sha = parentSha;
+            }
+            commit = parent;
+        }
+    }
+
+    /**
+     * Returns the RANGES of the current version moved to the parent
+     * version through the common BLOCKS, attributing to COMMIT the lines
+     * of RANGES out of BLOCKS. Both are in order.
+     */
+    private List<int[]> carry(List<int[]> ranges, List<int[]> blocks,
+                              Commit commit) {
+        List<int[]> carried = new ArrayList<>();
+        int i = 0;
+        for (int[] range : ranges) {
+            int start = range[0];
+            int end = range[0] + range[2];
+            int headStart = range[1];
+            while (start < end) {
+                while (i < blocks.size()
+                        && blocks.get(i)[1] + blocks.get(i)[2] <= start) {
+                    i += 1;
+                }
+                if (i == blocks.size() || blocks.get(i)[1] >= end) {
+                    assign(headStart, end - start, commit);
+                    break;
+                }
+                int[] block = blocks.get(i);
+                if (block[1] > start) {
+                    // not in common: changed by COMMIT.
+                    int n = block[1] - start;
+                    assign(headStart, n, commit);
+                    start += n;
+                    headStart += n;
+                }
+                int n = Math.min(end, block[1] + block[2]) - start;
+                int parentStart = block[0] + start - block[1];
+                int[] last = carried.isEmpty()
+                        ? null : carried.get(carried.size() - 1);
+                if (last != null && last[0] + last[2] == parentStart
+                        && last[1] + last[2] == headStart) {
+                    last[2] += n;
+                } else {
+                    carried.add(new int[]{parentStart, headStart, n});
+                }
+                start += n;
+                headStart += n;
+            }
+        }
+        return carried;
+    }
+
+    private void assign(int headStart, int length, Commit commit) {
+        Arrays.fill(origins, headStart, headStart + length, commit);
+    }
+
+    /**
+     * Returns the lines of blob SHA, as ints.
+     */
+    private int[] getLines(String sha) {
+        int[] ids = blobLines.get(sha);
+        return ids != null ? ids : intern(sha, split(sha));
+    }
+
+    /**
+     * Returns TEXT, the lines of blob SHA, as ints, and caches them.
+     */
+    private int[] intern(String sha, String[] text) {
+        int[] ids = new int[text.length];
+        for (int i = 0; i < text.length; i++) {
+            Integer id = lineIds.putIfAbsent(text[i], lineIds.size());
+            ids[i] = id == null ? lineIds.size() - 1 : id;
+        }
+        blobLines.put(sha, ids);
+        return ids;
+    }
+
+    /**
+     * Returns the lines of blob SHA, without their line terminators.
+     */
+    private static String[] split(String sha) {
+        String contents = new String(readContents(Blob.getBlobFile(sha)),
+                StandardCharsets.UTF_8);
+        if (contents.isEmpty()) {
+            return new String[0];
+        }
+        if (contents.endsWith("\n")) {
+            contents = contents.substring(0, contents.length() - 1);
+        }
+        return contents.split("\n", -1);
+    }
+
+    /**
+     * Prints the lines with their commits, through one buffered writer.
+     */
+    private void print() {
+        int width = Integer.toString(lines.length).length();
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(System.out), 1 << 16);
+        try {
+            for (int i = 0; i < lines.length; i++) {
+                Commit origin = origins[i];
+                out.write(origin.getCommitId(), 0, 7);
+                out.write(" (");
+                DATE_FORMAT.formatTo(origin.getDate().toInstant(), out);
+                out.write(String.format(" %" + width + "d) ", i + 1));
+                out.write(lines[i]);
+                out.write(System.lineSeparator());
+            }
+            out.flush();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+}
@@ -36,6 +36,17 @@ public class Blob implements Serializable {
         blobFile = join(Repository.OBJECTS_DIR, sha1);
     }
 
+    /**
+     * Creates a Blob of FILE in the working directory, taking its sha1
+     * from the stamps in STAGING when the file has not changed.
+     */
+    public Blob(File file, Staging staging) {
+        assert file.isFile();
+        this.storedFile = file;
+        sha1 = staging.getSha1(file);
+        blobFile = join(Repository.OBJECTS_DIR, sha1);
+    }
+
     /**
      * Gets Blob File via sha1.
      */
@@ -3,7 +3,6 @@ package gitlet;
 
 import java.io.File;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 import static gitlet.Utils.*;
@@ -15,16 +14,18 @@ import static gitlet.Utils.*;
  */
 public class Commit implements Serializable, Dumpable {
     /**
-     * The initial commit for the repo.
+     * The serialVersionUID Java computed for Commit before it was fixed,
+     * which the commits of existing repositories were saved with.
      */
-    public static final Commit INIT_COMMIT = new Commit("initial commit");
-
+    private static final long serialVersionUID = -2215266894606813893L;
 
     /**
-     * The format used in the log printing.
+     * The initial commit for the repo, which tracks no file whatever is
+     * staged, so that using it does not lock the index.
      */
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat(
-            "EEE MMM d HH:mm:ss yyyy Z");
+    public static final Commit INIT_COMMIT =
+            new Commit("initial commit", new Staging());
+
 
     /**
      * The message of this Commit.
@@ -62,6 +63,14 @@ public class Commit implements Serializable, Dumpable {
      *                If it's 0, the commit is an initial commit.
      */
     public Commit(String message, Commit... parents) {
+        this(message, Staging.getCurStaging(), parents);
+    }
+
+    /**
+     * Creates a Commit by given MESSAGE and PARENTS from STAGING, which
+     * may not be saved yet.
+     */
+    public Commit(String message, Staging staging, Commit... parents) {
         this.message = message;
         this.parents = parents;
         if (parents.length == 0) {
@@ -73,7 +82,6 @@ public class Commit implements Serializable, Dumpable {
             trackedMap = new TreeMap<>(parents[0].trackedMap);
         }
 
-        Staging staging = Staging.getCurStaging();
         Map<String, String> additional = staging.getAdditionalMap();
         Set<String> removal = staging.getRemovalSet();
 
@@ -242,11 +250,14 @@ public class Commit implements Serializable, Dumpable {
     }
 
     /**
-     * Saves this Commit to /.gitlet/objects/ID.
+     * Saves this Commit to /.gitlet/objects/ID, its header to
+     * /.gitlet/headers/ID and its tracked files to /.gitlet/trees/ID.
      */
     public void save() {
         File blob = join(Repository.COMMITS_DIR, commitId);
         writeObject(blob, this);
+        CommitHeader.of(this).save();
+        CommitTree.save(commitId, trackedMap);
     }
 
     /**
@@ -255,16 +266,7 @@ public class Commit implements Serializable, Dumpable {
      * indicating its parents.
      */
     public void printLog() {
-        System.out.println("===");
-        System.out.println("commit " + commitId);
-        if (parents.length == 2) {
-            // This is a merged commit.
-            System.out.println("Merge: " + parents[0].commitId.substring(0, 7)
-                    + " " + parents[1].commitId.substring(0, 7));
-        }
-        System.out.println("Date: " + DATE_FORMAT.format(date));
-        System.out.println(message);
-        System.out.println();
+        CommitHeader.of(this).printLog();
     }
 
     /**
@@ -0,0 +1,269 @@
+package gitlet;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+
+import static gitlet.Utils.*;
+
+/**
+ * Represents the commit index, numbering the commits so that every commit
+ * comes after its parents, and the reachability bitmaps of branch tips.
+ * It is saved in .gitlet/commit-graph.
+ * <p>
+ * The bitmap of a commit has the positions of the commits reachable from
+ * it, itself included. Whether a commit is an ancestor of another is then
+ * a bit lookup, and the commits on a branch but not on another are a
+ * bitmap difference. Ancestors are numbered first, so these bitmaps are
+ * mostly long runs and compress well.
+ * <p>
+ * The index is brought up to date when it is used, walking the headers of
+ * the commits not numbered yet. The bitmap of a commit which is not a
+ * branch tip is computed by walking its ancestors down to the first ones
+ * having a bitmap. The bitmap of the tip of each branch is kept, by branch,
+ * and dropped once the branch moves or is removed, so at most one bitmap
+ * per branch is saved.
+ * <p>
+ * The graph only caches what the commits say: a graph which can not be
+ * read, as one saved by another version of this class, is built again.
+ *
+ * @author Vincent Ma
+ */
+public class CommitGraph implements Serializable, Dumpable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The file storing the commit graph.
+     */
+    private static final File GRAPH_FILE =
+            join(Repository.GITLET_DIR, "commit-graph");
+
+    /**
+     * The commit ids, by position.
+     */
+    private final ArrayList<String> ids = new ArrayList<>();
+
+    /**
+     * The positions of the parents of each commit, by position.
+     */
+    private final ArrayList<int[]> parents = new ArrayList<>();
+
+    /**
+     * Casts commit ids to their positions.
+     */
+    private final HashMap<String, Integer> positions = new HashMap<>();
+
+    /**
+     * Casts branch names to the bitmaps of their tips.
+     */
+    private final HashMap<String, EwahBitmap> bitmaps = new HashMap<>();
+
+    /**
+     * Casts branch names to the ids of the tips their bitmaps are of.
+     */
+    private final HashMap<String, String> bitmapIds = new HashMap<>();
+
+    /**
+     * Casts branch names to their head commit ids, read once by heads().
+     */
+    private transient Map<String, String> heads;
+
+    /**
+     * If this graph changed since it was read.
+     */
+    private transient boolean changed;
+
+    /**
+     * Gets the commit graph from .gitlet/commit-graph, or an empty one if
+     * there is none yet.
+     */
+    public static CommitGraph getCommitGraph() {
+        if (!GRAPH_FILE.isFile()) {
+            return new CommitGraph();
+        }
+        try {
+            return readObject(GRAPH_FILE, CommitGraph.class);
+        } catch (IllegalArgumentException excp) {
+            // saved by another version; numbered again when used
+            return new CommitGraph();
+        }
+    }
+
+    /**
+     * Returns the position of the commit with full COMMIT ID, numbering it
+     * and its ancestors first if needed.
+     */
+    public int position(String commitId) {
+        Integer position = positions.get(commitId);
+        if (position != null) {
+            return position;
+        }
+        // Numbers the commits after their parents, in post-order.
+        Deque<CommitHeader> stack = new ArrayDeque<>();
+        stack.push(CommitHeader.read(commitId));
+        while (!stack.isEmpty()) {
+            CommitHeader header = stack.peek();
+            if (positions.containsKey(header.getCommitId())) {
+                stack.pop();
+                continue;
+            }
+            String[] parentIds = header.getParentIds();
+            boolean ready = true;
+            for (String parentId : parentIds) {
+                if (!positions.containsKey(parentId)) {
+                    stack.push(CommitHeader.read(parentId));
+                    ready = false;
+                }
+            }
+            if (ready) {
+                stack.pop();
+                int[] parentPositions = new int[parentIds.length];
+                for (int i = 0; i < parentIds.length; i++) {
+                    parentPositions[i] = positions.get(parentIds[i]);
+                }
+                positions.put(header.getCommitId(), ids.size());
+                ids.add(header.getCommitId());
+                parents.add(parentPositions);
+            }
+        }
+        changed = true;
+        return positions.get(commitId);
+    }
+
+    /**
+     * Returns the full id of the commit at POSITION.
+     */
+    public String idAt(int position) {
+        return ids.get(position);
+    }
+
+    /**
+     * Returns the positions of the parents of the commit at POSITION,
+     * which are all below POSITION.
+     */
+    public int[] parentsAt(int position) {
+        return parents.get(position);
+    }
+
+    /**
+     * Returns the bitmap of the commits reachable from the commit with
+     * full COMMIT ID, itself included. The bitmap is kept if the commit is
+     * the head of a branch.
+     */
+    public EwahBitmap reachable(String commitId) {
+        Map<String, String> heads = heads();
+        Map<Integer, EwahBitmap> tips = new HashMap<>();
+        for (Map.Entry<String, String> entry : bitmapIds.entrySet()) {
+            if (entry.getValue().equals(commitId)) {
+                return bitmaps.get(entry.getKey());
+            }
+            tips.put(position(entry.getValue()), bitmaps.get(entry.getKey()));
+        }
+        int start = position(commitId);
+        long[] words = new long[(start >>> 6) + 1];
+        List<EwahBitmap> known = new ArrayList<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            int p = stack.pop();
+            if ((words[p >>> 6] & (1L << p)) != 0) {
+                continue;
+            }
+            words[p >>> 6] |= 1L << p;
+            EwahBitmap ancestors = tips.get(p);
+            if (ancestors != null) {
+                known.add(ancestors);
+                continue;
+            }
+            for (int parent : parents.get(p)) {
+                stack.push(parent);
+            }
+        }
+        EwahBitmap bitmap = EwahBitmap.of(words);
+        for (EwahBitmap ancestors : known) {
+            bitmap = bitmap.or(ancestors);
+        }
+        for (Map.Entry<String, String> head : heads.entrySet()) {
+            if (head.getValue().equals(commitId)) {
+                bitmaps.put(head.getKey(), bitmap);
+                bitmapIds.put(head.getKey(), commitId);
+                changed = true;
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns if the commit with ANCESTOR ID is reachable from the commit
+     * with DESCENDANT ID. Both ids are full.
+     */
+    public boolean isAncestor(String ancestorId, String descendantId) {
+        return reachable(descendantId).get(position(ancestorId));
+    }
+
+    /**
+     * Returns the number of commits reachable from the commit with
+     * INCLUDED ID but not from the commit with EXCLUDED ID, which may be
+     * null. Both ids are full.
+     */
+    public long count(String excludedId, String includedId) {
+        EwahBitmap included = reachable(includedId);
+        if (excludedId == null) {
+            return included.cardinality();
+        }
+        return included.andNot(reachable(excludedId)).cardinality();
+    }
+
+    /**
+     * Returns the head commit ids of the branches, by branch name, reading
+     * them the first time. The bitmaps of branches which moved or were
+     * removed since are dropped then.
+     */
+    private Map<String, String> heads() {
+        if (heads != null) {
+            return heads;
+        }
+        heads = new HashMap<>();
+        List<String> branches = plainFilenamesIn(Repository.HEADS_DIR);
+        if (branches != null) {
+            for (String branch : branches) {
+                heads.put(branch,
+                        readContentsAsString(Branch.getBranchFile(branch)));
+            }
+        }
+        Iterator<Map.Entry<String, String>> kept = bitmapIds.entrySet().iterator();
+        while (kept.hasNext()) {
+            Map.Entry<String, String> entry = kept.next();
+            if (!entry.getValue().equals(heads.get(entry.getKey()))) {
+                bitmaps.remove(entry.getKey());
+                kept.remove();
+                changed = true;
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Saves current CommitGraph to .gitlet/commit-graph if it changed.
+     */
+    public void save() {
+        if (changed) {
+            writeObject(GRAPH_FILE, this);
+            changed = false;
+        }
+    }
+
+    /**
+     * Print useful information about this object on System.out.
+     */
+    @Override
+    public void dump() {
+        System.out.println(ids.size() + " commits");
+        for (Map.Entry<String, EwahBitmap> entry : bitmaps.entrySet()) {
+            EwahBitmap bitmap = entry.getValue();
+            System.out.println(entry.getKey() + " " + bitmapIds.get(entry.getKey())
+                    + " " + bitmap.cardinality()
+                    + " commits in " + bitmap.sizeInWords() + " words");
+        }
+    }
+}
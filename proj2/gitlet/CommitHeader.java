@@ -0,0 +1,208 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import static gitlet.Utils.*;
+
+/**
+ * Represents what log prints about a commit: its id, the ids of its
+ * parents, its timestamp and its message. A commit object holds all its
+ * ancestors, so reading one reads the whole history; its header is saved
+ * on its own in .gitlet/headers/ID so that log can walk the history one
+ * small file at a time.
+ * <p>
+ * A header file has the parent ids on its first line, separated by
+ * spaces, the timestamp in milliseconds on the second, and the message
+ * after that.
+ *
+ * @author Vincent Ma
+ */
+public class CommitHeader {
+    /**
+     * The directory storing the headers of the commits.
+     */
+    public static final File HEADERS_DIR = join(Repository.GITLET_DIR, "headers");
+
+    /**
+     * The format used in the log printing. Unlike SimpleDateFormat, it
+     * can be shared between threads.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+            .ofPattern("EEE MMM d HH:mm:ss yyyy Z")
+            .withZone(ZoneId.systemDefault());
+
+    /**
+     * The length of the abbreviated commit ids.
+     */
+    private static final int SHORT_ID_LENGTH = 7;
+
+    private final String commitId;
+    private final String[] parentIds;
+    private final long time;
+    private final String message;
+
+    private CommitHeader(String commitId, String[] parentIds,
+                         long time, String message) {
+        this.commitId = commitId;
+        this.parentIds = parentIds;
+        this.time = time;
+        this.message = message;
+    }
+
+    /**
+     * Returns the header of COMMIT.
+     */
+    public static CommitHeader of(Commit commit) {
+        Commit[] parents = commit.getParents();
+        String[] parentIds = new String[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            parentIds[i] = parents[i].getCommitId();
+        }
+        return new CommitHeader(commit.getCommitId(), parentIds,
+                commit.getDate().getTime(), commit.getMessage());
+    }
+
+    /**
+     * Reads the header of the commit with full COMMIT ID. Commits made
+     * before headers were saved get theirs from the commit object, which
+     * is then saved for next time.
+     */
+    public static CommitHeader read(String commitId) {
+        File file = join(HEADERS_DIR, commitId);
+        if (!file.isFile()) {
+            CommitHeader header = of(Commit.getCommit(commitId));
+            header.save();
+            return header;
+        }
+        String contents = readContentsAsString(file);
+        int firstLine = contents.indexOf('\n');
+        int secondLine = contents.indexOf('\n', firstLine + 1);
+        String parents = contents.substring(0, firstLine);
+        return new CommitHeader(commitId,
+                parents.isEmpty() ? new String[0] : parents.split(" "),
+                Long.parseLong(contents.substring(firstLine + 1, secondLine)),
+                contents.substring(secondLine + 1));
+    }
+
+    /**
+     * Saves this header to .gitlet/headers/ID.
+     */
+    public void save() {
+        if (!HEADERS_DIR.isDirectory() && !HEADERS_DIR.mkdir()) {
+            Repository.exit("mkdir failed.");
+        }
+        writeContents(join(HEADERS_DIR, commitId),
+                String.join(" ", parentIds), "\n", Long.toString(time),
+                "\n", message);
+    }
+
+    public String getCommitId() {
+        return commitId;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String[] getParentIds() {
+        return parentIds;
+    }
+
+    /**
+     * Returns the id of the first parent, or null for the initial commit.
+     */
+    public String getFirstParentId() {
+        return parentIds.length == 0 ? null : parentIds[0];
+    }
+
+    /**
+     * Writes the log of this commit to OUT in given format.
+     * If this commit is a merged commit, then there's one more line
+     * indicating its parents.
+     */
+    public void writeLog(Writer out) throws IOException {
+        String newline = System.lineSeparator();
+        out.write("===");
+        out.write(newline);
+        out.write("commit ");
+        out.write(commitId);
+        out.write(newline);
+        if (parentIds.length == 2) {
+            // This is a merged commit.
+            out.write("Merge: ");
+            out.write(parentIds[0], 0, SHORT_ID_LENGTH);
+            out.write(' ');
+            out.write(parentIds[1], 0, SHORT_ID_LENGTH);
+            out.write(newline);
+        }
+        out.write("Date: ");
+        DATE_FORMAT.formatTo(Instant.ofEpochMilli(time), out);
+        out.write(newline);
+        out.write(message);
+        out.write(newline);
+        out.write(newline);
+    }
+
+    /**
+     * Prints the log of this commit on System.out, as writeLog does.
+     */
+    public void printLog() {
+        Writer out = new OutputStreamWriter(System.out);
+        try {
+            writeLog(out);
+            out.flush();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /**
+     * Writes the abbreviated id and the message of this commit to OUT,
+     * on one line.
+     */
+    public void writeOneline(Writer out) throws IOException {
+        out.write(commitId, 0, SHORT_ID_LENGTH);
+        out.write(' ');
+        out.write(message);
+        out.write(System.lineSeparator());
+    }
+
+    /**
+     * Parses DATE, given as in the log, or as yyyy-MM-dd with an optional
+     * time (yyyy-MM-ddTHH:mm:ss) in the local time zone.
+     *
+     * @return The time in milliseconds, or null if DATE can not be parsed.
+     */
+    public static Long parseDate(String date) {
+        ZoneId zone = ZoneId.systemDefault();
+        try {
+            return Instant.from(DATE_FORMAT.parse(date)).toEpochMilli();
+        } catch (RuntimeException ignored) {
+            // not in the log format
+        }
+        try {
+            return LocalDateTime.parse(date)
+                    .atZone(zone).toInstant().toEpochMilli();
+        } catch (RuntimeException ignored) {
+            // no time of day
+        }
+        try {
+            return LocalDate.parse(date)
+                    .atStartOfDay(zone).toInstant().toEpochMilli();
+        } catch (RuntimeException excp) {
+            return null;
+        }
+    }
+}
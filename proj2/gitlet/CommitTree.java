@@ -0,0 +1,69 @@
+package gitlet;
+
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static gitlet.Utils.*;
+
+/**
+ * Represents the files tracked in a commit, saved on their own in
+ * .gitlet/trees/ID when the commit is saved. A commit object holds all
+ * its ancestors, so reading one to get its files reads the whole
+ * history; its tree is one line per file.
+ * <p>
+ * A tree file has one line per tracked file, sorted by name: the sha1 of
+ * the file, a space, and its name.
+ *
+ * @author Vincent Ma
+ */
+public class CommitTree {
+    /**
+     * The directory storing the trees of the commits.
+     */
+    public static final File TREES_DIR = join(Repository.GITLET_DIR, "trees");
+
+    private CommitTree() {
+    }
+
+    /**
+     * Reads the files tracked in the commit with full COMMIT ID, mapped to
+     * their sha1. Commits made before trees were saved get theirs from the
+     * commit object, which is then saved for next time.
+     */
+    public static TreeMap<String, String> read(String commitId) {
+        File file = join(TREES_DIR, commitId);
+        if (!file.isFile()) {
+            TreeMap<String, String> tracked =
+                    new TreeMap<>(Commit.getCommit(commitId).getTrackedMap());
+            save(commitId, tracked);
+            return tracked;
+        }
+        TreeMap<String, String> tracked = new TreeMap<>();
+        String contents = readContentsAsString(file);
+        int start = 0;
+        while (start < contents.length()) {
+            int end = contents.indexOf('\n', start);
+            tracked.put(contents.substring(start + UID_LENGTH + 1, end),
+                    contents.substring(start, start + UID_LENGTH));
+            start = end + 1;
+        }
+        return tracked;
+    }
+
+    /**
+     * Saves TRACKED, the files tracked in the commit with COMMIT ID, to
+     * .gitlet/trees/ID.
+     */
+    public static void save(String commitId, Map<String, String> tracked) {
+        if (!TREES_DIR.isDirectory() && !TREES_DIR.mkdir()) {
+            Repository.exit("mkdir failed.");
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : tracked.entrySet()) {
+            builder.append(entry.getValue()).append(' ')
+                    .append(entry.getKey()).append('\n');
+        }
+        writeContents(join(TREES_DIR, commitId), builder.toString());
+    }
+}
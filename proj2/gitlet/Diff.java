@@ -0,0 +1,145 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the lines two versions of a file have in common, with the
+ * linear-space variant of the O(ND) diff algorithm of Eugene Myers, where
+ * D is the number of lines added and removed. Lines are compared as ints,
+ * equal lines having equal ints, and the common prefix and suffix are
+ * matched before any search, so small changes to large files are cheap.
+ *
+ * @author Vincent Ma
+ */
+final class Diff {
+    /**
+     * The two versions.
+     */
+    private final int[] a;
+    private final int[] b;
+
+    /**
+     * The common blocks found so far, in order, as {start in A, start in B,
+     * length}.
+     */
+    private final List<int[]> blocks = new ArrayList<>();
+
+    private Diff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * Returns the blocks of lines common to A and B in a longest common
+     * subsequence, in order, as {start in A, start in B, length}.
+     */
+    static List<int[]> matches(int[] a, int[] b) {
+        Diff diff = new Diff(a, b);
+        diff.diff(0, a.length, 0, b.length);
+        return diff.blocks;
+    }
+
+    /**
+     * Matches a[aLo, aHi) with b[bLo, bHi).
+     */
+    private void diff(int aLo, int aHi, int bLo, int bHi) {
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            match(aLo++, bLo++, 1);
+        }
+        int suffix = 0;
+        while (aLo < aHi - suffix && bLo < bHi - suffix
+                && a[aHi - 1 - suffix] == b[bHi - 1 - suffix]) {
+            suffix += 1;
+        }
+        aHi -= suffix;
+        bHi -= suffix;
+
+        if (aLo < aHi && bLo < bHi) {
+            int[] snake = middleSnake(aLo, aHi, bLo, bHi);
+            int x0 = aLo + snake[0];
+            int y0 = bLo + snake[1];
+            int x1 = aLo + snake[2];
+            int y1 = bLo + snake[3];
+            if (x1 - x0 > 0 || x0 > aLo || y0 > bLo
+                    || x1 < aHi || y1 < bHi) {
+                diff(aLo, x0, bLo, y0);
+                match(x0, y0, x1 - x0);
+                diff(x1, aHi, y1, bHi);
+            }
+        }
+        match(aHi, bHi, suffix);
+    }
+
+    /**
+     * Returns the middle snake of a shortest edit script from a[aLo, aHi)
+     * to b[bLo, bHi), as {x start, y start, x end, y end} relative to
+     * aLo and bLo.
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int max = (n + m + 1) / 2;
+        int off = max + 1;
+        // vf[off + k]: the furthest x on diagonal k = x - y from the start;
+        // vb[off + k]: the same from the end, on reversed sequences.
+        int[] vf = new int[2 * max + 3];
+        int[] vb = new int[2 * max + 3];
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || k != d && vf[off + k - 1] < vf[off + k + 1]
+                        ? vf[off + k + 1] : vf[off + k - 1] + 1;
+                int y = x - k;
+                int xs = x;
+                int ys = y;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x += 1;
+                    y += 1;
+                }
+                vf[off + k] = x;
+                int kr = delta - k;
+                if (odd && kr >= 1 - d && kr <= d - 1
+                        && x + vb[off + kr] >= n) {
+                    return new int[]{xs, ys, x, y};
+                }
+            }
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || k != d && vb[off + k - 1] < vb[off + k + 1]
+                        ? vb[off + k + 1] : vb[off + k - 1] + 1;
+                int y = x - k;
+                int xs = x;
+                int ys = y;
+                while (x < n && y < m
+                        && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                    x += 1;
+                    y += 1;
+                }
+                vb[off + k] = x;
+                int kf = delta - k;
+                if (!odd && kf >= -d && kf <= d && x + vf[off + kf] >= n) {
+                    return new int[]{n - x, m - y, n - xs, m - ys};
+                }
+            }
+        }
+        throw new IllegalStateException("No middle snake.");
+    }
+
+    /**
+     * Records that the LENGTH lines from A START and B START are common.
+     */
+    private void match(int aStart, int bStart, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (!blocks.isEmpty()) {
+            int[] last = blocks.get(blocks.size() - 1);
+            if (last[0] + last[2] == aStart && last[1] + last[2] == bStart) {
+                last[2] += length;
+                return;
+            }
+        }
+        blocks.add(new int[]{aStart, bStart, length});
+    }
+}
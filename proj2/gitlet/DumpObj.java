@@ -35,8 +35,10 @@ public class DumpObj {
      */
     public static void main(String... files) {
         for (String fileName : files) {
-            Dumpable obj = Utils.readObject(new File(fileName),
-                    Dumpable.class);
+            File file = new File(fileName);
+            // The index is not serialized.
+            Dumpable obj = Staging.isIndex(file) ? Staging.readIndex(file)
+                    : Utils.readObject(file, Dumpable.class);
             obj.dump();
             System.out.println("---");
         }
@@ -0,0 +1,389 @@
+package gitlet;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * An immutable set of non-negative ints, compressed as an EWAH
+ * (Enhanced Word-Aligned Hybrid) bitmap.
+ * <p>
+ * The bits are cut into 64-bit words. Runs of words with all bits clear,
+ * or all bits set, are stored as a count; other words are stored as they
+ * are. The words are a sequence of marker words, each followed by the
+ * literal words it counts:
+ * <pre>
+ * bit 0       the bit of the run
+ * bits 1-32   the number of words in the run
+ * bits 33-63  the number of literal words after the marker
+ * </pre>
+ * Set operations walk both bitmaps a marker at a time, so two long runs
+ * are combined in one step, whatever their length.
+ *
+ * @author Vincent Ma
+ */
+public final class EwahBitmap implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The empty bitmap.
+     */
+    public static final EwahBitmap EMPTY = new Builder().build();
+
+    private static final int RUN_LENGTH_BITS = 32;
+    private static final long MAX_RUN_LENGTH = (1L << RUN_LENGTH_BITS) - 1;
+    private static final long MAX_LITERALS = (1L << 31) - 1;
+
+    /**
+     * The marker and literal words.
+     */
+    private final long[] words;
+
+    private EwahBitmap(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Returns the bitmap with the bits set in WORDS, where bit i of the
+     * set is bit (i % 64) of WORDS[i / 64].
+     */
+    public static EwahBitmap of(long[] words) {
+        Builder builder = new Builder();
+        for (long word : words) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the set of the N ints from 0 to N - 1.
+     */
+    public static EwahBitmap range(int n) {
+        Builder builder = new Builder();
+        builder.add(-1, n >>> 6);
+        if ((n & 63) != 0) {
+            builder.add((1L << n) - 1);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the set of I alone.
+     */
+    public static EwahBitmap singleton(int i) {
+        Builder builder = new Builder();
+        builder.add(0, i >>> 6);
+        builder.add(1L << i);
+        return builder.build();
+    }
+
+    /**
+     * Returns if I is in this set.
+     */
+    public boolean get(int i) {
+        long target = i >>> 6;
+        long word = 0;
+        int pos = 0;
+        while (pos < words.length) {
+            long marker = words[pos];
+            long run = runLength(marker);
+            int literals = literalCount(marker);
+            if (target < word + run) {
+                return runBit(marker);
+            }
+            word += run;
+            if (target < word + literals) {
+                return (words[pos + 1 + (int) (target - word)] & (1L << i)) != 0;
+            }
+            word += literals;
+            pos += 1 + literals;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of ints in this set.
+     */
+    public long cardinality() {
+        long count = 0;
+        int pos = 0;
+        while (pos < words.length) {
+            long marker = words[pos];
+            if (runBit(marker)) {
+                count += runLength(marker) * Long.SIZE;
+            }
+            int literals = literalCount(marker);
+            for (int i = 1; i <= literals; i++) {
+                count += Long.bitCount(words[pos + i]);
+            }
+            pos += 1 + literals;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the ints of this set, in increasing order.
+     */
+    public int[] toArray() {
+        int[] ints = new int[(int) cardinality()];
+        int n = 0;
+        long word = 0;
+        int pos = 0;
+        while (pos < words.length) {
+            long marker = words[pos];
+            long run = runLength(marker);
+            if (runBit(marker)) {
+                for (long i = word * Long.SIZE; i < (word + run) * Long.SIZE; i++) {
+                    ints[n++] = (int) i;
+                }
+            }
+            word += run;
+            int literals = literalCount(marker);
+            for (int i = 1; i <= literals; i++, word++) {
+                for (long bits = words[pos + i]; bits != 0; bits &= bits - 1) {
+                    ints[n++] = (int) (word * Long.SIZE) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            pos += 1 + literals;
+        }
+        return ints;
+    }
+
+    /**
+     * Returns the union of this set and OTHER.
+     */
+    public EwahBitmap or(EwahBitmap other) {
+        return combine(other, (a, b) -> a | b);
+    }
+
+    /**
+     * Returns the intersection of this set and OTHER.
+     */
+    public EwahBitmap and(EwahBitmap other) {
+        return combine(other, (a, b) -> a & b);
+    }
+
+    /**
+     * Returns the ints of this set which are not in OTHER.
+     */
+    public EwahBitmap andNot(EwahBitmap other) {
+        return combine(other, (a, b) -> a & ~b);
+    }
+
+    /**
+     * Returns the number of words taken by this bitmap, markers included.
+     */
+    public int sizeInWords() {
+        return words.length;
+    }
+
+    /**
+     * Returns the bitmap whose words are OP applied to the words of this
+     * bitmap and of OTHER. OP must map two words with all bits clear to a
+     * word with all bits clear.
+     */
+    private EwahBitmap combine(EwahBitmap other, LongBinaryOperator op) {
+        Cursor a = new Cursor(this);
+        Cursor b = new Cursor(other);
+        Builder builder = new Builder();
+        while (!a.isDone() || !b.isDone()) {
+            if (a.inRun() && b.inRun()) {
+                long n = Math.min(a.runRemaining(), b.runRemaining());
+                builder.add(op.applyAsLong(a.runWord(), b.runWord()), n);
+                a.skip(n);
+                b.skip(n);
+            } else {
+                builder.add(op.applyAsLong(a.next(), b.next()));
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean runBit(long marker) {
+        return (marker & 1) != 0;
+    }
+
+    private static long runLength(long marker) {
+        return (marker >>> 1) & MAX_RUN_LENGTH;
+    }
+
+    private static int literalCount(long marker) {
+        return (int) (marker >>> (RUN_LENGTH_BITS + 1));
+    }
+
+    private static long marker(boolean bit, long run, long literals) {
+        return (bit ? 1 : 0) | run << 1 | literals << (RUN_LENGTH_BITS + 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof EwahBitmap
+                && Arrays.equals(words, ((EwahBitmap) obj).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    /**
+     * Builds a bitmap from its uncompressed words, in order.
+     */
+    private static class Builder {
+        private long[] words = new long[4];
+        private int size = 1;
+
+        /**
+         * The position of the last marker in words.
+         */
+        private int marker = 0;
+
+        /**
+         * Appends WORD.
+         */
+        void add(long word) {
+            if (word == 0 || word == -1) {
+                add(word, 1);
+            } else {
+                long cur = words[marker];
+                if (literalCount(cur) == MAX_LITERALS) {
+                    newMarker();
+                    cur = 0;
+                }
+                words[marker] = cur + (1L << (RUN_LENGTH_BITS + 1));
+                append(word);
+            }
+        }
+
+        /**
+         * Appends N copies of WORD, which has all bits clear or all set.
+         */
+        void add(long word, long n) {
+            if (word != 0 && word != -1) {
+                for (long i = 0; i < n; i++) {
+                    add(word);
+                }
+                return;
+            }
+            boolean bit = word == -1;
+            while (n > 0) {
+                long cur = words[marker];
+                long run = runLength(cur);
+                if (literalCount(cur) != 0 || run != 0 && runBit(cur) != bit
+                        || run == MAX_RUN_LENGTH) {
+                    newMarker();
+                    cur = 0;
+                    run = 0;
+                }
+                long added = Math.min(n, MAX_RUN_LENGTH - run);
+                words[marker] = marker(bit, run + added, 0);
+                n -= added;
+            }
+        }
+
+        private void newMarker() {
+            marker = size;
+            append(0);
+        }
+
+        private void append(long word) {
+            if (size == words.length) {
+                words = Arrays.copyOf(words, size * 2);
+            }
+            words[size++] = word;
+        }
+
+        /**
+         * Returns the bitmap, without its trailing words with all bits
+         * clear.
+         */
+        EwahBitmap build() {
+            long last = words[marker];
+            if (literalCount(last) == 0 && !runBit(last)) {
+                if (marker > 0) {
+                    size = marker;
+                } else {
+                    words[0] = 0;
+                }
+            }
+            return new EwahBitmap(Arrays.copyOf(words, size));
+        }
+    }
+
+    /**
+     * Reads the uncompressed words of a bitmap in order, then words with
+     * all bits clear forever.
+     */
+    private static class Cursor {
+        private final long[] words;
+
+        /**
+         * The position of the next marker.
+         */
+        private int pos = 0;
+        private boolean bit;
+        private long run = 0;
+        private int literal;
+        private int literals = 0;
+
+        Cursor(EwahBitmap bitmap) {
+            words = bitmap.words;
+            advance();
+        }
+
+        /**
+         * Reads markers until one with words left.
+         */
+        private void advance() {
+            while (run == 0 && literals == 0 && pos < words.length) {
+                long marker = words[pos];
+                bit = runBit(marker);
+                run = runLength(marker);
+                literals = literalCount(marker);
+                literal = pos + 1;
+                pos += 1 + literals;
+            }
+        }
+
+        boolean isDone() {
+            return run == 0 && literals == 0;
+        }
+
+        boolean inRun() {
+            return run > 0 || isDone();
+        }
+
+        long runRemaining() {
+            return isDone() ? Long.MAX_VALUE : run;
+        }
+
+        long runWord() {
+            return bit && run > 0 ? -1 : 0;
+        }
+
+        /**
+         * Skips N words of the current run.
+         */
+        void skip(long n) {
+            if (!isDone()) {
+                run -= n;
+                advance();
+            }
+        }
+
+        long next() {
+            long word;
+            if (run > 0) {
+                word = runWord();
+                run -= 1;
+            } else if (literals > 0) {
+                word = words[literal++];
+                literals -= 1;
+            } else {
+                return 0;
+            }
+            advance();
+            return word;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gitlet;
+
+import java.util.Random;
+
+/**
+ * Compares the throughput of XxHash64, used to tell whether a file changed,
+ * with that of the MessageDigest SHA-1 behind Utils.sha1. Usage:
+ * java gitlet.HashBenchmark [MEGABYTES] [ROUNDS]
+ * which hashes MEGABYTES (default 64) of random bytes ROUNDS (default 5)
+ * times with each, and prints the best throughput of each in GB/s.
+ *
+ * @author Vincent Ma
+ */
+public class HashBenchmark {
+
+    public static void main(String... args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        byte[] data = new byte[megabytes << 20];
+        new Random(61).nextBytes(data);
+
+        long sink = 0;
+        double fast = 0;
+        double sha1 = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            sink += XxHash64.hash(data);
+            fast = Math.max(fast, gigabytesPerSecond(data, start));
+
+            start = System.nanoTime();
+            sink += Utils.sha1(data).hashCode();
+            sha1 = Math.max(sha1, gigabytesPerSecond(data, start));
+        }
+
+        System.out.printf("Hashing %d MB, best of %d rounds:%n",
+                megabytes, rounds);
+        System.out.printf("%-20s %8.3f GB/s%n", "xxHash64", fast);
+        System.out.printf("%-20s %8.3f GB/s%n", "SHA-1 (Utils.sha1)", sha1);
+        System.out.printf("%-20s %8.1fx%n", "speedup", fast / sha1);
+        // Keeps the hashes from being optimized away.
+        System.out.printf("(checksum %x)%n", sink);
+    }
+
+    /**
+     * Returns the GB/s of hashing DATA in the time since START.
+     */
+    private static double gigabytesPerSecond(byte[] data, long start) {
+        return data.length / (double) (System.nanoTime() - start);
+    }
+}
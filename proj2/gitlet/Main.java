@@ -1,5 +1,7 @@
 package gitlet;
 
+import java.util.Arrays;
+
 /**
  * Driver class for Gitlet, a subset of the Git version-control system.
  *
@@ -12,6 +14,38 @@ public class Main {
      * <COMMAND> <OPERAND1> <OPERAND2> ...
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(Trace.FLAG)) {
+            // gitlet.Main --trace <COMMAND> ...
+            Trace.enable();
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (Trace.isEnabled()) {
+            Trace.begin(String.join(" ", args));
+        }
+        run(args);
+    }
+
+    /**
+     * Runs the command in ARGS and returns once it is done, including
+     * when it stops early through Repository.exit, with the index
+     * unlocked. Lets a caller run several commands in one JVM.
+     */
+    public static void run(String... args) {
+        try {
+            dispatch(args);
+        } catch (GitletException excp) {
+            if (excp.getMessage() != null) {
+                System.out.println(excp.getMessage());
+            }
+        } finally {
+            Staging.unlock();
+        }
+    }
+
+    /**
+     * Calls the Repository method handling the command in ARGS.
+     */
+    private static void dispatch(String[] args) {
         if (args.length == 0) {
             Repository.exit("Please enter a command.");
         }
@@ -38,9 +72,8 @@ public class Main {
                 Repository.rm(args[1]);
                 break;
             case "log":
-                // gitlet.Main log
-                Repository.validArgs(args, 1);
-                Repository.log();
+                // gitlet.Main log [-n COUNT] [--since DATE] [--oneline]
+                Repository.log(args);
                 break;
             case "global-log":
                 // gitlet.Main global-log
@@ -81,6 +114,27 @@ public class Main {
                 Repository.validArgs(args, 2);
                 Repository.merge(args[1]);
                 break;
+            case "blame":
+                // gitlet.Main blame FILENAME
+                Repository.validArgs(args, 2);
+                Repository.blame(args[1]);
+                break;
+            case "rev-list":
+                // gitlet.Main rev-list --count [A..]B
+                Repository.revList(args);
+                break;
+            case "merge-base":
+                // gitlet.Main merge-base --is-ancestor A B
+                Repository.mergeBase(args);
+                break;
+            case "sparse-checkout":
+                // gitlet.Main sparse-checkout set|list|disable ...
+                Repository.sparseCheckout(args);
+                break;
+            case "bisect":
+                // gitlet.Main bisect start|good|bad|skip|run|reset ...
+                Repository.bisect(args);
+                break;
             default:
                 Repository.receiveInvalidCommand();
         }
@@ -1,7 +1,15 @@
 package gitlet;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.IntStream;
 
 import static gitlet.Utils.*;
 
@@ -102,19 +110,20 @@ public class Repository {
          * And exit without changing anything.
          */
         checkInitialized();
+        checkNotBisecting();
         File addedFile = join(CWD, filename);
         if (!addedFile.isFile()) {
             exit("File does not exist.");
         }
 
-        Blob blob = new Blob(addedFile);
+        Staging staging = Staging.getCurStaging();
+        Blob blob = new Blob(addedFile, staging);
 
         Commit lastCommit = Commit.getProjectHeadCommit();
         Map<String, String> trackedMap = lastCommit.getTrackedMap();
         String commitSha = trackedMap.get(filename);
 
-        Staging staging = Staging.getCurStaging();
-        String stagingSha = staging.getAdditionalMap().get(filename);
+        String stagingSha = staging.getStagedSha(filename);
         staging.addFile(filename, commitSha, stagingSha, blob);
         staging.save();
     }
@@ -148,6 +157,7 @@ public class Repository {
          *  outside the .gitlet directory entirely.
          */
         checkInitialized();
+        checkNotBisecting();
         if (message.isEmpty()) {
             exit("Please enter a commit message.");
         }
@@ -171,6 +181,7 @@ public class Repository {
      */
     public static void rm(String filename) {
         checkInitialized();
+        checkNotBisecting();
         Staging staging = Staging.getCurStaging();
         staging.rmFile(filename);
         staging.save();
@@ -185,16 +196,56 @@ public class Repository {
      * called the commit’s history. For every node in this history, the
      * information it should display is the commit id, the time the commit
      * was made, and the commit message.
+     * <p>
+     * Options: -n COUNT shows at most COUNT commits, --since DATE stops at
+     * the first commit older than DATE, and --oneline shows each commit as
+     * its abbreviated id and its message. Only the commit headers are
+     * read, one at a time, so the output starts before the whole history
+     * is read.
      */
-    public static void log() {
+    public static void log(String... args) {
         checkInitialized();
-        Commit commit = Commit.getProjectHeadCommit();
-        while (commit.hasParents()) {
-            commit.printLog();
-            commit = commit.getParents()[0];
+        long count = Long.MAX_VALUE;
+        long since = Long.MIN_VALUE;
+        boolean oneline = false;
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--oneline")) {
+                oneline = true;
+            } else if (option.equals("-n") && i + 1 < args.length) {
+                count = parseCount(args[++i]);
+            } else if (option.startsWith("-n") && option.length() > 2) {
+                count = parseCount(option.substring(2));
+            } else if (option.equals("--since") && i + 1 < args.length) {
+                since = parseSince(args[++i]);
+            } else if (option.startsWith("--since=")) {
+                since = parseSince(option.substring("--since=".length()));
+            } else {
+                exit("Incorrect operands.");
+            }
+        }
+
+        Writer out = newLogWriter();
+        try {
+            String commitId = readContentsAsString(
+                    Branch.getBranchFile(Head.getHeadBranchName()));
+            for (long n = 0; n < count && commitId != null; n++) {
+                CommitHeader header = CommitHeader.read(commitId);
+                if (header.getTime() < since) {
+                    // Commits are older than their children.
+                    break;
+                }
+                if (oneline) {
+                    header.writeOneline(out);
+                } else {
+                    header.writeLog(out);
+                }
+                commitId = header.getFirstParentId();
+            }
+            out.flush();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
         }
-        // Also prints the initial commit.
-        commit.printLog();
     }
 
     /**
@@ -203,8 +254,18 @@ public class Repository {
      */
     public static void globalLog() {
         checkInitialized();
-        for (Commit commit : Commit.getAllCommits()) {
-            commit.printLog();
+        List<String> commitIds = plainFilenamesIn(COMMITS_DIR);
+        if (commitIds == null) {
+            return;
+        }
+        Writer out = newLogWriter();
+        try {
+            for (String commitId : commitIds) {
+                CommitHeader.read(commitId).writeLog(out);
+            }
+            out.flush();
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
         }
     }
 
@@ -239,10 +300,10 @@ public class Repository {
      */
     public static void status() {
         checkInitialized();
+        Staging staging = Staging.getCurStaging();
         Branch.status();
 
         List<String> wdFilesName = plainFilenamesIn(CWD);
-        Staging staging = Staging.getCurStaging();
         Map<String, String> trackedMap =
                 Commit.getProjectHeadCommit().getTrackedMap();
         Map<String, String> additionalMap = staging.getAdditionalMap();
@@ -254,8 +315,10 @@ public class Repository {
         for (String filename : wdFilesName) {
             wdBlobs.put(
                     filename,
-                    new Blob(join(Repository.CWD, filename)));
+                    new Blob(join(Repository.CWD, filename), staging));
         }
+        staging.pruneStamps(wdFilesName);
+        staging.saveStamps();
 
 
         StringBuilder builder = new StringBuilder();
@@ -273,10 +336,13 @@ public class Repository {
         List<String> modifiedFiles = Staging.getModifiedFiles(
                 wdFilesName, trackedMap, wdBlobs, additionalMap, removalSet
         );
+        SparseCheckout sparse = SparseCheckout.getCurSparse();
         for (String filename : modifiedFiles) {
             if (wdFilesName.contains(filename)) {
                 builder.append(filename).append(" (modified)\n");
-            } else {
+            } else if (SparseCheckout.includes(sparse, filename)
+                    || !trackedMap.containsKey(filename)
+                    || additionalMap.containsKey(filename)) {
                 builder.append(filename).append(" (deleted)\n");
             }
         }
@@ -295,6 +361,7 @@ public class Repository {
      */
     public static void checkout(String... args) {
         checkInitialized();
+        checkNotBisecting();
         if (args.length == 3 && args[1].equals("--")) {
             // gitlet.Main checkout -- [file name]
             checkoutFile(args[2]);
@@ -356,6 +423,7 @@ public class Repository {
      */
     public static void reset(String commitId) {
         checkInitialized();
+        checkNotBisecting();
         Commit commit = Commit.getCommit(commitId);
         if (commit == null) {
             exit("No commit with that id exists.");
@@ -365,7 +433,7 @@ public class Repository {
         String branchName = Head.getHeadBranchName();
         File branchFile = Branch.getBranchFile(branchName);
         writeContents(branchFile, commitId);
-        new Staging().save();
+        Staging.clearStaging();
     }
 
     /**
@@ -373,6 +441,7 @@ public class Repository {
      */
     public static void merge(String branchName) {
         checkInitialized();
+        checkNotBisecting();
         Staging staging = Staging.getCurStaging();
         Commit curCommit = Commit.getProjectHeadCommit();
         if (!staging.isEmpty()) {
@@ -402,37 +471,225 @@ public class Repository {
         Map<String, String> splitTrackedFiles = splitCommit.getTrackedMap();
         Map<String, String> curTrackedFiles = curCommit.getTrackedMap();
         Map<String, String> givenTrackedFiles = givenCommit.getTrackedMap();
-        Set<String> allFiles = new TreeSet<>(splitTrackedFiles.keySet());
-        allFiles.addAll(curTrackedFiles.keySet());
-        allFiles.addAll(givenTrackedFiles.keySet());
-
-        for (String filename : allFiles) {
+        SparseCheckout sparse = SparseCheckout.getCurSparse();
+        Set<String> allFilesSet = new TreeSet<>(splitTrackedFiles.keySet());
+        allFilesSet.addAll(curTrackedFiles.keySet());
+        allFilesSet.addAll(givenTrackedFiles.keySet());
+        List<String> allFiles = new ArrayList<>(allFilesSet);
+
+        // Classifies and writes the files in parallel; each task only
+        // touches its own file in the working directory.
+        MergeAction[] actions = new MergeAction[allFiles.size()];
+        IntStream.range(0, allFiles.size()).parallel().forEach(i -> {
+            String filename = allFiles.get(i);
             String curSha = curTrackedFiles.get(filename);
             String givenSha = givenTrackedFiles.get(filename);
             String splitSha = splitTrackedFiles.get(filename);
-            if (isConflict(curSha, givenSha, splitSha)) {
-                saveConflict(curSha, givenSha, filename);
-                System.out.println("Encountered a merge conflict.");
-            } else if (splitSha != null) {
-                boolean isModifiedCur = !Objects.equals(splitSha, curSha);
-                boolean isModifiedGiven = !Objects.equals(splitSha, givenSha);
-                if (!isModifiedCur && givenSha != null && isModifiedGiven) {
-                    Blob.loadBlob(givenSha, filename);
-                    staging.addExistedFile(filename, givenSha);
-                } else if (!isModifiedCur && givenSha == null) {
-                    staging.rmFile(filename);
-                }
-            } else {
-                if (curSha == null && givenSha != null) {
-                    Blob.loadBlob(givenSha, filename);
-                    staging.addExistedFile(filename, givenSha);
-                }
+            actions[i] = classifyMerge(curSha, givenSha, splitSha);
+            switch (actions[i]) {
+                case CONFLICT:
+                    saveConflict(curSha, givenSha, filename);
+                    break;
+                case TAKE_GIVEN:
+                    if (Blob.getBlobFile(givenSha) == null) {
+                        throw new NullPointerException("Missing blob file.");
+                    }
+                    if (SparseCheckout.includes(sparse, filename)) {
+                        Blob.loadBlob(givenSha, filename);
+                    }
+                    break;
+                case REMOVE:
+                    restrictedDelete(join(CWD, filename));
+                    break;
+                default:
+                    break;
+            }
+        });
+
+        // Stages the results in order, on this thread.
+        for (int i = 0; i < actions.length; i++) {
+            String filename = allFiles.get(i);
+            switch (actions[i]) {
+                case CONFLICT:
+                    System.out.println("Encountered a merge conflict.");
+                    break;
+                case TAKE_GIVEN:
+                    staging.stageFile(filename,
+                            givenTrackedFiles.get(filename));
+                    break;
+                case REMOVE:
+                    staging.stageRemoval(filename);
+                    break;
+                default:
+                    break;
             }
         }
-        staging.save();
 
         String info = "Merged " + branchName + " into " + curBranchName + ".";
-        mergeCommit(info, curCommit, givenCommit);
+        mergeCommit(info, curCommit, givenCommit, staging);
+    }
+
+    /**
+     * What merge does with a file.
+     */
+    private enum MergeAction {
+        /** Keeps the version of the current branch. */
+        KEEP,
+        /** Takes and stages the version of the given branch. */
+        TAKE_GIVEN,
+        /** Removes the file and stages its removal. */
+        REMOVE,
+        /** Writes both versions in the file. */
+        CONFLICT
+    }
+
+    /**
+     * Returns what merge does with a file whose versions are CUR SHA in
+     * the current branch, GIVEN SHA in the given branch and SPLIT SHA at
+     * the split point, each null when the file is not tracked there.
+     */
+    private static MergeAction classifyMerge(
+            String curSha, String givenSha, String splitSha) {
+        if (isConflict(curSha, givenSha, splitSha)) {
+            return MergeAction.CONFLICT;
+        } else if (splitSha != null) {
+            boolean isModifiedCur = !Objects.equals(splitSha, curSha);
+            boolean isModifiedGiven = !Objects.equals(splitSha, givenSha);
+            if (!isModifiedCur && givenSha != null && isModifiedGiven) {
+                return MergeAction.TAKE_GIVEN;
+            } else if (!isModifiedCur && givenSha == null) {
+                return MergeAction.REMOVE;
+            }
+        } else if (curSha == null && givenSha != null) {
+            return MergeAction.TAKE_GIVEN;
+        }
+        return MergeAction.KEEP;
+    }
+
+    /**
+     * Handles the bisect subcommands: start, good [commit id],
+     * bad [commit id], skip [commit id], run [script] [args...] and reset.
+     * Finds the first bad commit by binary search on the commits reachable
+     * from the bad commit but not from the good ones, checking out one
+     * commit to test at a time.
+     */
+    public static void bisect(String... args) {
+        checkInitialized();
+        if (args.length < 2) {
+            exit("Incorrect operands.");
+        }
+        String commitId = args.length == 3 ? args[2] : null;
+        switch (args[1]) {
+            case "start":
+                validArgs(args, 2);
+                Bisect.start();
+                break;
+            case "bad":
+                validArgs(args, 2, 3);
+                Bisect.getCurBisect().markBad(commitId);
+                break;
+            case "good":
+                validArgs(args, 2, 3);
+                Bisect.getCurBisect().markGood(commitId);
+                break;
+            case "skip":
+                validArgs(args, 2, 3);
+                Bisect.getCurBisect().markSkipped(commitId);
+                break;
+            case "run":
+                if (args.length < 3) {
+                    exit("Incorrect operands.");
+                }
+                Bisect.getCurBisect().run(
+                        Arrays.asList(args).subList(2, args.length));
+                break;
+            case "reset":
+                validArgs(args, 2);
+                Bisect.reset();
+                break;
+            default:
+                exit("Incorrect operands.");
+        }
+    }
+
+    /**
+     * Prints the number of commits reachable from B but not from A, given
+     * as rev-list --count A..B, or reachable from B, given as
+     * rev-list --count B. A and B are branch names or commit ids.
+     */
+    public static void revList(String... args) {
+        checkInitialized();
+        validArgs(args, 3);
+        if (!args[1].equals("--count")) {
+            exit("Incorrect operands.");
+        }
+        String range = args[2];
+        int dots = range.indexOf("..");
+        String excludedId = dots < 0
+                ? null : resolveCommitId(range.substring(0, dots));
+        String includedId = resolveCommitId(
+                dots < 0 ? range : range.substring(dots + 2));
+
+        CommitGraph graph = CommitGraph.getCommitGraph();
+        System.out.println(graph.count(excludedId, includedId));
+        graph.save();
+    }
+
+    /**
+     * Given as merge-base --is-ancestor A B, prints true if A is an
+     * ancestor of B, or is B, and false otherwise. A and B are branch
+     * names or commit ids.
+     */
+    public static void mergeBase(String... args) {
+        checkInitialized();
+        validArgs(args, 4);
+        if (!args[1].equals("--is-ancestor")) {
+            exit("Incorrect operands.");
+        }
+        String ancestorId = resolveCommitId(args[2]);
+        String descendantId = resolveCommitId(args[3]);
+
+        CommitGraph graph = CommitGraph.getCommitGraph();
+        System.out.println(graph.isAncestor(ancestorId, descendantId));
+        graph.save();
+    }
+
+    /**
+     * Prints each line of file FILENAME as in the head commit, after the
+     * commit which last changed it.
+     */
+    public static void blame(String filename) {
+        checkInitialized();
+        Blame.blame(filename);
+    }
+
+    /**
+     * Handles the sparse-checkout subcommands: set [pattern...], list and
+     * disable. Only the tracked files matching the patterns are put in
+     * the working directory.
+     */
+    public static void sparseCheckout(String... args) {
+        checkInitialized();
+        if (args.length < 2) {
+            exit("Incorrect operands.");
+        }
+        switch (args[1]) {
+            case "set":
+                checkNotBisecting();
+                SparseCheckout.set(Arrays.asList(args).subList(2, args.length));
+                break;
+            case "list":
+                validArgs(args, 2);
+                SparseCheckout.list();
+                break;
+            case "disable":
+                validArgs(args, 2);
+                checkNotBisecting();
+                SparseCheckout.disable();
+                break;
+            default:
+                exit("Incorrect operands.");
+        }
     }
 
     /**
@@ -483,6 +740,70 @@ public class Repository {
         exit("Incorrect operands.");
     }
 
+    /**
+     * Returns a writer buffering the output of log on System.out, which
+     * has to be flushed at the end.
+     */
+    private static Writer newLogWriter() {
+        return new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+    }
+
+    /**
+     * Parses the COUNT of log -n, quitting if it is not a number.
+     */
+    private static long parseCount(String count) {
+        try {
+            long n = Long.parseLong(count);
+            if (n >= 0) {
+                return n;
+            }
+        } catch (NumberFormatException ignored) {
+            // quits below
+        }
+        exit("Incorrect operands.");
+        return 0;
+    }
+
+    /**
+     * Parses the DATE of log --since, quitting if it is not a date.
+     */
+    private static long parseSince(String date) {
+        Long time = CommitHeader.parseDate(date);
+        if (time == null) {
+            exit("Incorrect operands.");
+        }
+        return time;
+    }
+
+    /**
+     * Returns the full id of the head commit of branch NAME, or else of the
+     * commit whose id starts with NAME, without reading any commit.
+     * Quits if there is neither, or if several commit ids start with NAME.
+     */
+    public static String resolveCommitId(String name) {
+        File branchFile = Branch.getBranchFile(name);
+        if (branchFile.isFile()) {
+            return readContentsAsString(branchFile);
+        }
+        List<String> ids = plainFilenamesIn(COMMITS_DIR);
+        String match = null;
+        if (!name.isEmpty() && ids != null) {
+            for (String id : ids) {
+                if (!id.startsWith(name)) {
+                    continue;
+                }
+                if (match != null) {
+                    exit("Ambiguous commit id.");
+                }
+                match = id;
+            }
+        }
+        if (match == null) {
+            exit("No commit with that id exists.");
+        }
+        return match;
+    }
+
     /**
      * Has to run this when command is invalid.
      */
@@ -499,6 +820,17 @@ public class Repository {
         }
     }
 
+    /**
+     * Quits during a bisect, whose tested commit is in the working
+     * directory while the head is left alone: commands changing the files
+     * or the head would act on a working directory not matching the head.
+     */
+    public static void checkNotBisecting() {
+        if (Bisect.isBisecting()) {
+            exit("You are bisecting; run bisect reset first.");
+        }
+    }
+
     /**
      * Quits if any files which is untracked in current branch, and
      * would be rewritten in given commit.
@@ -512,21 +844,28 @@ public class Repository {
         List<String> untrackedFiles = getUntrackedFiles();
         List<String> wdFilesName = plainFilenamesIn(CWD);
         Map<String, String> trackedMap = commit.getTrackedMap();
+        Staging staging = Staging.getCurStaging();
+        SparseCheckout sparse = SparseCheckout.getCurSparse();
         if (wdFilesName == null) {
             throw new NullPointerException(
                     "Gets null when requiring plain files.");
         }
 
         for (String untrackedFile : untrackedFiles) {
+            if (!SparseCheckout.includes(sparse, untrackedFile)) {
+                // will not be written.
+                continue;
+            }
             File file = join(CWD, untrackedFile);
             String preSha = trackedMap.get(untrackedFile);
             String curSha = file.isFile()
-                    ? new Blob(file).getSha1() : null;
+                    ? new Blob(file, staging).getSha1() : null;
             if (curSha != null && !Objects.equals(preSha, curSha)) {
                 exit("There is an untracked file in the way;"
                         + " delete it, or add and commit it first.");
             }
         }
+        staging.saveStamps();
     }
 
     /**
@@ -601,31 +940,82 @@ public class Repository {
         }
         checkOverwritten(commit);
 
+        SparseCheckout sparse = SparseCheckout.getCurSparse();
         List<String> wdFilesName = plainFilenamesIn(CWD);
         if (wdFilesName == null) {
             throw new NullPointerException();
         }
         for (String filename : wdFilesName) {
-            restrictedDelete(filename);
+            if (SparseCheckout.includes(sparse, filename)) {
+                restrictedDelete(join(CWD, filename));
+            }
         }
 
         Map<String, String> trackedMap = commit.getTrackedMap();
         for (Map.Entry<String, String> entry : trackedMap.entrySet()) {
             String filename = entry.getKey();
             String sha = entry.getValue();
-            Blob.loadBlob(sha, filename);
+            if (SparseCheckout.includes(sparse, filename)) {
+                Blob.loadBlob(sha, filename);
+            }
         }
     }
 
-    public static void mergeCommit(
-            String message, Commit curCommit, Commit givenCommit) {
-        Commit commit = new Commit(message, curCommit, givenCommit);
+    /**
+     * Changes the working directory from the files tracked in FROM to
+     * those tracked in TO, both mapping file names to sha1, only touching
+     * the files whose version differs between them: files tracked in FROM
+     * but not in TO are deleted, and files whose sha1 differs are
+     * rewritten. Quits before changing anything if a file not tracked in
+     * FROM would be overwritten.
+     *
+     * @param from The files of the commit in the working directory.
+     */
+    public static void checkoutChanges(Map<String, String> from,
+                                       Map<String, String> to) {
+        SparseCheckout sparse = SparseCheckout.getCurSparse();
+        Map<String, String> fromMap = new TreeMap<>(from);
+        Map<String, String> toMap = new TreeMap<>(to);
+        fromMap.keySet().removeIf(f -> !SparseCheckout.includes(sparse, f));
+        toMap.keySet().removeIf(f -> !SparseCheckout.includes(sparse, f));
+        for (Map.Entry<String, String> entry : toMap.entrySet()) {
+            File file = join(CWD, entry.getKey());
+            if (!fromMap.containsKey(entry.getKey()) && file.isFile()
+                    && !Objects.equals(
+                            new Blob(file).getSha1(), entry.getValue())) {
+                exit("There is an untracked file in the way;"
+                        + " delete it, or add and commit it first.");
+            }
+        }
+
+        for (String filename : fromMap.keySet()) {
+            if (!toMap.containsKey(filename)) {
+                restrictedDelete(join(CWD, filename));
+            }
+        }
+        for (Map.Entry<String, String> entry : toMap.entrySet()) {
+            String filename = entry.getKey();
+            String sha = entry.getValue();
+            if (!Objects.equals(fromMap.get(filename), sha)) {
+                Blob.loadBlob(sha, filename);
+            }
+        }
+    }
+
+    /**
+     * Commits the files staged in STAGING, which is not saved yet, with
+     * parents CUR COMMIT and GIVEN COMMIT, then saves STAGING cleared.
+     */
+    public static void mergeCommit(String message, Commit curCommit,
+                                   Commit givenCommit, Staging staging) {
+        Commit commit = new Commit(message, staging, curCommit, givenCommit);
         Branch branch = new Branch(
                 Head.getHeadBranchName(), commit.getCommitId());
 
         branch.save();
         commit.save();
-        Staging.clearStaging();
+        staging.clear();
+        staging.save();
     }
 
     /**
@@ -668,13 +1058,19 @@ public class Repository {
         return untrackedFiles;
     }
 
+    /**
+     * Stops the running command, printing MESSAGE as its last output.
+     * Main.run catches the GitletException thrown here.
+     */
     public static void exit(String message) {
-        System.out.println(message);
-        exit();
+        throw error("%s", message);
     }
 
+    /**
+     * Stops the running command silently.
+     */
     public static void exit() {
-        System.exit(0);
+        throw new GitletException();
     }
 
     /**
@@ -685,7 +1081,12 @@ public class Repository {
         if (!file.isFile()) {
             return false;
         }
-        String head = "<<<<<<< HEAD\n";
-        return readContentsAsString(file).startsWith(head);
+        byte[] head = "<<<<<<< HEAD\n".getBytes(StandardCharsets.UTF_8);
+        // Only the first line is needed, so large files are not read.
+        try (InputStream in = new FileInputStream(file)) {
+            return Arrays.equals(in.readNBytes(head.length), head);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
     }
 }
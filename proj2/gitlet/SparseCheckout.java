@@ -0,0 +1,163 @@
+package gitlet;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+
+import static gitlet.Utils.*;
+
+/**
+ * Represents the sparse-checkout patterns, restricting which tracked files
+ * are put in the working directory. They are saved in
+ * .gitlet/sparse-checkout, one glob pattern per line. A file is included
+ * if the last pattern matching its name does not start with "!". Without
+ * that file, every file is included.
+ * <p>
+ * Files left out are still tracked: commits keep their versions, and
+ * merges stage their new versions without writing them. Checking out a
+ * commit neither writes nor deletes them, and status does not report
+ * them as deleted.
+ *
+ * @author Vincent Ma
+ */
+public class SparseCheckout {
+    /**
+     * The file storing the patterns.
+     */
+    private static final File SPARSE_FILE =
+            join(Repository.GITLET_DIR, "sparse-checkout");
+
+    /**
+     * The patterns, in order, without their "!".
+     */
+    private final List<String> patterns = new ArrayList<>();
+
+    /**
+     * The matchers of the patterns, in order.
+     */
+    private final List<PathMatcher> matchers = new ArrayList<>();
+
+    /**
+     * Whether each pattern includes the files it matches.
+     */
+    private final List<Boolean> includes = new ArrayList<>();
+
+    private SparseCheckout(List<String> lines) {
+        for (String line : lines) {
+            String pattern = line.trim();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                continue;
+            }
+            boolean include = !pattern.startsWith("!");
+            if (!include) {
+                pattern = pattern.substring(1);
+            }
+            patterns.add(line.trim());
+            matchers.add(FileSystems.getDefault()
+                    .getPathMatcher("glob:" + pattern));
+            includes.add(include);
+        }
+    }
+
+    /**
+     * Gets the patterns from .gitlet/sparse-checkout, or null if there are
+     * none, meaning every file is included.
+     */
+    public static SparseCheckout getCurSparse() {
+        if (!SPARSE_FILE.isFile()) {
+            return null;
+        }
+        String contents = readContentsAsString(SPARSE_FILE);
+        return new SparseCheckout(Arrays.asList(contents.split("\n")));
+    }
+
+    /**
+     * Returns if file FILENAME is put in the working directory.
+     */
+    public boolean includes(String filename) {
+        Path path = Path.of(filename);
+        for (int i = matchers.size() - 1; i >= 0; i--) {
+            if (matchers.get(i).matches(path)) {
+                return includes.get(i);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns if file FILENAME is put in the working directory by SPARSE,
+     * which may be null.
+     */
+    public static boolean includes(SparseCheckout sparse, String filename) {
+        return sparse == null || sparse.includes(filename);
+    }
+
+    /**
+     * gitlet.Main sparse-checkout set [pattern...]
+     * <p>
+     * Saves PATTERNS, then updates the working directory to them.
+     */
+    public static void set(List<String> patterns) {
+        for (String pattern : patterns) {
+            if (pattern.contains("\n")) {
+                Repository.exit("Incorrect operands.");
+            }
+        }
+        SparseCheckout sparse = new SparseCheckout(patterns);
+        writeContents(SPARSE_FILE, String.join("\n", sparse.patterns), "\n");
+        apply(sparse);
+    }
+
+    /**
+     * gitlet.Main sparse-checkout list
+     * <p>
+     * Prints the patterns, one per line.
+     */
+    public static void list() {
+        SparseCheckout sparse = getCurSparse();
+        if (sparse == null) {
+            Repository.exit("This worktree is not sparse.");
+        }
+        for (String pattern : sparse.patterns) {
+            System.out.println(pattern);
+        }
+    }
+
+    /**
+     * gitlet.Main sparse-checkout disable
+     * <p>
+     * Removes the patterns, putting back every tracked file.
+     */
+    public static void disable() {
+        if (SPARSE_FILE.isFile()) {
+            SPARSE_FILE.delete();
+        }
+        apply(null);
+    }
+
+    /**
+     * Updates the working directory to SPARSE: included files tracked in
+     * the head commit are written if missing, and excluded ones are
+     * deleted unless they were changed.
+     */
+    private static void apply(SparseCheckout sparse) {
+        Map<String, String> trackedMap =
+                Commit.getProjectHeadCommit().getTrackedMap();
+        Staging staging = Staging.getCurStaging();
+        for (Map.Entry<String, String> entry : trackedMap.entrySet()) {
+            String filename = entry.getKey();
+            File file = join(Repository.CWD, filename);
+            if (includes(sparse, filename)) {
+                if (!file.exists()) {
+                    Blob.loadBlob(entry.getValue(), filename);
+                }
+            } else if (file.isFile() && entry.getValue()
+                    .equals(new Blob(file, staging).getSha1())) {
+                restrictedDelete(file);
+            }
+        }
+        staging.saveStamps();
+    }
+}
@@ -1,45 +1,239 @@
 package gitlet;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 import static gitlet.Utils.*;
 
 /**
  * Represents the Staging Area, storing files being added and removed.
+ * <p>
+ * It is saved in .gitlet/index in a binary format:
+ * a header, then one fixed-width entry per path, sorted by path,
+ * then the UTF-8 bytes of all paths.
+ * <pre>
+ * header (32 bytes): magic "GIDX", version, number of entries,
+ *                    number of files staged for addition and for removal,
+ *                    12 reserved bytes
+ * entry (72 bytes):  offset and length of its path, flags, modification
+ *                    time in seconds, size and XXH64 of the stamped
+ *                    contents, SHA1 of the stamped contents, SHA1 staged
+ *                    for addition
+ * </pre>
+ * The file is mapped into memory when read, so opening it costs the same
+ * whatever its size, and looking up a path is a binary search on the
+ * mapping. Changes are kept aside until save(): changes to entries that
+ * are already in the file are written in place, while new paths make
+ * save() rewrite the file. Entries with no flags left are ignored, and
+ * dropped at the next rewrite.
+ * <p>
+ * As in git, a command creates .gitlet/index.lock before it first reads
+ * the index, and removes it once done, so no other command reads or
+ * writes the index in between: two commands can not lose each other's
+ * changes, and a mapping never sees another command's in-place writes.
+ * A command finding the lock fails. A rewrite writes .gitlet/index.new
+ * and moves it over the index atomically, but a command killed during an
+ * in-place save may leave one entry half written. Replacing a file which
+ * is still mapped, as a rewrite does, relies on POSIX rename: Windows
+ * refuses it, so the index is only supported on POSIX systems.
+ * <p>
+ * Before this format, the index was a Java serialized Staging holding a
+ * TreeMap of the files staged for addition and a TreeSet of those staged
+ * for removal. Such an index is rewritten in this format the first time
+ * it is read.
  *
  * @author Vincent Ma
  */
-public class Staging implements Serializable, Dumpable {
+public class Staging implements Dumpable {
     /**
-     * The file storing the staging object.
+     * Only there as Dumpable is Serializable: a Staging is saved in its
+     * own format, never serialized.
+     */
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * The file storing the staging area.
      */
     private static final File STAGINGFILE = join(Repository.GITLET_DIR, "index");
 
     /**
-     * Casting the filename of additional files in staging area
-     * to their SHA1 code.
+     * The file held by the command reading and writing the index.
+     */
+    private static final File LOCKFILE = join(Repository.GITLET_DIR, "index.lock");
+
+    /**
+     * The file holding the new index while it is rewritten.
+     */
+    private static final File NEWFILE = join(Repository.GITLET_DIR, "index.new");
+
+    /**
+     * If this command holds .gitlet/index.lock.
+     */
+    private static boolean locked = false;
+
+    /**
+     * The first 4 bytes of the index, "GIDX".
+     */
+    private static final int MAGIC = 0x47494458;
+
+    /**
+     * The version of the index format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The first 2 bytes of a Java serialization stream, with which the
+     * index began before it was binary.
+     */
+    private static final short SERIAL_MAGIC = (short) 0xACED;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 72;
+    private static final int SHA1_SIZE = UID_LENGTH / 2;
+
+    /* Offsets in the header. */
+    private static final int COUNT_OFFSET = 8;
+    private static final int ADDED_OFFSET = 12;
+    private static final int REMOVED_OFFSET = 16;
+
+    /* Offsets in an entry. */
+    private static final int PATH_OFFSET = 0;
+    private static final int PATH_LENGTH = 4;
+    private static final int FLAGS = 8;
+    private static final int MTIME = 12;
+    private static final int SIZE = 16;
+    private static final int FAST_HASH = 24;
+    private static final int STAMP_SHA1 = 32;
+    private static final int STAGED_SHA1 = STAMP_SHA1 + SHA1_SIZE;
+
+    /* Flags of an entry. */
+    /**
+     * The file is staged for addition, with the staged SHA1.
+     */
+    private static final int ADDED = 1;
+
+    /**
+     * The file is staged for removal.
+     */
+    private static final int REMOVED = 2;
+
+    /**
+     * The file in the working directory had the stamped modification
+     * time, size, XXH64 and SHA1 when it was last hashed. If it still has
+     * the same modification time and size, it is not read again; if it
+     * has the same size and XXH64, its SHA1 is not computed again.
      */
-    private final Map<String, String> additionalMap = new TreeMap<>();
+    private static final int STAMPED = 4;
 
     /**
-     * The set of the filename of removal files in staging area.
+     * The index as read, or null if this Staging is new.
      */
-    private final TreeSet<String> removalSet = new TreeSet<>();
+    private ByteBuffer buffer;
 
     /**
-     * Get Staging object from .gitlet/index.
+     * The number of entries in buffer.
+     */
+    private int entryCount;
+
+    /**
+     * The number of files staged for addition, and for removal.
+     */
+    private int addedCount;
+    private int removedCount;
+
+    /**
+     * Entries changed since the index was read, by path.
+     */
+    private final TreeMap<String, Entry> changes = new TreeMap<>();
+
+    /**
+     * If stamps changed since the index was read.
+     */
+    private boolean stampsChanged = false;
+
+    /**
+     * One path of the index.
+     */
+    private static class Entry {
+        private final String path;
+
+        /**
+         * The position of this entry in the index, or -1 if it is new.
+         */
+        private final int slot;
+        private int flags;
+
+        /**
+         * The modification time of the stamped file in seconds, or 0 if
+         * it may have changed within the second it was stamped in.
+         */
+        private int mtime;
+        private long size;
+        private long fastHash;
+        private String stampSha1;
+        private String stagedSha1;
+
+        Entry(String path, int slot) {
+            this.path = path;
+            this.slot = slot;
+        }
+
+        boolean has(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+
+    /**
+     * Creates an empty staging area, to be saved over .gitlet/index.
+     */
+    public Staging() {
+    }
+
+    /**
+     * Get Staging object from .gitlet/index, locking the index until
+     * this command ends.
      */
     public static Staging getCurStaging() {
-        return readObject(STAGINGFILE, Staging.class);
+        lock();
+        Staging staging = new Staging();
+        staging.read();
+        return staging;
     }
 
     /**
-     * Stores an empty stage object to .gitlet/index.
+     * Stores an empty stage object to .gitlet/index, keeping the stamps
+     * of the working directory.
      */
     public static void clearStaging() {
-        new Staging().save();
+        Staging staging = getCurStaging();
+        staging.clear();
+        staging.save();
+    }
+
+    /**
+     * Unstages every file, keeping the stamps of the working directory.
+     */
+    public void clear() {
+        for (Entry entry : entries()) {
+            if (entry.has(ADDED) || entry.has(REMOVED)) {
+                setFlags(edit(entry.path), entry.flags & STAMPED);
+            }
+        }
     }
 
     /**
@@ -123,35 +317,137 @@ public class Staging implements Serializable, Dumpable {
      * @return If this staging objects is empty.
      */
     public boolean isEmpty() {
-        return additionalMap.isEmpty() && removalSet.isEmpty();
+        return addedCount == 0 && removedCount == 0;
     }
 
+    /**
+     * Returns the files staged for addition, cast to their SHA1 code.
+     */
     public Map<String, String> getAdditionalMap() {
+        Map<String, String> additionalMap = new TreeMap<>();
+        for (Entry entry : entries()) {
+            if (entry.has(ADDED)) {
+                additionalMap.put(entry.path, entry.stagedSha1);
+            }
+        }
         return additionalMap;
     }
 
+    /**
+     * Returns the files staged for removal.
+     */
     public Set<String> getRemovalSet() {
+        Set<String> removalSet = new TreeSet<>();
+        for (Entry entry : entries()) {
+            if (entry.has(REMOVED)) {
+                removalSet.add(entry.path);
+            }
+        }
         return removalSet;
     }
 
+    /**
+     * Returns the SHA1 staged for addition of file FILENAME, or null if
+     * it is not staged for addition.
+     */
+    public String getStagedSha(String filename) {
+        Entry entry = find(filename);
+        return entry != null && entry.has(ADDED) ? entry.stagedSha1 : null;
+    }
+
+    /**
+     * Returns the SHA1 of FILE in the working directory. FILE is not read
+     * if its modification time and size are the stamped ones, and its
+     * SHA1 is only computed if its XXH64 differs from the stamped one.
+     */
+    public String getSha1(File file) {
+        String filename = file.getName();
+        int mtime = mtimeOf(file);
+        Entry entry = find(filename);
+        if (entry != null && entry.has(STAMPED) && entry.mtime != 0
+                && entry.mtime == mtime && entry.size == file.length()) {
+            return entry.stampSha1;
+        }
+
+        byte[] contents = readContents(file);
+        long fastHash = XxHash64.hash(contents);
+        if (entry != null && entry.has(STAMPED)
+                && entry.size == contents.length
+                && entry.fastHash == fastHash) {
+            if (entry.mtime != mtime) {
+                edit(filename).mtime = mtime;
+                stampsChanged = true;
+            }
+            return entry.stampSha1;
+        }
+        String sha1 = sha1(contents);
+        entry = edit(filename);
+        entry.mtime = mtime;
+        entry.size = contents.length;
+        entry.fastHash = fastHash;
+        entry.stampSha1 = sha1;
+        setFlags(entry, entry.flags | STAMPED);
+        stampsChanged = true;
+        return sha1;
+    }
+
+    /**
+     * Returns the modification time of FILE in seconds, or 0 if it is
+     * this second or later: the file may still change within the same
+     * second, so it must be hashed the next time.
+     */
+    private static int mtimeOf(File file) {
+        long seconds = file.lastModified() / 1000;
+        if (seconds >= System.currentTimeMillis() / 1000) {
+            return 0;
+        }
+        return (int) seconds;
+    }
+
+    /**
+     * Forgets the stamps of files not in WD FILES NAME.
+     */
+    public void pruneStamps(Collection<String> wdFilesName) {
+        Set<String> wdFiles = new HashSet<>(wdFilesName);
+        for (Entry entry : entries()) {
+            if (entry.has(STAMPED) && !wdFiles.contains(entry.path)) {
+                setFlags(edit(entry.path), entry.flags & ~STAMPED);
+                stampsChanged = true;
+            }
+        }
+    }
+
+    /**
+     * Saves this Staging if its stamps changed, so that later commands
+     * can reuse them.
+     */
+    public void saveStamps() {
+        if (stampsChanged) {
+            save();
+        }
+    }
+
     /**
      * Add given FILE to Staging Area according SHA of it
      * in last commit, and current workplace.
      */
     public void addFile(String filename, String commitSha, String stagingSha, Blob blob) {
         // starts tracking again
-        removalSet.remove(blob.getStoredFile().getName());
+        Entry entry = edit(blob.getStoredFile().getName());
+        setFlags(entry, entry.flags & ~REMOVED);
 
         String curSha = blob.getSha1();
+        entry = edit(filename);
         if (Objects.equals(stagingSha, curSha)) {
             // no changes in this file
             Repository.exit();
         } else if (Objects.equals(commitSha, curSha)) {
             // change back to last commit version
-            additionalMap.remove(filename);
+            setFlags(entry, entry.flags & ~ADDED);
         } else {
             // continue to change
-            additionalMap.put(filename, curSha);
+            entry.stagedSha1 = curSha;
+            setFlags(entry, entry.flags | ADDED);
             blob.save();
         }
     }
@@ -163,7 +459,26 @@ public class Staging implements Serializable, Dumpable {
         if (Blob.getBlobFile(sha) == null) {
             throw new NullPointerException("Missing blob file.");
         }
-        additionalMap.put(filename, sha);
+        stageFile(filename, sha);
+    }
+
+    /**
+     * Stages version SHA of file FILENAME for addition, without checking
+     * that its blob is stored, which the caller did.
+     */
+    public void stageFile(String filename, String sha) {
+        Entry entry = edit(filename);
+        entry.stagedSha1 = sha;
+        setFlags(entry, (entry.flags | ADDED) & ~REMOVED);
+    }
+
+    /**
+     * Stages file FILENAME, tracked in the head commit, for removal,
+     * without touching the working directory.
+     */
+    public void stageRemoval(String filename) {
+        Entry entry = edit(filename);
+        setFlags(entry, (entry.flags | REMOVED) & ~ADDED);
     }
 
     /**
@@ -173,22 +488,410 @@ public class Staging implements Serializable, Dumpable {
      * remove it unless it is tracked in the current commit).
      */
     public void rmFile(String filename) {
-        String sha = additionalMap.remove(filename);
+        Entry entry = edit(filename);
+        boolean wasAdded = entry.has(ADDED);
+        setFlags(entry, entry.flags & ~ADDED);
 
         Commit lastCommit = Commit.getProjectHeadCommit();
         if (lastCommit.getTrackedMap().containsKey(filename)) {
-            removalSet.add(filename);
-            restrictedDelete(filename);
-        } else if (sha == null) {
+            setFlags(entry, entry.flags | REMOVED);
+            restrictedDelete(join(Repository.CWD, filename));
+        } else if (!wasAdded) {
             Repository.exit("No reason to remove the file.");
         }
     }
 
     /**
-     * Saves current Staging to .gitlet/INDEX.
+     * Returns if FILE is an index in the binary format.
+     */
+    public static boolean isIndex(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException excp) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the staging area stored in FILE, an index in the binary
+     * format, to look at it.
+     */
+    public static Staging readIndex(File file) {
+        Staging staging = new Staging();
+        staging.read(file);
+        return staging;
+    }
+
+    /**
+     * Saves current Staging to .gitlet/INDEX. Changes to paths already in
+     * the index are written in place; otherwise the index is rewritten.
      */
     public void save() {
-        writeObject(STAGINGFILE, this);
+        lock();
+        boolean inPlace = buffer != null;
+        for (Entry entry : changes.values()) {
+            inPlace &= entry.slot >= 0;
+        }
+        if (inPlace) {
+            writeInPlace();
+        } else {
+            rewrite();
+        }
+        read();
+    }
+
+    /* Reading the index. */
+
+    /**
+     * Maps .gitlet/index, reading only its header, and drops the changes
+     * of this Staging. An index in the former serialized format is
+     * migrated first.
+     */
+    private void read() {
+        read(STAGINGFILE);
+    }
+
+    /**
+     * Maps index FILE, reading only its header, and drops the changes of
+     * this Staging.
+     */
+    private void read(File file) {
+        long start = Trace.start();
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        if (file.equals(STAGINGFILE) && mapped.capacity() >= 2
+                && mapped.getShort(0) == SERIAL_MAGIC) {
+            migrate();
+            return;
+        }
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+            throw error("Unsupported index format in %s.", file);
+        }
+        if (mapped.getInt(4) != VERSION) {
+            throw error("Unsupported index version %d.", mapped.getInt(4));
+        }
+        buffer = mapped;
+        entryCount = mapped.getInt(COUNT_OFFSET);
+        addedCount = mapped.getInt(ADDED_OFFSET);
+        removedCount = mapped.getInt(REMOVED_OFFSET);
+        changes.clear();
+        stampsChanged = false;
+        Trace.record(Trace.Phase.READ_INDEX, start, mapped.capacity());
+    }
+
+    /**
+     * The staging area as it was serialized in .gitlet/index before the
+     * index was binary, with the fields of the Staging of then.
+     */
+    private static class LegacyStaging implements Serializable {
+        /**
+         * The serialVersionUID Java computed for the Staging of then.
+         */
+        private static final long serialVersionUID = 3745017514522854832L;
+
+        private Map<String, String> additionalMap;
+        private TreeSet<String> removalSet;
+    }
+
+    /**
+     * Reads a serialized Staging as a LegacyStaging, which has the same
+     * fields, so that its class does not need to be the Staging of then.
+     */
+    private static class LegacyInputStream extends ObjectInputStream {
+        LegacyInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor()
+                throws IOException, ClassNotFoundException {
+            ObjectStreamClass desc = super.readClassDescriptor();
+            if (!desc.getName().equals(Staging.class.getName())) {
+                return desc;
+            }
+            ObjectStreamClass legacy = ObjectStreamClass.lookup(LegacyStaging.class);
+            if (desc.getFields().length != legacy.getFields().length) {
+                throw error("Unsupported index format in %s.", STAGINGFILE);
+            }
+            for (ObjectStreamField field : desc.getFields()) {
+                if (legacy.getField(field.getName()) == null) {
+                    throw error("Unsupported index format in %s.", STAGINGFILE);
+                }
+            }
+            return legacy;
+        }
+    }
+
+    /**
+     * Rewrites .gitlet/index, in the former serialized format, in the
+     * binary format, then reads it.
+     */
+    private void migrate() {
+        LegacyStaging legacy;
+        try (ObjectInputStream in = new LegacyInputStream(
+                new FileInputStream(STAGINGFILE))) {
+            legacy = (LegacyStaging) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException excp) {
+            throw error("Unsupported index format in %s.", STAGINGFILE);
+        }
+        buffer = null;
+        entryCount = 0;
+        addedCount = 0;
+        removedCount = 0;
+        changes.clear();
+        for (Map.Entry<String, String> added : legacy.additionalMap.entrySet()) {
+            stageFile(added.getKey(), added.getValue());
+        }
+        for (String removed : legacy.removalSet) {
+            stageRemoval(removed);
+        }
+        rewrite();
+        read();
+    }
+
+    private int entryOffset(int slot) {
+        return HEADER_SIZE + slot * ENTRY_SIZE;
+    }
+
+    /**
+     * Returns the path of the entry at SLOT of the index.
+     */
+    private String pathAt(int slot) {
+        int offset = entryOffset(slot);
+        byte[] bytes = new byte[buffer.getInt(offset + PATH_LENGTH)];
+        buffer.get(entryOffset(entryCount) + buffer.getInt(offset + PATH_OFFSET),
+                bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the entry at SLOT of the index.
+     */
+    private Entry entryAt(int slot) {
+        int offset = entryOffset(slot);
+        Entry entry = new Entry(pathAt(slot), slot);
+        entry.flags = buffer.getInt(offset + FLAGS);
+        entry.mtime = buffer.getInt(offset + MTIME);
+        entry.size = buffer.getLong(offset + SIZE);
+        entry.fastHash = buffer.getLong(offset + FAST_HASH);
+        if (entry.has(STAMPED)) {
+            entry.stampSha1 = getSha1At(offset + STAMP_SHA1);
+        }
+        if (entry.has(ADDED)) {
+            entry.stagedSha1 = getSha1At(offset + STAGED_SHA1);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the slot of PATH in the index, or -1 if it is not there.
+     */
+    private int search(String path) {
+        int lo = 0;
+        int hi = entryCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = pathAt(mid).compareTo(path);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the current entry of PATH, or null if there is none.
+     */
+    private Entry find(String path) {
+        Entry entry = changes.get(path);
+        if (entry == null && buffer != null) {
+            int slot = search(path);
+            entry = slot < 0 ? null : entryAt(slot);
+        }
+        return entry == null || entry.flags == 0 ? null : entry;
+    }
+
+    /**
+     * Returns the entry of PATH to be changed, creating it if needed.
+     */
+    private Entry edit(String path) {
+        Entry entry = changes.get(path);
+        if (entry == null) {
+            int slot = buffer == null ? -1 : search(path);
+            entry = slot < 0 ? new Entry(path, -1) : entryAt(slot);
+            changes.put(path, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Sets the flags of ENTRY to FLAGS, keeping the counts of staged
+     * files up to date.
+     */
+    private void setFlags(Entry entry, int flags) {
+        addedCount += ((flags & ADDED) - (entry.flags & ADDED)) / ADDED;
+        removedCount += ((flags & REMOVED) - (entry.flags & REMOVED)) / REMOVED;
+        entry.flags = flags;
+    }
+
+    /**
+     * Returns all current entries with flags, sorted by path.
+     */
+    private List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>();
+        Iterator<Entry> changed = changes.values().iterator();
+        Entry next = changed.hasNext() ? changed.next() : null;
+        for (int i = 0; i < entryCount; i++) {
+            String path = pathAt(i);
+            while (next != null && next.path.compareTo(path) <= 0) {
+                if (next.path.compareTo(path) < 0) {
+                    entries.add(next);
+                }
+                next = changed.hasNext() ? changed.next() : null;
+            }
+            Entry change = changes.get(path);
+            entries.add(change != null ? change : entryAt(i));
+        }
+        while (next != null) {
+            entries.add(next);
+            next = changed.hasNext() ? changed.next() : null;
+        }
+        entries.removeIf(entry -> entry.flags == 0);
+        return entries;
+    }
+
+    private String getSha1At(int offset) {
+        StringBuilder builder = new StringBuilder(UID_LENGTH);
+        for (int i = 0; i < SHA1_SIZE; i++) {
+            int b = buffer.get(offset + i) & 0xFF;
+            builder.append(Character.forDigit(b >>> 4, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /* Writing the index. */
+
+    /**
+     * Writes the fixed fields of the changed entries, and the counts in
+     * the header, over the index. All changed entries must be in it.
+     */
+    private void writeInPlace() {
+        long start = Trace.start();
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(STAGINGFILE.toPath(),
+                StandardOpenOption.WRITE)) {
+            ByteBuffer fields = ByteBuffer.allocate(ENTRY_SIZE - FLAGS);
+            for (Entry entry : changes.values()) {
+                fields.clear();
+                putFields(fields, entry);
+                fields.flip();
+                written += channel.write(fields,
+                        entryOffset(entry.slot) + FLAGS);
+            }
+            ByteBuffer counts = ByteBuffer.allocate(8);
+            counts.putInt(addedCount).putInt(removedCount).flip();
+            written += channel.write(counts, ADDED_OFFSET);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        Trace.record(Trace.Phase.WRITE_INDEX, start, written);
+    }
+
+    /**
+     * Creates .gitlet/index.lock, unless this command holds it already.
+     */
+    private static void lock() {
+        if (locked) {
+            return;
+        }
+        try {
+            Files.createFile(LOCKFILE.toPath());
+        } catch (FileAlreadyExistsException excp) {
+            throw error("Unable to lock the index: %s exists. If no other "
+                    + "gitlet command is running, remove it.", LOCKFILE);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        locked = true;
+    }
+
+    /**
+     * Removes .gitlet/index.lock if this command holds it, letting other
+     * commands use the index. Main.run calls it once a command is done,
+     * and bisect run before each script, which may run gitlet itself.
+     */
+    public static void unlock() {
+        if (locked) {
+            LOCKFILE.delete();
+            locked = false;
+        }
+    }
+
+    /**
+     * Writes all current entries to a new index, which then replaces
+     * .gitlet/index.
+     */
+    private void rewrite() {
+        long start = Trace.start();
+        List<Entry> entries = entries();
+        List<byte[]> paths = new ArrayList<>(entries.size());
+        int pathsSize = 0;
+        for (Entry entry : entries) {
+            byte[] path = entry.path.getBytes(StandardCharsets.UTF_8);
+            paths.add(path);
+            pathsSize += path.length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(
+                HEADER_SIZE + entries.size() * ENTRY_SIZE + pathsSize);
+        out.putInt(MAGIC).putInt(VERSION).putInt(entries.size())
+                .putInt(addedCount).putInt(removedCount);
+        out.position(HEADER_SIZE);
+        int pathOffset = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            out.putInt(pathOffset).putInt(paths.get(i).length);
+            putFields(out, entries.get(i));
+            pathOffset += paths.get(i).length;
+        }
+        for (byte[] path : paths) {
+            out.put(path);
+        }
+        out.flip();
+
+        lock();
+        try (FileChannel channel = FileChannel.open(NEWFILE.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        } catch (IOException excp) {
+            NEWFILE.delete();
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        // The mapping is dropped once collected; until then, only POSIX
+        // lets the file be replaced.
+        buffer = null;
+        try {
+            Files.move(NEWFILE.toPath(), STAGINGFILE.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException excp) {
+            NEWFILE.delete();
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        Trace.record(Trace.Phase.WRITE_INDEX, start, out.limit());
     }
 
     /**
@@ -196,9 +899,32 @@ public class Staging implements Serializable, Dumpable {
      */
     @Override
     public void dump() {
+        System.out.println("entries=" + entries().size());
         System.out.print("AdditionalMap=");
-        System.out.println(additionalMap.keySet());
+        System.out.println(getAdditionalMap().keySet());
         System.out.print("RemovalSet=");
-        System.out.println(removalSet);
+        System.out.println(getRemovalSet());
+    }
+
+    /**
+     * Puts the fields of ENTRY that follow its path into OUT.
+     */
+    private static void putFields(ByteBuffer out, Entry entry) {
+        out.putInt(entry.flags).putInt(entry.has(STAMPED) ? entry.mtime : 0);
+        out.putLong(entry.has(STAMPED) ? entry.size : 0);
+        out.putLong(entry.has(STAMPED) ? entry.fastHash : 0);
+        putSha1(out, entry.has(STAMPED) ? entry.stampSha1 : null);
+        putSha1(out, entry.has(ADDED) ? entry.stagedSha1 : null);
+    }
+
+    /**
+     * Puts the 20 bytes of hexadecimal SHA1 into OUT, or zeros if SHA1 is
+     * null.
+     */
+    private static void putSha1(ByteBuffer out, String sha1) {
+        for (int i = 0; i < SHA1_SIZE; i++) {
+            out.put(sha1 == null ? 0
+                    : (byte) Integer.parseInt(sha1.substring(2 * i, 2 * i + 2), 16));
+        }
     }
 }
@@ -0,0 +1,107 @@
+package gitlet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Checks Diff against a brute-force longest common subsequence. */
+public class TestDiff {
+
+    /**
+     * Returns the length of a longest common subsequence of A and B, by
+     * dynamic programming over every pair of positions.
+     */
+    private static int lcsLength(int[] a, int[] b) {
+        int[][] lengths = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                lengths[i][j] = a[i] == b[j] ? lengths[i + 1][j + 1] + 1
+                        : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        return lengths[0][0];
+    }
+
+    /**
+     * Checks that the blocks of Diff.matches(A, B) are in order, match
+     * equal lines, and add up to a longest common subsequence.
+     */
+    private static void checkMatches(int[] a, int[] b) {
+        String message = Arrays.toString(a) + " " + Arrays.toString(b);
+        List<int[]> blocks = Diff.matches(a, b);
+        int aEnd = 0;
+        int bEnd = 0;
+        int matched = 0;
+        for (int[] block : blocks) {
+            assertTrue(message, block[0] >= aEnd && block[1] >= bEnd);
+            assertTrue(message, block[2] > 0);
+            for (int k = 0; k < block[2]; k++) {
+                assertEquals(message, a[block[0] + k], b[block[1] + k]);
+            }
+            aEnd = block[0] + block[2];
+            bEnd = block[1] + block[2];
+            matched += block[2];
+        }
+        assertEquals(message, lcsLength(a, b), matched);
+    }
+
+    private static int[] randomLines(Random random, int length, int alphabet) {
+        int[] lines = new int[length];
+        for (int i = 0; i < length; i++) {
+            lines[i] = random.nextInt(alphabet);
+        }
+        return lines;
+    }
+
+    @Test
+    public void emptyTest() {
+        checkMatches(new int[0], new int[0]);
+        checkMatches(new int[]{1, 2}, new int[0]);
+        checkMatches(new int[0], new int[]{1, 2});
+        assertTrue(Diff.matches(new int[]{1}, new int[]{2}).isEmpty());
+    }
+
+    @Test
+    public void randomTest() {
+        Random random = new Random(34);
+        for (int t = 0; t < 20000; t++) {
+            // Small alphabets give many equal lines, and many LCS.
+            int alphabet = 1 + random.nextInt(5);
+            checkMatches(randomLines(random, random.nextInt(25), alphabet),
+                    randomLines(random, random.nextInt(25), alphabet));
+        }
+    }
+
+    @Test
+    public void editTest() {
+        Random random = new Random(35);
+        for (int t = 0; t < 2000; t++) {
+            int[] a = randomLines(random, 1 + random.nextInt(60), 8);
+            int[] b = a.clone();
+            for (int k = random.nextInt(4); k >= 0; k--) {
+                b[random.nextInt(b.length)] = random.nextInt(10);
+            }
+            checkMatches(a, b);
+        }
+    }
+
+    @Test
+    public void prefixSuffixTest() {
+        int[] a = new int[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i;
+        }
+        int[] b = a.clone();
+        b[500] = -1;
+        List<int[]> blocks = Diff.matches(a, b);
+        int matched = 0;
+        for (int[] block : blocks) {
+            matched += block[2];
+        }
+        assertEquals(999, matched);
+        checkMatches(a, b);
+    }
+}
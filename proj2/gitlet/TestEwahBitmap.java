@@ -0,0 +1,103 @@
+package gitlet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/** Checks EwahBitmap against java.util.BitSet. */
+public class TestEwahBitmap {
+
+    /**
+     * Returns a random set of ints below BITS made of runs of clear bits,
+     * runs of set bits and runs of sparse bits, so that the bitmap has
+     * both run and literal words.
+     */
+    private static BitSet randomSet(Random random, int bits) {
+        BitSet set = new BitSet();
+        int i = 0;
+        while (i < bits) {
+            int mode = random.nextInt(3);
+            int end = Math.min(bits, i + 1 + random.nextInt(500));
+            for (; i < end; i++) {
+                if (mode == 1 || mode == 2 && random.nextInt(5) == 0) {
+                    set.set(i);
+                }
+            }
+        }
+        return set;
+    }
+
+    private static EwahBitmap toBitmap(BitSet set) {
+        return EwahBitmap.of(set.toLongArray());
+    }
+
+    private static void assertSame(BitSet expected, EwahBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        for (int i = 0; i < expected.length() + 130; i++) {
+            assertEquals("bit " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void ofTest() {
+        Random random = new Random(61);
+        for (int t = 0; t < 500; t++) {
+            BitSet set = randomSet(random, random.nextInt(300) * 64);
+            assertSame(set, toBitmap(set));
+        }
+        assertSame(new BitSet(), EwahBitmap.EMPTY);
+        assertSame(new BitSet(), EwahBitmap.of(new long[5]));
+    }
+
+    @Test
+    public void combineTest() {
+        Random random = new Random(62);
+        for (int t = 0; t < 500; t++) {
+            BitSet a = randomSet(random, random.nextInt(300) * 64);
+            BitSet b = randomSet(random, random.nextInt(300) * 64);
+            EwahBitmap ea = toBitmap(a);
+            EwahBitmap eb = toBitmap(b);
+
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            assertSame(or, ea.or(eb));
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertSame(and, ea.and(eb));
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+            assertSame(andNot, ea.andNot(eb));
+            assertEquals(toBitmap(andNot), ea.andNot(eb));
+        }
+    }
+
+    @Test
+    public void rangeAndSingletonTest() {
+        for (int n : new int[]{0, 1, 63, 64, 65, 128, 1000}) {
+            BitSet range = new BitSet();
+            range.set(0, n);
+            assertSame(range, EwahBitmap.range(n));
+
+            BitSet singleton = new BitSet();
+            singleton.set(n);
+            assertSame(singleton, EwahBitmap.singleton(n));
+        }
+    }
+
+    @Test
+    public void compressionTest() {
+        // A long run takes a marker word, whatever its length.
+        EwahBitmap range = EwahBitmap.range(64 * 100000);
+        assertTrue(range.sizeInWords() <= 2);
+        assertEquals(64 * 100000, range.cardinality());
+        assertTrue(EwahBitmap.singleton(64 * 100000).sizeInWords() <= 2);
+
+        int[] ints = EwahBitmap.range(64 * 3 + 5).andNot(EwahBitmap.singleton(7)).toArray();
+        assertEquals(64 * 3 + 4, ints.length);
+        assertTrue(Arrays.binarySearch(ints, 7) < 0);
+    }
+}
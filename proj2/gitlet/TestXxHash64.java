@@ -0,0 +1,62 @@
+package gitlet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Checks XxHash64 against the reference vectors of xxHash. */
+public class TestXxHash64 {
+    private static final long PRIME32 = 2654435761L;
+
+    /**
+     * The sanity buffer of xxhsum: each byte is the top byte of a 32-bit
+     * state, squared at each step from PRIME32.
+     */
+    private static byte[] sanityBuffer(int length) {
+        byte[] buffer = new byte[length];
+        int gen = (int) PRIME32;
+        for (int i = 0; i < length; i++) {
+            buffer[i] = (byte) (gen >>> 24);
+            gen *= gen;
+        }
+        return buffer;
+    }
+
+    private static long hash(String s) {
+        return XxHash64.hash(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void sanityBufferTest() {
+        byte[] buffer = sanityBuffer(101);
+        // Lengths 0, 1 and 14 take only the tail loops; 101 takes stripes too.
+        assertEquals(0xEF46DB3751D8E999L, XxHash64.hash(Arrays.copyOf(buffer, 0), 0));
+        assertEquals(0xAC75FDA2929B17EFL, XxHash64.hash(Arrays.copyOf(buffer, 0), PRIME32));
+        assertEquals(0x4FCE394CC88952D8L, XxHash64.hash(Arrays.copyOf(buffer, 1), 0));
+        assertEquals(0x739840CB819FA723L, XxHash64.hash(Arrays.copyOf(buffer, 1), PRIME32));
+        assertEquals(0xCFFA8DB881BC3A3DL, XxHash64.hash(Arrays.copyOf(buffer, 14), 0));
+        assertEquals(0x5B9611585EFCC9CBL, XxHash64.hash(Arrays.copyOf(buffer, 14), PRIME32));
+        assertEquals(0x0EAB543384F878ADL, XxHash64.hash(buffer, 0));
+        assertEquals(0xCAA65939306F1E21L, XxHash64.hash(buffer, PRIME32));
+    }
+
+    @Test
+    public void stringTest() {
+        assertEquals(0xEF46DB3751D8E999L, hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L,
+                hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void defaultSeedTest() {
+        byte[] buffer = sanityBuffer(222);
+        for (int length = 0; length <= buffer.length; length++) {
+            byte[] data = Arrays.copyOf(buffer, length);
+            assertEquals(XxHash64.hash(data, 0), XxHash64.hash(data));
+        }
+    }
+}
@@ -0,0 +1,1042 @@
+package gitlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An in-process runner for the .in test scripts read by
+ * testing/tester.py. Usage:
+ * java gitlet.Tester OPTIONS TEST.in ...
+ * <p>
+ * It accepts the same directives (#, I, C, T, +, -, >, =, *, E, D) and
+ * reports results in the same format, but instead of starting a JVM for
+ * every ">" command, it runs gitlet.Main in this JVM. Each command gets a
+ * fresh class loader, so the static state of gitlet is as new as in a
+ * separate JVM, and its Repository.CWD is set to the directory of the
+ * test. Independent test files run in parallel.
+ * <p>
+ * OPTIONS are those of tester.py (--show=N, --show=all, --keep,
+ * --progdir=DIR, --src=SRC, --tolerance=N, --verbose), plus
+ * --jobs=N, the number of test files run at a time (default: one per
+ * core).
+ *
+ * @author Vincent Ma
+ */
+public class Tester {
+    /**
+     * Default number of seconds allowed to each execution of gitlet.
+     */
+    private static final double TIMEOUT = 10;
+
+    /**
+     * The usage message.
+     */
+    private static final String USAGE = String.join("\n",
+            "Usage: java gitlet.Tester OPTIONS TEST.in ...",
+            "",
+            "   OPTIONS may include",
+            "       --show=N       Show details on up to N tests.",
+            "       --show=all     Show details on all tests.",
+            "       --keep         Keep test directories",
+            "       --progdir=DIR  Directory or JAR files containing gitlet "
+                    + "application",
+            "       --src=SRC      Use SRC instead of \"src\" as the "
+                    + "subdirectory containing",
+            "                      files referenced by + and =.",
+            "       --tolerance=N  Set the maximum allowed edit distance "
+                    + "between program",
+            "                      output and expected output to N "
+                    + "(default 3).",
+            "       --verbose      Print extra information about execution.",
+            "       --jobs=N       Run up to N test files at a time "
+                    + "(default: number of cores).");
+
+    /**
+     * Guards the user.dir property while a command's Repository is
+     * being initialized.
+     */
+    private static final Object USER_DIR_LOCK = new Object();
+
+    /**
+     * The output of commands running on the current thread, or null if
+     * the output of this thread is not captured.
+     */
+    private static final ThreadLocal<ByteArrayOutputStream> CAPTURED =
+            new ThreadLocal<>();
+
+    /**
+     * The System.out this JVM started with.
+     */
+    private static final PrintStream STDOUT = System.out;
+
+    /**
+     * Number of tests whose details may still be shown, or null if
+     * details are not shown. Integer.MAX_VALUE means all.
+     */
+    private Integer show = null;
+
+    /**
+     * If test directories are kept.
+     */
+    private boolean keep = false;
+
+    /**
+     * If extra information is printed.
+     */
+    private boolean verbose = false;
+
+    /**
+     * The directory containing files referenced by + and =.
+     */
+    private File srcDir = new File("src");
+
+    /**
+     * Maximum allowed edit distance between program output and expected
+     * output.
+     */
+    private int tolerance = 3;
+
+    /**
+     * Number of test files run at a time.
+     */
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Where the classes of gitlet are loaded from.
+     */
+    private ClassLoader progLoader = Tester.class.getClassLoader();
+
+    /**
+     * Bytes of gitlet classes, read once and defined by every command's
+     * class loader.
+     */
+    private final Map<String, byte[]> classBytes = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) {
+        Tester tester = new Tester();
+        List<String> files = tester.parseOptions(args);
+        if (files.isEmpty()) {
+            STDOUT.println(USAGE);
+            return;
+        }
+        if (!tester.runAll(files)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sets the options given in ARGS, and returns the test files.
+     */
+    private List<String> parseOptions(String[] args) {
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                files.add(arg);
+                continue;
+            }
+            String[] opt = arg.split("=", 2);
+            String val = opt.length == 2 ? opt[1] : null;
+            switch (opt[0]) {
+                case "--show":
+                    if (val != null && val.equalsIgnoreCase("all")) {
+                        show = Integer.MAX_VALUE;
+                    } else {
+                        show = Integer.parseInt(requireValue(val));
+                    }
+                    break;
+                case "--keep":
+                    keep = true;
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                case "--src":
+                    srcDir = new File(requireValue(val)).getAbsoluteFile();
+                    break;
+                case "--tolerance":
+                    tolerance = Integer.parseInt(requireValue(val));
+                    break;
+                case "--jobs":
+                    jobs = Math.max(1, Integer.parseInt(requireValue(val)));
+                    break;
+                case "--progdir":
+                    progLoader = progDirLoader(requireValue(val));
+                    break;
+                default:
+                    usage();
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns VAL, or quits with the usage message if it is null.
+     */
+    private static String requireValue(String val) {
+        if (val == null) {
+            usage();
+        }
+        return val;
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * Returns a class loader reading gitlet classes from DIRS only,
+     * a path-separated list of directories or JAR files.
+     */
+    private static ClassLoader progDirLoader(String dirs) {
+        List<URL> urls = new ArrayList<>();
+        try {
+            for (String dir : dirs.split(File.pathSeparator)) {
+                urls.add(new File(dir).toURI().toURL());
+            }
+        } catch (MalformedURLException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return new URLClassLoader(urls.toArray(new URL[0]), null);
+    }
+
+    /**
+     * Runs each of FILES, at most jobs of them at a time, and prints
+     * their results in the given order.
+     *
+     * @return True if all tests passed.
+     */
+    private boolean runAll(List<String> files) {
+        System.setOut(new PrintStream(new CapturingStream(STDOUT), true));
+        System.setErr(new PrintStream(
+                new CapturingStream(System.err), true));
+
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (String file : files) {
+            if (new File(file).exists()) {
+                futures.add(pool.submit(() -> runTest(file)));
+            }
+        }
+        pool.shutdown();
+
+        int errs = 0;
+        int fails = 0;
+        for (Future<Result> future : futures) {
+            Result result;
+            try {
+                result = future.get();
+            } catch (InterruptedException | ExecutionException excp) {
+                throw new IllegalStateException(excp);
+            }
+            STDOUT.print(result.log);
+            if (result.failed) {
+                fails += 1;
+            } else if (result.errorLine != null) {
+                errs += 1;
+                reportDetails(result);
+            }
+        }
+
+        STDOUT.println();
+        STDOUT.print("Ran " + futures.size() + " tests. ");
+        if (errs == 0 && fails == 0) {
+            STDOUT.println("All passed.");
+            return true;
+        }
+        STDOUT.println((futures.size() - errs - fails) + " passed.");
+        return false;
+    }
+
+    /**
+     * Prints the failing line and the text of the test in RESULT, while
+     * there are details left to show.
+     */
+    private void reportDetails(Result result) {
+        if (show == null) {
+            return;
+        }
+        if (show <= 0) {
+            STDOUT.println("   Limit on error details exceeded.");
+            return;
+        }
+        if (show != Integer.MAX_VALUE) {
+            show -= 1;
+        }
+        File test = new File(result.test);
+        STDOUT.printf("    Error on line %s of %s%n",
+                result.errorLine, test.getName());
+        List<String> bases = new ArrayList<>();
+        bases.add(test.getName());
+        bases.addAll(result.includedFiles);
+        for (String base : bases) {
+            File full = new File(test.getAbsoluteFile().getParentFile(), base);
+            String text = contents(full);
+            String[] lines = (text == null ? "" : text).split("\n\r?", -1);
+            int width = Math.max(1, (int) Math.round(
+                    Math.log10(Math.max(1, lines.length - 1))));
+            STDOUT.println("-".repeat(20) + " " + base + " " + "-".repeat(20));
+            for (int i = 0; i < lines.length - 1; i++) {
+                STDOUT.printf("%" + width + "d. %s%n", i + 1, lines[i]);
+            }
+            STDOUT.println("-".repeat(42 + base.length()));
+        }
+    }
+
+    /**
+     * The outcome of one test file.
+     */
+    private static class Result {
+        /**
+         * The path of the test file.
+         */
+        private final String test;
+
+        /**
+         * What tester.py would have printed for this test.
+         */
+        private final StringBuilder log = new StringBuilder();
+
+        /**
+         * Files included by the test, relative to its directory.
+         */
+        private final List<String> includedFiles = new ArrayList<>();
+
+        /**
+         * The line the test failed on, or null if it did not fail there.
+         */
+        private String errorLine;
+
+        /**
+         * If the test itself is faulty.
+         */
+        private boolean failed;
+
+        Result(String test) {
+            this.test = test;
+        }
+    }
+
+    /**
+     * Thrown for a faulty test file, as ValueError is in tester.py.
+     */
+    private static class BadTestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        BadTestException(String msg) {
+            super(msg);
+        }
+    }
+
+    /**
+     * Runs the test in file TEST.
+     */
+    private Result runTest(String test) {
+        Result result = new Result(test);
+        String base = new File(test).getName().replaceFirst("\\.[^.]*$", "");
+        result.log.append(base).append(":\n");
+        File tmpDir;
+        try {
+            tmpDir = createTempDir(base);
+        } catch (IOException excp) {
+            result.log.append("FAILED (").append(excp.getMessage()).append(")\n");
+            result.failed = true;
+            return result;
+        }
+        try {
+            String error = new Script(test, tmpDir, result).run();
+            if (error == null) {
+                result.log.append("OK\n");
+            } else {
+                result.log.append("ERROR (").append(error).append(")\n");
+            }
+        } catch (BadTestException excp) {
+            result.log.append("FAILED (").append(excp.getMessage()).append(")\n");
+            result.failed = true;
+            result.errorLine = null;
+        } finally {
+            if (!keep) {
+                deleteTree(tmpDir);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The state of one running test file.
+     */
+    private class Script {
+        /**
+         * The path of the test file.
+         */
+        private final String test;
+
+        /**
+         * The main directory of the test.
+         */
+        private final File tmpDir;
+
+        /**
+         * Where the outcome is recorded.
+         */
+        private final Result result;
+
+        /**
+         * The lines of the test, with included files expanded.
+         */
+        private final LineReader reader;
+
+        /**
+         * Variables defined by D.
+         */
+        private final Map<String, String> defns = new HashMap<>();
+
+        /**
+         * The output of the last command, followed by the groups captured
+         * by its expected output.
+         */
+        private final List<String> lastGroups = new ArrayList<>();
+
+        /**
+         * The directory commands run in.
+         */
+        private File cdir;
+
+        /**
+         * Seconds allowed to each execution of gitlet.
+         */
+        private double timeout = TIMEOUT;
+
+        Script(String test, File tmpDir, Result result)
+                throws BadTestException {
+            this.test = test;
+            this.tmpDir = tmpDir;
+            this.result = result;
+            this.cdir = tmpDir;
+            this.reader = new LineReader(new File(test));
+        }
+
+        /**
+         * Executes the test.
+         *
+         * @return The error of the failing line, or null if all passed.
+         */
+        String run() throws BadTestException {
+            if (verbose) {
+                result.log.append("Testing directory: ").append(tmpDir)
+                        .append("\n");
+            }
+            Matcher m;
+            while (true) {
+                String line = reader.next();
+                if (line == null) {
+                    return null;
+                }
+                if (!line.matches("(?s)\\s*#.*")) {
+                    line = substitute(line);
+                }
+                if (verbose) {
+                    result.log.append("+ ").append(line.stripTrailing())
+                            .append("\n");
+                }
+                if (line.matches("(?s)\\s*#.*") || line.matches("\\s+")) {
+                    continue;
+                } else if ((m = match("I\\s+(\\S+)", line)) != null) {
+                    reader.include(new File(
+                            new File(test).getAbsoluteFile().getParentFile(),
+                            m.group(1)));
+                    result.includedFiles.add(m.group(1));
+                } else if ((m = match("C\\s*(\\S*)", line)) != null) {
+                    if (m.group(1).isEmpty()) {
+                        cdir = tmpDir;
+                    } else {
+                        cdir = new File(tmpDir, m.group(1));
+                        cdir.mkdir();
+                    }
+                } else if ((m = match("T\\s*(\\S+)", line)) != null) {
+                    try {
+                        timeout = Double.parseDouble(m.group(1));
+                    } catch (NumberFormatException excp) {
+                        // tester.py ignores bad times as well.
+                    }
+                } else if ((m = match("\\+\\s*(\\S+)\\s+(\\S+)", line)) != null) {
+                    copy(m.group(2), new File(cdir, m.group(1)));
+                } else if ((m = match("-\\s*(\\S+)", line)) != null) {
+                    new File(cdir, m.group(1)).delete();
+                } else if ((m = match(">\\s*(.*)", line)) != null) {
+                    String error = command(m.group(1), line);
+                    if (error != null) {
+                        return fail(error);
+                    }
+                } else if ((m = match("=\\s*(\\S+)\\s+(\\S+)", line)) != null) {
+                    String actual = contents(new File(cdir, m.group(1)));
+                    String expected = contents(new File(srcDir, m.group(2)));
+                    if (!Objects.equals(canonicalize(actual),
+                            canonicalize(expected))) {
+                        return fail("file " + m.group(1)
+                                + " has incorrect content");
+                    }
+                } else if ((m = match("\\*\\s*(\\S+)", line)) != null) {
+                    if (new File(cdir, m.group(1)).exists()) {
+                        return fail("file " + m.group(1) + " present");
+                    }
+                } else if ((m = match("E\\s*(\\S+)", line)) != null) {
+                    if (!new File(cdir, m.group(1)).exists()) {
+                        return fail("file or directory " + m.group(1)
+                                + " not present");
+                    }
+                } else if ((m = match("(?s)D\\s*([a-zA-Z_][a-zA-Z_0-9]*)"
+                        + "\\s*\"(.*)\"\\s*$", line)) != null) {
+                    defns.put(m.group(1), m.group(2));
+                } else {
+                    throw new BadTestException(
+                            "bad test line at " + reader.lineNum());
+                }
+            }
+        }
+
+        /**
+         * Records that the test failed at the current line with ERROR.
+         */
+        private String fail(String error) {
+            result.errorLine = reader.lineNum();
+            return error;
+        }
+
+        /**
+         * Runs the ">" command CMND found on LINE, and checks its output
+         * against the expected lines that follow.
+         *
+         * @return The error, or null if the output is right.
+         */
+        private String command(String cmnd, String line)
+                throws BadTestException {
+            List<String> expected = new ArrayList<>();
+            boolean isRegexp;
+            while (true) {
+                String l = reader.next();
+                if (l == null) {
+                    throw new BadTestException("unterminated command: " + line);
+                }
+                l = l.stripTrailing();
+                Matcher m = match("<<<(\\*?)", l);
+                if (m != null) {
+                    isRegexp = !m.group(1).isEmpty();
+                    break;
+                }
+                expected.add(substitute(l));
+            }
+            String[] out = new String[1];
+            String error = execute(splitCommand(cmnd), cdir, timeout, out);
+            if (verbose && out[0] != null && !out[0].isEmpty()) {
+                result.log.append(out[0].replaceFirst("\n$", "")
+                        .replaceAll("(?m)^", "- ")).append("\n");
+            }
+            if (error == null
+                    && !correctProgramOutput(expected, out[0], isRegexp)) {
+                error = "incorrect output";
+            }
+            return error;
+        }
+
+        /**
+         * Returns if ACTUAL matches the EXPECTED lines, recording the
+         * captured groups.
+         */
+        private boolean correctProgramOutput(List<String> expected,
+                                             String actual, boolean isRegexp)
+                throws BadTestException {
+            String exp = normalize(String.join("\n", expected));
+            String act = normalize(actual);
+            lastGroups.clear();
+            lastGroups.add(act);
+            if (!isRegexp) {
+                return editDistance(rstrip(exp), rstrip(act)) <= tolerance;
+            }
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(
+                        toJavaRegex(rstrip(exp)) + "\\z");
+            } catch (PatternSyntaxException excp) {
+                throw new BadTestException("bad pattern");
+            }
+            Matcher m = pattern.matcher(act);
+            if (!m.lookingAt()) {
+                m = pattern.matcher(rstrip(act));
+                if (!m.lookingAt()) {
+                    return false;
+                }
+            }
+            for (int i = 1; i <= m.groupCount(); i++) {
+                lastGroups.add(m.group(i));
+            }
+            return true;
+        }
+
+        /**
+         * Replaces each ${VAR} and ${N} in LINE, as tester.py does.
+         */
+        private String substitute(String line) throws BadTestException {
+            Pattern var = Pattern.compile("\\$\\{(.*?)\\}");
+            String prev = null;
+            for (int c = 0; c < 10 && !line.equals(prev); c++) {
+                prev = line;
+                Matcher m = var.matcher(line);
+                StringBuilder builder = new StringBuilder();
+                while (m.find()) {
+                    m.appendReplacement(builder,
+                            Matcher.quoteReplacement(lookup(m.group(1))));
+                }
+                m.appendTail(builder);
+                line = builder.toString();
+            }
+            return line;
+        }
+
+        /**
+         * Returns the value of the variable or group KEY.
+         */
+        private String lookup(String key) throws BadTestException {
+            if (key.matches("\\d+")) {
+                int n = Integer.parseInt(key);
+                if (n >= lastGroups.size()) {
+                    throw new BadTestException(
+                            "FAILED (nonexistent group: {" + key + "})");
+                }
+                String group = lastGroups.get(n);
+                return group == null ? "" : group;
+            } else if (defns.containsKey(key)) {
+                return defns.get(key);
+            }
+            throw new BadTestException("undefined substitution: ${" + key + "}");
+        }
+
+        /**
+         * Copies SRC, relative to srcDir, to DEST.
+         */
+        private void copy(String src, File dest) throws BadTestException {
+            try {
+                Files.copy(new File(srcDir, src).toPath(), dest.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException excp) {
+                throw new BadTestException("file " + src
+                        + " could not be copied to " + dest.getName());
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a test, expanding included files. Line numbers
+     * look like "12", or "3.12" for line 12 of the file included on line 3.
+     */
+    private static class LineReader {
+        /**
+         * The files being read; the innermost is on top.
+         */
+        private final Deque<String[]> files = new ArrayDeque<>();
+
+        /**
+         * The number of lines read from each file in files.
+         */
+        private final Deque<Integer> positions = new ArrayDeque<>();
+
+        /**
+         * The line number prefix of each file in files.
+         */
+        private final Deque<String> prefixes = new ArrayDeque<>();
+
+        /**
+         * The number of the last line read.
+         */
+        private String lineNum;
+
+        LineReader(File file) throws BadTestException {
+            push(file, "");
+        }
+
+        /**
+         * Returns the next line, ending with its newline if it has one,
+         * or null at the end of the test.
+         */
+        String next() {
+            while (!files.isEmpty()) {
+                String[] lines = files.peek();
+                int pos = positions.pop();
+                if (pos < lines.length) {
+                    positions.push(pos + 1);
+                    lineNum = prefixes.peek() + (pos + 1);
+                    return lines[pos];
+                }
+                files.pop();
+                prefixes.pop();
+            }
+            return null;
+        }
+
+        /**
+         * Reads FILE next, as included by the last line read.
+         */
+        void include(File file) throws BadTestException {
+            push(file, lineNum + ".");
+        }
+
+        String lineNum() {
+            return lineNum;
+        }
+
+        private void push(File file, String prefix) throws BadTestException {
+            String text = contents(file);
+            if (text == null) {
+                throw new BadTestException("file " + file + " not found");
+            }
+            List<String> lines = new ArrayList<>();
+            int start = 0;
+            while (start < text.length()) {
+                int end = text.indexOf('\n', start);
+                end = end < 0 ? text.length() : end + 1;
+                lines.add(text.substring(start, end));
+                start = end;
+            }
+            files.push(lines.toArray(new String[0]));
+            positions.push(0);
+            prefixes.push(prefix);
+        }
+    }
+
+    /**
+     * Runs gitlet with ARGS in DIR, allowing it TIMEOUT seconds, and puts
+     * what it printed in OUT[0].
+     *
+     * @return The error, or null if gitlet finished normally.
+     */
+    private String execute(String[] args, File dir, double timeout,
+                           String[] out) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            CAPTURED.set(buffer);
+            try {
+                runGitlet(args, dir);
+            } finally {
+                System.out.flush();
+                System.err.flush();
+                CAPTURED.remove();
+            }
+            return null;
+        });
+        Thread thread = new Thread(task, "gitlet " + String.join(" ", args));
+        thread.setDaemon(true);
+        thread.start();
+        String error = null;
+        try {
+            task.get((long) (timeout * 1000), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException excp) {
+            thread.interrupt();
+            return "timeout";
+        } catch (ExecutionException excp) {
+            synchronized (buffer) {
+                PrintStream err = new PrintStream(buffer, true);
+                err.print("Exception in thread \"main\" ");
+                excp.getCause().printStackTrace(err);
+            }
+            error = "java gitlet.Main exited with code 1";
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+        synchronized (buffer) {
+            out[0] = canonicalize(buffer.toString(StandardCharsets.UTF_8));
+        }
+        return error;
+    }
+
+    /**
+     * Calls gitlet.Main.run(ARGS) in a fresh copy of the gitlet classes,
+     * whose working directory is DIR.
+     */
+    private void runGitlet(String[] args, File dir) throws Exception {
+        ClassLoader loader = new CommandLoader();
+        loader.setDefaultAssertionStatus(true);
+        synchronized (USER_DIR_LOCK) {
+            String userDir = System.getProperty("user.dir");
+            System.setProperty("user.dir", dir.getAbsolutePath());
+            try {
+                Class.forName("gitlet.Repository", true, loader);
+            } finally {
+                System.setProperty("user.dir", userDir);
+            }
+        }
+        Method run = Class.forName("gitlet.Main", true, loader)
+                .getMethod("run", String[].class);
+        try {
+            run.invoke(null, (Object) args);
+        } catch (InvocationTargetException excp) {
+            if (excp.getCause() instanceof Error) {
+                throw (Error) excp.getCause();
+            }
+            throw (Exception) excp.getCause();
+        }
+    }
+
+    /**
+     * Loads its own copy of each gitlet class but Tester, and delegates
+     * all other classes to its parent.
+     */
+    private class CommandLoader extends ClassLoader {
+        CommandLoader() {
+            super(Tester.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve)
+                throws ClassNotFoundException {
+            if (!name.startsWith("gitlet.")
+                    || name.startsWith(Tester.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    byte[] bytes = classBytes.computeIfAbsent(
+                            name, Tester.this::readClass);
+                    if (bytes.length == 0) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    c = defineClass(name, bytes, 0, bytes.length);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Returns the class file of class NAME, or an empty array if there
+     * is none.
+     */
+    private byte[] readClass(String name) {
+        String path = name.replace('.', '/') + ".class";
+        try (InputStream in = progLoader.getResourceAsStream(path)) {
+            return in == null ? new byte[0] : in.readAllBytes();
+        } catch (IOException excp) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Sends what is written on a thread running gitlet to that thread's
+     * buffer, and everything else to the original stream.
+     */
+    private static class CapturingStream extends OutputStream {
+        /**
+         * The original stream.
+         */
+        private final OutputStream original;
+
+        CapturingStream(OutputStream original) {
+            this.original = original;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ByteArrayOutputStream buffer = CAPTURED.get();
+            if (buffer == null) {
+                original.write(b);
+            } else {
+                synchronized (buffer) {
+                    buffer.write(b);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteArrayOutputStream buffer = CAPTURED.get();
+            if (buffer == null) {
+                original.write(b, off, len);
+            } else {
+                synchronized (buffer) {
+                    buffer.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (CAPTURED.get() == null) {
+                original.flush();
+            }
+        }
+    }
+
+    /* Helper functions, as in tester.py */
+
+    /**
+     * Splits CMND into arguments the way a POSIX shell would, honoring
+     * single quotes, double quotes and backslashes.
+     */
+    static String[] splitCommand(String cmnd) {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+        for (int i = 0; i < cmnd.length(); i++) {
+            char c = cmnd.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    arg.append(c);
+                }
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else if (c == '\\' && i + 1 < cmnd.length()
+                        && "\"\\$`".indexOf(cmnd.charAt(i + 1)) >= 0) {
+                    arg.append(cmnd.charAt(++i));
+                } else {
+                    arg.append(c);
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                inArg = true;
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '\\' && i + 1 < cmnd.length()) {
+                    arg.append(cmnd.charAt(++i));
+                } else {
+                    arg.append(c);
+                }
+            }
+        }
+        if (inArg) {
+            args.add(arg.toString());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Strips trailing blanks from each line of S and squeezes leading
+     * blanks into one space.
+     */
+    private static String normalize(String s) {
+        return s.replaceAll("[ \t]+\n", "\n").replaceAll("(?m)^[ \t]+", " ");
+    }
+
+    /**
+     * Returns S without trailing whitespace, like Python's rstrip().
+     */
+    private static String rstrip(String s) {
+        int end = s.length();
+        while (end > 0 && Character.isWhitespace(s.charAt(end - 1))) {
+            end -= 1;
+        }
+        return s.substring(0, end);
+    }
+
+    /**
+     * Rewrites the Python regular expression PATN for java.util.regex.
+     * The only difference met in test scripts is \Z, which is \z in Java.
+     */
+    private static String toJavaRegex(String patn) {
+        return patn.replaceAll("(?<!\\\\)((?:\\\\\\\\)*)\\\\Z", "$1\\\\z");
+    }
+
+    /**
+     * Returns the edit distance between S1 and S2.
+     */
+    static int editDistance(String s1, String s2) {
+        int[] prev = new int[s2.length() + 1];
+        int[] cur = new int[s2.length() + 1];
+        for (int j = 0; j <= s2.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= s1.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= s2.length(); j++) {
+                int sub = s1.charAt(i - 1) != s2.charAt(j - 1) ? 1 : 0;
+                cur[j] = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1),
+                        prev[j - 1] + sub);
+            }
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return prev[s2.length()];
+    }
+
+    /**
+     * Returns S without carriage returns.
+     */
+    private static String canonicalize(String s) {
+        return s == null ? null : s.replace("\r", "");
+    }
+
+    /**
+     * Returns the contents of FILE, or null if it cannot be read.
+     */
+    private static String contents(File file) {
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns pattern PATN matched at the start of S, or null.
+     */
+    private static Matcher match(String patn, String s) {
+        Matcher m = Pattern.compile(patn).matcher(s);
+        return m.lookingAt() ? m : null;
+    }
+
+    /**
+     * Creates a new directory named BASE_N in the current directory.
+     */
+    private static File createTempDir(String base) throws IOException {
+        for (int n = 0; n < 100; n++) {
+            File dir = new File(base + "_" + n);
+            if (dir.mkdir()) {
+                return dir.getAbsoluteFile();
+            }
+        }
+        throw new IOException("could not create temp directory for " + base);
+    }
+
+    /**
+     * Deletes DIR and everything in it, ignoring errors.
+     */
+    private static void deleteTree(File dir) {
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,153 @@
+package gitlet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-command counters and nanosecond timers for the I/O primitives in
+ * Utils. Tracing is turned on by setting the GITLET_TRACE environment
+ * variable (to anything but "0"), or by passing --trace before the command,
+ * e.g. java gitlet.Main --trace status. When it is on, a breakdown of each
+ * phase is printed to System.err as the command exits, so the normal
+ * output of the command is left untouched.
+ * <p>
+ * Timings nest the way the primitives do: writeObject includes the
+ * writeContents it calls, and readContentsAsString is counted as a
+ * readContents.
+ *
+ * @author Vincent Ma
+ */
+class Trace {
+    /**
+     * The traced primitives, in the order they are reported.
+     */
+    enum Phase {
+        READ_CONTENTS("readContents", "B read"),
+        WRITE_CONTENTS("writeContents", "B written"),
+        READ_OBJECT("readObject", "B decoded"),
+        WRITE_OBJECT("writeObject", "B encoded"),
+        SHA1("sha1", "B hashed"),
+        FAST_HASH("xxHash64", "B hashed"),
+        READ_INDEX("readIndex", "B mapped"),
+        WRITE_INDEX("writeIndex", "B written"),
+        LIST_FILES("plainFilenamesIn", "names");
+
+        /**
+         * The name of the traced method.
+         */
+        private final String label;
+
+        /**
+         * The unit of the amount recorded for this phase.
+         */
+        private final String unit;
+
+        Phase(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * The name of the environment variable switching tracing on.
+     */
+    static final String ENV = "GITLET_TRACE";
+
+    /**
+     * The command-line flag switching tracing on.
+     */
+    static final String FLAG = "--trace";
+
+    /**
+     * Number of calls of each phase.
+     */
+    private static final AtomicLongArray CALLS =
+            new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Total nanoseconds spent in each phase.
+     */
+    private static final AtomicLongArray NANOS =
+            new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Total amount (see Phase.unit) handled by each phase.
+     */
+    private static final AtomicLongArray AMOUNTS =
+            new AtomicLongArray(Phase.values().length);
+
+    /**
+     * If tracing is on.
+     */
+    private static volatile boolean enabled = isSetInEnv();
+
+    /**
+     * Returns if GITLET_TRACE asks for tracing.
+     */
+    private static boolean isSetInEnv() {
+        String value = System.getenv(ENV);
+        return value != null && !value.isEmpty() && !value.equals("0");
+    }
+
+    /**
+     * Starts timing COMMAND, and prints its report when the JVM exits.
+     * Only called while tracing is on.
+     */
+    static void begin(String command) {
+        long start = System.nanoTime();
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> report(command, System.nanoTime() - start)));
+    }
+
+    /**
+     * Turns tracing on.
+     */
+    static void enable() {
+        enabled = true;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the start time of a traced call, or 0 if tracing is off.
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records one call of PHASE that began at START and handled AMOUNT.
+     *
+     * @param start The value returned by start().
+     */
+    static void record(Phase phase, long start, long amount) {
+        if (!enabled) {
+            return;
+        }
+        int i = phase.ordinal();
+        CALLS.incrementAndGet(i);
+        NANOS.addAndGet(i, System.nanoTime() - start);
+        AMOUNTS.addAndGet(i, amount);
+    }
+
+    /**
+     * Prints the per-phase breakdown of COMMAND, which took TOTAL
+     * nanoseconds, to System.err.
+     */
+    static void report(String command, long total) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("=== Trace: %s (%.3f ms) ===%n",
+                command, total / 1e6));
+        builder.append(String.format("%-18s %8s %12s %14s%n",
+                "phase", "calls", "time (ms)", "amount"));
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            builder.append(String.format("%-18s %8d %12.3f %14s%n",
+                    phase.label, CALLS.get(i), NANOS.get(i) / 1e6,
+                    AMOUNTS.get(i) + " " + phase.unit));
+        }
+        System.err.print(builder);
+        System.err.flush();
+    }
+}
@@ -36,13 +36,18 @@ class Utils {
     /** Returns the SHA-1 hash of the concatenation of VALS, which may
      *  be any mixture of byte arrays and Strings. */
     static String sha1(Object... vals) {
+        long start = Trace.start();
+        long hashed = 0;
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-1");
             for (Object val : vals) {
                 if (val instanceof byte[]) {
                     md.update((byte[]) val);
+                    hashed += ((byte[]) val).length;
                 } else if (val instanceof String) {
-                    md.update(((String) val).getBytes(StandardCharsets.UTF_8));
+                    byte[] bytes = ((String) val).getBytes(StandardCharsets.UTF_8);
+                    md.update(bytes);
+                    hashed += bytes.length;
                 } else {
                     throw new IllegalArgumentException("improper type to sha1");
                 }
@@ -51,6 +56,7 @@ class Utils {
             for (byte b : md.digest()) {
                 result.format("%02x", b);
             }
+            Trace.record(Trace.Phase.SHA1, start, hashed);
             return result.toString();
         } catch (NoSuchAlgorithmException excp) {
             throw new IllegalArgumentException("System does not support SHA-1");
@@ -97,8 +103,11 @@ class Utils {
         if (!file.isFile()) {
             throw new IllegalArgumentException("must be a normal file");
         }
+        long start = Trace.start();
         try {
-            return Files.readAllBytes(file.toPath());
+            byte[] contents = Files.readAllBytes(file.toPath());
+            Trace.record(Trace.Phase.READ_CONTENTS, start, contents.length);
+            return contents;
         } catch (IOException excp) {
             throw new IllegalArgumentException(excp.getMessage());
         }
@@ -116,6 +125,8 @@ class Utils {
      *  either a String or a byte array.  Throws IllegalArgumentException
      *  in case of problems. */
     static void writeContents(File file, Object... contents) {
+        long start = Trace.start();
+        long written = 0;
         try {
             if (file.isDirectory()) {
                 throw
@@ -126,11 +137,15 @@ class Utils {
             for (Object obj : contents) {
                 if (obj instanceof byte[]) {
                     str.write((byte[]) obj);
+                    written += ((byte[]) obj).length;
                 } else {
-                    str.write(((String) obj).getBytes(StandardCharsets.UTF_8));
+                    byte[] bytes = ((String) obj).getBytes(StandardCharsets.UTF_8);
+                    str.write(bytes);
+                    written += bytes.length;
                 }
             }
             str.close();
+            Trace.record(Trace.Phase.WRITE_CONTENTS, start, written);
         } catch (IOException | ClassCastException excp) {
             throw new IllegalArgumentException(excp.getMessage());
         }
@@ -140,11 +155,13 @@ class Utils {
      *  Throws IllegalArgumentException in case of problems. */
     static <T extends Serializable> T readObject(File file,
                                                  Class<T> expectedClass) {
+        long start = Trace.start();
         try {
             ObjectInputStream in =
                 new ObjectInputStream(new FileInputStream(file));
             T result = expectedClass.cast(in.readObject());
             in.close();
+            Trace.record(Trace.Phase.READ_OBJECT, start, file.length());
             return result;
         } catch (IOException | ClassCastException
                  | ClassNotFoundException excp) {
@@ -154,7 +171,10 @@ class Utils {
 
     /** Write OBJ to FILE. */
     static void writeObject(File file, Serializable obj) {
-        writeContents(file, serialize(obj));
+        long start = Trace.start();
+        byte[] bytes = serialize(obj);
+        writeContents(file, bytes);
+        Trace.record(Trace.Phase.WRITE_OBJECT, start, bytes.length);
     }
 
     /* DIRECTORIES */
@@ -172,11 +192,13 @@ class Utils {
      *  lexicographic order as Java Strings.  Returns null if DIR does
      *  not denote a directory. */
     static List<String> plainFilenamesIn(File dir) {
+        long start = Trace.start();
         String[] files = dir.list(PLAIN_FILES);
         if (files == null) {
             return null;
         } else {
             Arrays.sort(files);
+            Trace.record(Trace.Phase.LIST_FILES, start, files.length);
             return Arrays.asList(files);
         }
     }
@@ -0,0 +1,110 @@
+package gitlet;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The 64-bit xxHash (XXH64) of Yann Collet, a fast non-cryptographic hash.
+ * Gitlet uses it to tell whether a file changed since its SHA-1 was last
+ * computed, which is several times cheaper than computing the SHA-1 again.
+ *
+ * @author Vincent Ma
+ */
+final class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Reads little-endian longs from a byte array.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(
+            long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Reads little-endian ints from a byte array.
+     */
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(
+            int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private XxHash64() {
+    }
+
+    /**
+     * Returns the XXH64 of DATA with seed 0.
+     */
+    static long hash(byte[] data) {
+        return hash(data, 0);
+    }
+
+    /**
+     * Returns the XXH64 of DATA with SEED.
+     */
+    static long hash(byte[] data, long seed) {
+        long start = Trace.start();
+        int len = data.length;
+        int i = 0;
+        long h;
+        if (len >= 32) {
+            long v1 = seed + PRIME1 + PRIME2;
+            long v2 = seed + PRIME2;
+            long v3 = seed;
+            long v4 = seed - PRIME1;
+            int limit = len - 32;
+            do {
+                v1 = round(v1, (long) LONGS.get(data, i));
+                v2 = round(v2, (long) LONGS.get(data, i + 8));
+                v3 = round(v3, (long) LONGS.get(data, i + 16));
+                v4 = round(v4, (long) LONGS.get(data, i + 24));
+                i += 32;
+            } while (i <= limit);
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                    + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + PRIME5;
+        }
+        h += len;
+
+        while (i + 8 <= len) {
+            h ^= round(0, (long) LONGS.get(data, i));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+            i += 8;
+        }
+        if (i + 4 <= len) {
+            h ^= ((int) INTS.get(data, i) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        while (i < len) {
+            h ^= (data[i] & 0xFFL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+            i += 1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        Trace.record(Trace.Phase.FAST_HASH, start, len);
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME1 + PRIME4;
+    }
+}